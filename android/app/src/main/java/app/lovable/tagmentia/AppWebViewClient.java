@@ -0,0 +1,52 @@
+package app.lovable.tagmentia;
+
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.BridgeWebViewClient;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Capacitor's WebViewClient with remote thumbnails served through ThumbnailCache and shared
+ * files served on the local origin through SharedMediaServer
+ * Everything else (local assets, API calls, other images) goes to the bridge untouched
+ */
+class AppWebViewClient extends BridgeWebViewClient {
+    private final Bridge bridge;
+    private final ThumbnailCache thumbnails;
+    private final SharedMediaServer sharedMedia;
+
+    AppWebViewClient(Bridge bridge, ThumbnailCache thumbnails, SharedMediaServer sharedMedia) {
+        super(bridge);
+        this.bridge = bridge;
+        this.thumbnails = thumbnails;
+        this.sharedMedia = sharedMedia;
+    }
+
+    @Override
+    public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+        String url = request.getUrl().toString();
+        String localUrl = bridge.getLocalUrl();
+        if (localUrl != null && url.startsWith(localUrl + SharedMediaServer.PATH_PREFIX)) {
+            // Range isn't visible to WebViewAssetLoader path handlers, hence the request-level hook
+            Map<String, String> requestHeaders = request.getRequestHeaders();
+            SharedMediaServer.Response response = sharedMedia.serve(request.getUrl().getPath(),
+                requestHeaders != null ? requestHeaders.get("Range") : null);
+            return new WebResourceResponse(response.mimeType, null, response.status, response.reason, response.headers, response.body);
+        }
+        if ("GET".equals(request.getMethod()) && thumbnails.isCacheable(url)) {
+            Map<String, String> requestHeaders = request.getRequestHeaders();
+            ThumbnailCache.Hit hit = thumbnails.open(url, requestHeaders != null ? requestHeaders.get("User-Agent") : null);
+            if (hit != null) {
+                Map<String, String> headers = new HashMap<>();
+                headers.put("Access-Control-Allow-Origin", "*");
+                return new WebResourceResponse(hit.mimeType, null, 200, "OK", headers, hit.body);
+            }
+        }
+        return super.shouldInterceptRequest(view, request);
+    }
+}
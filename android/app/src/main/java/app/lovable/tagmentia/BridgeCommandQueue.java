@@ -0,0 +1,167 @@
+package app.lovable.tagmentia;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Owns every bridge command MainActivity issues to the web app (navigations, share events)
+ *
+ * Commands are keyed: a command submitted while another with the same key is still pending
+ * replaces it, so five deep links in quick succession end in one navigation - the latest.
+ * Nothing runs before the web app reports ready; after that, submissions are coalesced for
+ * COALESCE_MS and run together in one flush (which BridgeScriptDispatcher turns into one script).
+ * cancelAll() drops whatever is left when the activity goes away
+ *
+ * Plain Java with no Android dependencies so it can be unit tested; the delay comes from a Scheduler
+ * Main thread only, except stats()
+ */
+final class BridgeCommandQueue {
+    static final long COALESCE_MS = 50;
+
+    /**
+     * Posts the flush (MainActivity uses a main-looper Handler)
+     */
+    interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+
+        void cancel(Runnable task);
+    }
+
+    /**
+     * Counters since the queue was created, for diagnostics
+     */
+    static final class Stats {
+        final int pending;
+        final int submitted;
+        final int coalesced; // Replaced by a newer command with the same key before running
+        final int executed;
+        final int failed;
+        final int cancelled;
+        final int flushes;
+
+        Stats(int pending, int submitted, int coalesced, int executed, int failed, int cancelled, int flushes) {
+            this.pending = pending;
+            this.submitted = submitted;
+            this.coalesced = coalesced;
+            this.executed = executed;
+            this.failed = failed;
+            this.cancelled = cancelled;
+            this.flushes = flushes;
+        }
+    }
+
+    /**
+     * Receives commands that threw (the queue itself has no logger)
+     */
+    interface ErrorListener {
+        void onCommandFailed(String key, Exception error);
+    }
+
+    private final Scheduler scheduler;
+    private final ErrorListener errors;
+    private final Runnable flush = this::flush;
+    private final LinkedHashMap<String, Runnable> pending = new LinkedHashMap<>();
+    private volatile boolean ready = false; // Also read by share progress on the batch threads
+    private boolean flushScheduled = false;
+    private boolean closed = false;
+
+    // Guarded by this - read from the plugin thread by stats()
+    private int submitted;
+    private int coalesced;
+    private int executed;
+    private int failed;
+    private int cancelled;
+    private int flushes;
+
+    BridgeCommandQueue(Scheduler scheduler, ErrorListener errors) {
+        this.scheduler = scheduler;
+        this.errors = errors;
+    }
+
+    /**
+     * Queue a command, replacing any pending one with the same key
+     * @param key Commands that supersede each other share a key (e.g. every navigation)
+     */
+    void submit(String key, Runnable command) {
+        if (closed) {
+            return;
+        }
+        synchronized (this) {
+            submitted++;
+            // Remove first so the replacement runs in its own submission order
+            if (pending.remove(key) != null) {
+                coalesced++;
+            }
+            pending.put(key, command);
+        }
+        if (ready && !flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(flush, COALESCE_MS);
+        }
+    }
+
+    /**
+     * Record whether the web app can take commands; becoming ready runs everything held so far at once
+     */
+    void setReady(boolean ready) {
+        this.ready = ready;
+        if (ready) {
+            flush();
+        }
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Drop every pending command and refuse new ones (the activity is going away)
+     */
+    void cancelAll() {
+        closed = true;
+        scheduler.cancel(flush);
+        flushScheduled = false;
+        synchronized (this) {
+            cancelled += pending.size();
+            pending.clear();
+        }
+    }
+
+    synchronized Stats stats() {
+        return new Stats(pending.size(), submitted, coalesced, executed, failed, cancelled, flushes);
+    }
+
+    private void flush() {
+        if (flushScheduled) {
+            scheduler.cancel(flush);
+            flushScheduled = false;
+        }
+        if (!ready || closed) {
+            return;
+        }
+        List<Map.Entry<String, Runnable>> commands;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            commands = new ArrayList<>(pending.entrySet());
+            pending.clear();
+            flushes++;
+        }
+        for (Map.Entry<String, Runnable> command : commands) {
+            try {
+                command.getValue().run();
+                synchronized (this) {
+                    executed++;
+                }
+            } catch (Exception e) {
+                synchronized (this) {
+                    failed++;
+                }
+                errors.onCommandFailed(command.getKey(), e);
+            }
+        }
+    }
+}
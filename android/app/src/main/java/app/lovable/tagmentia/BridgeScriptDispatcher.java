@@ -0,0 +1,68 @@
+package app.lovable.tagmentia;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.webkit.WebView;
+
+/**
+ * Single path for every script the share flow runs in the WebView
+ * Commands dispatched within one main looper tick - from any thread - are joined into one script
+ * and evaluated with a single evaluateJavascript call, so a share costs one bridge round trip
+ * Each command runs in its own try/catch, so a failing command can't stop the ones after it
+ */
+final class BridgeScriptDispatcher {
+    private static final String TAG = "BridgeScriptDispatcher";
+
+    /**
+     * Where scripts are evaluated - the bridge's WebView, which may not exist yet or any more
+     */
+    interface WebViewSource {
+        WebView getWebView();
+    }
+
+    private final WebViewSource webViewSource;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flush = this::flush;
+
+    // Guarded by this
+    private StringBuilder pending = new StringBuilder();
+    private int pendingCount = 0;
+
+    BridgeScriptDispatcher(WebViewSource webViewSource) {
+        this.webViewSource = webViewSource;
+    }
+
+    /**
+     * Queue a script for the next evaluation
+     * @param label Names the command in the error logged if it throws
+     */
+    void dispatch(String label, String script) {
+        synchronized (this) {
+            pending.append("try { ").append(script).append(" } catch (e) { console.error(")
+                .append(JsonStringEncoder.quote("Bridge command failed: " + label)).append(", e); }\n");
+            if (pendingCount++ > 0) {
+                return;
+            }
+        }
+        mainHandler.post(flush);
+    }
+
+    private void flush() {
+        String script;
+        int count;
+        synchronized (this) {
+            script = pending.toString();
+            count = pendingCount;
+            pending = new StringBuilder();
+            pendingCount = 0;
+        }
+        WebView webView = webViewSource.getWebView();
+        if (webView == null) {
+            Log.w(TAG, "WebView gone, dropping " + count + " bridge command(s)");
+            return;
+        }
+        Log.d(TAG, "Evaluating " + count + " bridge command(s) in one script");
+        webView.evaluateJavascript(script, null);
+    }
+}
@@ -0,0 +1,263 @@
+package app.lovable.tagmentia;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The user's categories as last handed over by the web app, and how often and how recently each was saved to
+ *
+ * Lets native code offer categories (Direct Share shortcuts, QuickSaveActivity) without asking the
+ * backend for the list. Usage is kept as one exponentially decaying score per category: every save
+ * adds 1, and the score halves every HALF_LIFE_MS, so a category used a lot last month ranks below
+ * one used a few times this week. Categories never saved to follow in name order, like the web app
+ * lists them.
+ *
+ * Plain Java with no Android dependencies so it can be unit tested on the JVM
+ * Every method can be called from any thread; writes block on the file, so keep them off the main thread
+ */
+final class CategoryCache {
+    static final long HALF_LIFE_MS = 14L * 24 * 60 * 60 * 1000;
+
+    private static final String FILE = "categories.cache";
+
+    /**
+     * A category as the web app lists it
+     */
+    static final class Category {
+        final String id;
+        final String name;
+        final String color; // Design-system color name, e.g. "blue-ocean"; may be null
+
+        Category(String id, String name, String color) {
+            this.id = id;
+            this.name = name;
+            this.color = color;
+        }
+    }
+
+    private static final class Usage {
+        final double score; // As of at
+        final long at;
+
+        Usage(double score, long at) {
+            this.score = score;
+            this.at = at;
+        }
+
+        double scoreAt(long now) {
+            return score * Math.pow(0.5, Math.max(0, now - at) / (double) HALF_LIFE_MS);
+        }
+    }
+
+    private static CategoryCache instance;
+
+    private final File file;
+
+    // Guarded by this
+    private final LinkedHashMap<String, Category> categories = new LinkedHashMap<>();
+    private final Map<String, Usage> usage = new HashMap<>();
+    private boolean loaded;
+
+    CategoryCache(File directory) {
+        this.file = new File(directory, FILE);
+    }
+
+    /**
+     * Process-wide cache, so the plugin, QuickSaveActivity and the shortcuts see the same list
+     * @param directory App-private files directory (getFilesDir())
+     */
+    static synchronized CategoryCache getInstance(File directory) {
+        if (instance == null) {
+            instance = new CategoryCache(directory);
+        }
+        return instance;
+    }
+
+    /**
+     * Replace the category list; usage of categories that are gone is dropped
+     * @return whether anything changed
+     */
+    synchronized boolean setCategories(List<Category> list) {
+        load();
+        LinkedHashMap<String, Category> updated = new LinkedHashMap<>();
+        for (Category category : list) {
+            updated.put(category.id, category);
+        }
+        if (sameAs(updated)) {
+            return false;
+        }
+        categories.clear();
+        categories.putAll(updated);
+        usage.keySet().retainAll(categories.keySet());
+        store();
+        return true;
+    }
+
+    /**
+     * Forget everything, e.g. on sign-out
+     */
+    synchronized void clear() {
+        categories.clear();
+        usage.clear();
+        loaded = true;
+        file.delete();
+    }
+
+    synchronized Category find(String id) {
+        load();
+        return id != null ? categories.get(id) : null;
+    }
+
+    /**
+     * Count a save to a category (ignored for categories not in the list)
+     */
+    void recordUse(String id) {
+        recordUse(id, System.currentTimeMillis());
+    }
+
+    synchronized void recordUse(String id, long now) {
+        load();
+        if (id == null || !categories.containsKey(id)) {
+            return;
+        }
+        Usage previous = usage.get(id);
+        usage.put(id, new Usage((previous != null ? previous.scoreAt(now) : 0) + 1, now));
+        store();
+    }
+
+    /**
+     * The categories most likely to be saved to next, best first
+     */
+    List<Category> ranked(int limit) {
+        return ranked(limit, System.currentTimeMillis());
+    }
+
+    synchronized List<Category> ranked(int limit, long now) {
+        load();
+        Map<String, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Usage> entry : usage.entrySet()) {
+            scores.put(entry.getKey(), entry.getValue().scoreAt(now));
+        }
+        List<Category> ranked = new ArrayList<>(categories.values());
+        Collections.sort(ranked, (a, b) -> {
+            int byScore = Double.compare(scoreOf(scores, b), scoreOf(scores, a));
+            if (byScore != 0) {
+                return byScore;
+            }
+            return nameKey(a).compareTo(nameKey(b));
+        });
+        return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+    }
+
+    private static double scoreOf(Map<String, Double> scores, Category category) {
+        Double score = scores.get(category.id);
+        return score != null ? score : 0;
+    }
+
+    private static String nameKey(Category category) {
+        return category.name != null ? category.name.toLowerCase(Locale.ROOT) : "";
+    }
+
+    private boolean sameAs(LinkedHashMap<String, Category> updated) {
+        if (updated.size() != categories.size()) {
+            return false;
+        }
+        for (Category category : updated.values()) {
+            Category current = categories.get(category.id);
+            if (current == null || !equal(current.name, category.name) || !equal(current.color, category.color)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.exists()) {
+            return;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            JSONObject record = new JSONObject(content.toString("UTF-8"));
+            JSONArray list = record.getJSONArray("categories");
+            for (int i = 0; i < list.length(); i++) {
+                JSONObject category = list.getJSONObject(i);
+                categories.put(category.getString("id"), new Category(category.getString("id"),
+                    category.optString("name", null), category.optString("color", null)));
+            }
+            JSONArray uses = record.optJSONArray("usage");
+            for (int i = 0; uses != null && i < uses.length(); i++) {
+                JSONObject use = uses.getJSONObject(i);
+                usage.put(use.getString("id"), new Usage(use.getDouble("score"), use.getLong("at")));
+            }
+        } catch (IOException | JSONException e) {
+            // Unreadable or torn - start empty, the web app hands the list over again
+            categories.clear();
+            usage.clear();
+        }
+    }
+
+    private void store() {
+        JSONArray list = new JSONArray();
+        JSONArray uses = new JSONArray();
+        try {
+            for (Category category : categories.values()) {
+                list.put(new JSONObject()
+                    .put("id", category.id)
+                    .putOpt("name", category.name)
+                    .putOpt("color", category.color));
+            }
+            for (Map.Entry<String, Usage> entry : usage.entrySet()) {
+                uses.put(new JSONObject()
+                    .put("id", entry.getKey())
+                    .put("score", entry.getValue().score)
+                    .put("at", entry.getValue().at));
+            }
+            write(new JSONObject().put("categories", list).put("usage", uses).toString());
+        } catch (JSONException e) {
+            // Only thrown for non-finite numbers, and scores are always finite
+        }
+    }
+
+    private void write(String content) {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package app.lovable.tagmentia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+
+/**
+ * Channel-to-channel file copy used to move shared files into app storage
+ * Peak memory stays at one fixed-size buffer no matter how large the file is
+ *
+ * Plain Java with no Android dependencies so it can be unit tested and benchmarked on the JVM
+ */
+final class ChannelCopy {
+    static final int BUFFER_SIZE = 64 * 1024; // Used when the source has no known size (pipes)
+    private static final long TRANSFER_CHUNK_SIZE = 8L * 1024 * 1024; // Max bytes per kernel transfer call
+
+    private ChannelCopy() {
+    }
+
+    /**
+     * Copy source to sink without materialising the payload on the Java heap
+     * Regular files (known size) are moved in the kernel with transferTo; pipes and
+     * other unsized sources fall back to a single reusable direct buffer
+     * @return the number of bytes copied
+     */
+    static long copy(FileChannel source, FileChannel sink, long sourceSize) throws IOException {
+        long position = 0;
+        if (sourceSize > 0) {
+            while (position < sourceSize) {
+                long transferred = source.transferTo(position, Math.min(TRANSFER_CHUNK_SIZE, sourceSize - position), sink);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            if (position == sourceSize) {
+                return position;
+            }
+            // Source reported a size it could not deliver in one go - finish with the buffered path
+            source.position(position);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += sink.write(buffer);
+            }
+            buffer.clear();
+        }
+        return position;
+    }
+
+    /**
+     * Copy source to sink through one reusable direct buffer, feeding every byte to the digest on the way
+     * For when the content hash is needed too - transferTo never exposes the bytes to the VM
+     * @return the number of bytes copied
+     */
+    static long copyAndDigest(ReadableByteChannel source, WritableByteChannel sink, MessageDigest digest) throws IOException {
+        long copied = 0;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+            digest.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                copied += sink.write(buffer);
+            }
+            buffer.clear();
+        }
+        return copied;
+    }
+
+    /**
+     * Lowercase hex of a digest - used as a content address in file and object names
+     */
+    static String toHex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
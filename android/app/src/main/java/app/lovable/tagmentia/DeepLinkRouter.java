@@ -0,0 +1,254 @@
+package app.lovable.tagmentia;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Maps deep links (custom scheme tagmentia:// or App Links https://tagmentia.com/*) to a web app route
+ * URIs are split the same lenient way android.net.Uri does it, so malformed links parse
+ * instead of throwing
+ *
+ * Plain Java with no Android dependencies so it can be unit tested and benchmarked on the JVM
+ */
+final class DeepLinkRouter {
+    private static final String SCHEME = "tagmentia";
+    private static final String HOST = "tagmentia.com";
+    private static final String HOST_SUFFIX = ".tagmentia.com";
+
+    /**
+     * Where a deep link leads - the /add screen with a URL to save, or a path in the web app
+     */
+    static final class Route {
+        final boolean addUrl;
+        final String target; // The URL to save for addUrl, otherwise the path (with query) to open
+
+        private Route(boolean addUrl, String target) {
+            this.addUrl = addUrl;
+            this.target = target;
+        }
+
+        static Route addUrl(String url) {
+            return new Route(true, url);
+        }
+
+        static Route navigate(String path) {
+            return new Route(false, path);
+        }
+    }
+
+    /**
+     * Scheme, host, decoded path and query of a URI, split like android.net.Uri
+     * Opaque URIs (mailto:x) only have a scheme
+     */
+    static final class Parts {
+        final String scheme;
+        final boolean hierarchical;
+        final String host;
+        final String path;
+        final String encodedQuery;
+
+        private Parts(String scheme, boolean hierarchical, String host, String path, String encodedQuery) {
+            this.scheme = scheme;
+            this.hierarchical = hierarchical;
+            this.host = host;
+            this.path = path;
+            this.encodedQuery = encodedQuery;
+        }
+
+        /**
+         * Decoded query, or null if the URI has none
+         */
+        String query() {
+            return encodedQuery != null ? percentDecode(encodedQuery, false) : null;
+        }
+
+        /**
+         * Decoded value of the first query parameter with the given name, "" if it has no value,
+         * or null if it is absent
+         */
+        String queryParameter(String name) {
+            if (encodedQuery == null) {
+                return null;
+            }
+            int start = 0;
+            int length = encodedQuery.length();
+            while (start <= length) {
+                int end = encodedQuery.indexOf('&', start);
+                if (end < 0) {
+                    end = length;
+                }
+                int separator = encodedQuery.indexOf('=', start);
+                int nameEnd = separator < 0 || separator > end ? end : separator;
+                if (nameEnd - start == name.length() && encodedQuery.startsWith(name, start)) {
+                    return nameEnd == end ? "" : percentDecode(encodedQuery.substring(nameEnd + 1, end), true);
+                }
+                start = end + 1;
+            }
+            return null;
+        }
+    }
+
+    private DeepLinkRouter() {
+    }
+
+    /**
+     * Resolve a deep link to the route it should open
+     * @return the route, or null if the link isn't one the app handles
+     * @throws IllegalArgumentException if the url parameter is malformed
+     */
+    static Route route(String link) throws UnsupportedEncodingException {
+        Parts parts = parse(link);
+        if (!parts.hierarchical) {
+            return null;
+        }
+        String path = parts.path;
+        String query = parts.query();
+
+        // Custom scheme: tagmentia://add?url=...
+        if (SCHEME.equals(parts.scheme)) {
+            String url = parts.queryParameter("url");
+            if (url != null && !url.isEmpty()) {
+                return Route.addUrl(URLDecoder.decode(url, "UTF-8"));
+            }
+            // If no url parameter, navigate to the path directly
+            if (path != null && !path.isEmpty()) {
+                return Route.navigate(path + (query != null ? "?" + query : ""));
+            }
+        }
+
+        // App Links: https://tagmentia.com/*
+        if (("https".equals(parts.scheme) || "http".equals(parts.scheme)) && isTagementHost(parts.host)) {
+            // /add path with url parameter
+            if ("/add".equals(path)) {
+                String url = parts.queryParameter("url");
+                if (url != null && !url.isEmpty()) {
+                    return Route.addUrl(URLDecoder.decode(url, "UTF-8"));
+                }
+            }
+
+            // For any other Tagement URL, navigate to it directly in the webview
+            String fullPath = path != null ? path : "/";
+            if (query != null && !query.isEmpty()) {
+                fullPath += "?" + query;
+            }
+            return Route.navigate(fullPath);
+        }
+
+        // A direct URL in the query of any other link
+        if (query != null && query.contains("url=")) {
+            String url = parts.queryParameter("url");
+            if (url != null && !url.isEmpty()) {
+                return Route.addUrl(URLDecoder.decode(url, "UTF-8"));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check if a URL is a Tagement link (tagmentia:// or http(s)://tagmentia.com and subdomains)
+     */
+    static boolean isTagementLink(String url) {
+        if (url == null || url.isEmpty()) {
+            return false;
+        }
+        Parts parts = parse(url);
+        if (SCHEME.equals(parts.scheme)) {
+            return true;
+        }
+        return ("https".equals(parts.scheme) || "http".equals(parts.scheme)) && isTagementHost(parts.host);
+    }
+
+    private static boolean isTagementHost(String host) {
+        return host != null && (host.equals(HOST) || host.endsWith(HOST_SUFFIX));
+    }
+
+    /**
+     * Split a URI into its parts
+     */
+    static Parts parse(String uri) {
+        int fragmentStart = uri.indexOf('#');
+        int end = fragmentStart < 0 ? uri.length() : fragmentStart;
+        int schemeEnd = uri.indexOf(':');
+        if (schemeEnd > end) {
+            schemeEnd = -1;
+        }
+        String scheme = schemeEnd < 0 ? null : uri.substring(0, schemeEnd);
+
+        int position = schemeEnd + 1;
+        if (schemeEnd >= 0 && (position >= uri.length() || uri.charAt(position) != '/')) {
+            return new Parts(scheme, false, null, null, null);
+        }
+
+        String host = null;
+        if (uri.startsWith("//", position)) {
+            int authorityStart = position + 2;
+            int authorityEnd = authorityStart;
+            while (authorityEnd < end && "/\\?".indexOf(uri.charAt(authorityEnd)) < 0) {
+                authorityEnd++;
+            }
+            host = hostOf(uri.substring(authorityStart, authorityEnd));
+            position = authorityEnd;
+        }
+
+        int queryStart = uri.indexOf('?', position);
+        if (queryStart > end) {
+            queryStart = -1;
+        }
+        String path = percentDecode(uri.substring(position, queryStart < 0 ? end : queryStart), false);
+        String encodedQuery = queryStart < 0 ? null : uri.substring(queryStart + 1, end);
+        return new Parts(scheme, true, host, path, encodedQuery);
+    }
+
+    /**
+     * Host part of an authority (no user info or port), decoded
+     */
+    private static String hostOf(String authority) {
+        int hostStart = authority.lastIndexOf('@') + 1;
+        int portSeparator = authority.lastIndexOf(':');
+        int hostEnd = portSeparator >= hostStart && authority.indexOf(']', portSeparator) < 0 ? portSeparator : authority.length();
+        return percentDecode(authority.substring(hostStart, hostEnd), false);
+    }
+
+    /**
+     * Decode %XX escapes as UTF-8 (and '+' as space in query values); malformed escapes are kept as-is
+     */
+    static String percentDecode(String value, boolean plusAsSpace) {
+        if (value.indexOf('%') < 0 && (!plusAsSpace || value.indexOf('+') < 0)) {
+            return value;
+        }
+        StringBuilder decoded = new StringBuilder(value.length());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            char c = value.charAt(i);
+            if (c == '%' && i + 2 < length && hexValue(value.charAt(i + 1)) >= 0 && hexValue(value.charAt(i + 2)) >= 0) {
+                // Collect a run of escapes so multi-byte UTF-8 sequences decode together
+                bytes.reset();
+                while (i + 2 < length && value.charAt(i) == '%'
+                    && hexValue(value.charAt(i + 1)) >= 0 && hexValue(value.charAt(i + 2)) >= 0) {
+                    bytes.write(hexValue(value.charAt(i + 1)) << 4 | hexValue(value.charAt(i + 2)));
+                    i += 3;
+                }
+                decoded.append(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+                continue;
+            }
+            decoded.append(plusAsSpace && c == '+' ? ' ' : c);
+            i++;
+        }
+        return decoded.toString();
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
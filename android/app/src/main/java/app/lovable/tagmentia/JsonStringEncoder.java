@@ -0,0 +1,72 @@
+package app.lovable.tagmentia;
+
+/**
+ * Encodes values as double-quoted JSON string literals, which are also valid JavaScript string
+ * literals - for the scripts MainActivity evaluates in the WebView and the JSON bodies it sends
+ *
+ * One pass, no regex and no intermediate strings: values with nothing to escape (most URLs) are
+ * appended as a single chunk. Escapes quotes, backslashes, every control character and U+2028 /
+ * U+2029, which JSON allows raw but older JavaScript engines treat as line terminators.
+ *
+ * Plain Java with no Android dependencies so it can be unit tested and benchmarked on the JVM
+ */
+final class JsonStringEncoder {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private JsonStringEncoder() {
+    }
+
+    /**
+     * Quote a value, e.g. a"b becomes "a\"b"; null becomes the literal null
+     */
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        return appendQuoted(new StringBuilder(value.length() + 16), value).toString();
+    }
+
+    /**
+     * Append a value as a quoted literal
+     */
+    static StringBuilder appendQuoted(StringBuilder out, String value) {
+        out.append('"');
+        int length = value.length();
+        int chunkStart = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            out.append(value, chunkStart, i);
+            chunkStart = i + 1;
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                default:
+                    out.append("\\u").append(HEX[c >> 12]).append(HEX[(c >> 8) & 0xf])
+                        .append(HEX[(c >> 4) & 0xf]).append(HEX[c & 0xf]);
+            }
+        }
+        return out.append(value, chunkStart, length).append('"');
+    }
+}
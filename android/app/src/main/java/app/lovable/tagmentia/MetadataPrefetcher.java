@@ -0,0 +1,162 @@
+package app.lovable.tagmentia;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Speculatively calls the fetch-metadata edge function for a shared link as soon as the share
+ * intent is resolved, while the WebView is still booting, so the add form can open populated
+ *
+ * Responses (title, thumbnail_url, platform, tags - whatever fetch-metadata returns) are kept as
+ * raw JSON in a small LRU keyed by the shared URL; the web app reads them through
+ * ShareBridgePlugin.getPrefetchedMetadata(). A read that arrives while the fetch is still
+ * running waits for it instead of starting a second request. Failures are not cached - the web
+ * app falls back to its own placeholder.
+ *
+ * Plain Java with no Android dependencies so it can be unit tested against a local HTTP server
+ */
+final class MetadataPrefetcher {
+    static final int MAX_ENTRIES = 32;
+    static final int MAX_RESPONSE_BYTES = 16 * 1024;
+    static final int CONNECT_TIMEOUT_MS = 5000;
+    static final int READ_TIMEOUT_MS = 10000;
+
+    /**
+     * Receives the prefetched metadata JSON, or null if there is none, on the prefetch thread
+     */
+    interface Callback {
+        void onMetadata(String json);
+    }
+
+    private static MetadataPrefetcher instance;
+
+    private final String endpoint;
+    private final String apiKey;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tagmentia-metadata-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private final LinkedHashMap<String, String> cache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final Map<String, List<Callback>> inFlight = new HashMap<>();
+
+    /**
+     * @param endpoint URL of the fetch-metadata function
+     * @param apiKey Supabase publishable (anon) key - the prefetch runs before the web app has a session
+     */
+    MetadataPrefetcher(String endpoint, String apiKey) {
+        this.endpoint = endpoint;
+        this.apiKey = apiKey;
+    }
+
+    /**
+     * Process-wide prefetcher, so fetches and cached results outlive the activity
+     */
+    static synchronized MetadataPrefetcher getInstance(String endpoint, String apiKey) {
+        if (instance == null) {
+            instance = new MetadataPrefetcher(endpoint, apiKey);
+        }
+        return instance;
+    }
+
+    /**
+     * Start fetching metadata for a URL unless it is already cached or being fetched
+     */
+    void prefetch(String url) {
+        synchronized (this) {
+            if (cache.containsKey(url) || inFlight.containsKey(url)) {
+                return;
+            }
+            inFlight.put(url, new ArrayList<>());
+        }
+        executor.execute(() -> {
+            String json;
+            try {
+                json = fetch(url);
+            } catch (IOException | RuntimeException e) {
+                json = null;
+            }
+            List<Callback> waiting;
+            synchronized (this) {
+                if (json != null) {
+                    cache.put(url, json);
+                }
+                waiting = inFlight.remove(url);
+            }
+            for (Callback callback : waiting) {
+                callback.onMetadata(json);
+            }
+        });
+    }
+
+    /**
+     * Report the metadata for a URL - immediately if cached or unknown, once fetched if in flight
+     */
+    void get(String url, Callback callback) {
+        String json;
+        synchronized (this) {
+            List<Callback> waiting = inFlight.get(url);
+            if (waiting != null) {
+                waiting.add(callback);
+                return;
+            }
+            json = cache.get(url);
+        }
+        callback.onMetadata(json);
+    }
+
+    /**
+     * POST {"url": ...} to fetch-metadata
+     * @return the response body, or null if the function failed or the body is implausibly large
+     */
+    private String fetch(String url) throws IOException {
+        byte[] body = ("{\"url\":" + JsonStringEncoder.quote(url) + "}").getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection connection = (HttpURLConnection) new URL(endpoint).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("apikey", apiKey);
+        connection.setRequestProperty("Authorization", "Bearer " + apiKey);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            return null;
+        }
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        try (InputStream in = connection.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                response.write(buffer, 0, read);
+                if (response.size() > MAX_RESPONSE_BYTES) {
+                    return null;
+                }
+            }
+        }
+        return response.toString("UTF-8");
+    }
+}
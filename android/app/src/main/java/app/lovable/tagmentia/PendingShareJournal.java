@@ -0,0 +1,382 @@
+package app.lovable.tagmentia;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable, append-only journal of incoming shares in app-private storage
+ * Every share is recorded the moment its intent arrives - as the raw intent payload, replaced by
+ * the extracted URL or image manifest once ingestion is done - and stays pending until the web
+ * layer acknowledges it, so shares survive both bursts and the process dying during ingestion
+ *
+ * Writes are batched: records appended within FLUSH_DELAY_MS share one write and one fsync.
+ * Acknowledged records are dropped by periodic compaction (rewrite + atomic rename).
+ * A torn final line (crash mid-write) is ignored on replay.
+ */
+final class PendingShareJournal {
+    private static final String TAG = "PendingShareJournal";
+
+    static final String KIND_URL = "url";
+    static final String KIND_IMAGE = "image";
+
+    static final long FLUSH_DELAY_MS = 50;
+    static final int COMPACT_AFTER_ACKS = 32;
+
+    private static final String JOURNAL_FILE = "pending-shares.journal";
+    private static final String OP_ADD = "add";
+    private static final String OP_ACK = "ack";
+    private static final String OP_UPDATE = "update";
+
+    /**
+     * One journaled share - replaying the same id twice is a no-op, so records are idempotent
+     */
+    static final class Entry {
+        final String id;
+        final String kind;
+        final String value; // URL/text for KIND_URL, image manifest JSON for KIND_IMAGE
+        final long timestamp;
+        final String sourcePackage;
+        // Still the raw intent payload (see ShareFlowController.rawPayload) - not deliverable until updated
+        final boolean raw;
+
+        Entry(String id, String kind, String value, long timestamp, String sourcePackage, boolean raw) {
+            this.id = id;
+            this.kind = kind;
+            this.value = value;
+            this.timestamp = timestamp;
+            this.sourcePackage = sourcePackage;
+            this.raw = raw;
+        }
+
+        Entry withValue(String value) {
+            return new Entry(id, kind, value, timestamp, sourcePackage, false);
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject()
+                .put("id", id)
+                .put("kind", kind)
+                .put("value", value)
+                .put("ts", timestamp)
+                .put("source", sourcePackage != null ? sourcePackage : JSONObject.NULL);
+            return raw ? json.put("raw", true) : json;
+        }
+
+        static Entry fromJson(JSONObject json) {
+            return new Entry(json.optString("id"), json.optString("kind"), json.optString("value"),
+                json.optLong("ts"), json.isNull("source") ? null : json.optString("source"), json.optBoolean("raw"));
+        }
+    }
+
+    /**
+     * Receives the entries still pending from earlier runs, on the main thread
+     */
+    interface LoadCallback {
+        void onLoaded(List<Entry> pending);
+    }
+
+    private static PendingShareJournal instance;
+
+    private final File journalFile;
+    private final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tagmentia-share-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Guarded by this
+    private final LinkedHashMap<String, Entry> pending = new LinkedHashMap<>();
+    private final StringBuilder unflushed = new StringBuilder();
+    private boolean flushScheduled = false;
+    private int acksSinceCompaction = 0;
+
+    private boolean loaded = false;
+
+    // Only touched on the io thread
+    private FileOutputStream appendStream;
+
+    PendingShareJournal(File directory) {
+        this.journalFile = new File(directory, JOURNAL_FILE);
+    }
+
+    /**
+     * Process-wide journal - one writer per file, shared by every activity instance
+     * @param directory App-private directory holding the journal (getFilesDir())
+     */
+    static synchronized PendingShareJournal getInstance(File directory) {
+        if (instance == null) {
+            instance = new PendingShareJournal(directory);
+        }
+        return instance;
+    }
+
+    /**
+     * Replay the journal in the background (once per process) and report the shares nobody acknowledged
+     */
+    void load(LoadCallback callback) {
+        io.execute(() -> {
+            synchronized (this) {
+                if (loaded) {
+                    List<Entry> snapshot = new ArrayList<>(pending.values());
+                    mainHandler.post(() -> callback.onLoaded(snapshot));
+                    return;
+                }
+                loaded = true;
+            }
+            LinkedHashMap<String, Entry> replayed = replay();
+            List<Entry> snapshot;
+            synchronized (this) {
+                // Keep shares appended while replay was running after the replayed ones
+                replayed.putAll(pending);
+                pending.clear();
+                pending.putAll(replayed);
+                snapshot = new ArrayList<>(pending.values());
+            }
+            // Start every run from a clean file - this also drops a torn tail so new records
+            // are never appended onto a half-written line
+            try {
+                compact(snapshot);
+            } catch (IOException | JSONException e) {
+                Log.e(TAG, "Failed to compact share journal after replay", e);
+            }
+            Log.d(TAG, "Journal replayed - " + snapshot.size() + " pending share(s)");
+            mainHandler.post(() -> callback.onLoaded(snapshot));
+        });
+    }
+
+    /**
+     * Record a new share; it becomes durable with the next batched flush
+     */
+    Entry append(String kind, String value, String sourcePackage) {
+        return append(new Entry(UUID.randomUUID().toString(), kind, value, System.currentTimeMillis(), sourcePackage, false));
+    }
+
+    /**
+     * Record a share as its raw intent payload, before any ingestion work; update() it once ingested
+     */
+    Entry appendRaw(String kind, String payload, String sourcePackage) {
+        return append(new Entry(UUID.randomUUID().toString(), kind, payload, System.currentTimeMillis(), sourcePackage, true));
+    }
+
+    private Entry append(Entry entry) {
+        try {
+            String record = entry.toJson().put("op", OP_ADD).toString();
+            synchronized (this) {
+                pending.put(entry.id, entry);
+                enqueue(record);
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to serialise share for journal", e);
+        }
+        return entry;
+    }
+
+    /**
+     * Replace the value of a pending share (the ingested form of a raw share, or a resolved short link)
+     * @return the updated entry, or null if the share is no longer pending
+     */
+    Entry update(String id, String value) {
+        synchronized (this) {
+            Entry current = pending.get(id);
+            if (current == null) {
+                return null;
+            }
+            Entry updated = current.withValue(value);
+            try {
+                enqueue(updated.toJson().put("op", OP_UPDATE).toString());
+            } catch (JSONException e) {
+                Log.e(TAG, "Failed to serialise share update for journal", e);
+                return null;
+            }
+            pending.put(id, updated);
+            return updated;
+        }
+    }
+
+    /**
+     * Mark a share as consumed by the web layer
+     * @return true if the share was pending
+     */
+    boolean acknowledge(String id) {
+        try {
+            String record = new JSONObject().put("op", OP_ACK).put("id", id).toString();
+            synchronized (this) {
+                if (pending.remove(id) == null) {
+                    return false;
+                }
+                acksSinceCompaction++;
+                enqueue(record);
+                return true;
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to serialise acknowledgement for journal", e);
+            return false;
+        }
+    }
+
+    /**
+     * The share with this id if it is still pending, or null
+     */
+    synchronized Entry get(String id) {
+        return pending.get(id);
+    }
+
+    /**
+     * Oldest share not yet acknowledged, or null
+     */
+    synchronized Entry peek() {
+        return pending.isEmpty() ? null : pending.values().iterator().next();
+    }
+
+    /**
+     * All shares not yet acknowledged, oldest first
+     */
+    synchronized List<Entry> pendingEntries() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Write out anything buffered right away (e.g. when the activity stops)
+     */
+    void flush() {
+        io.execute(this::flushNow);
+    }
+
+    // Caller holds the lock
+    private void enqueue(String record) {
+        unflushed.append(record).append('\n');
+        if (!flushScheduled) {
+            flushScheduled = true;
+            io.schedule(this::flushNow, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write the buffered records with a single write and fsync, compacting if enough acks piled up
+     * Runs on the io thread
+     */
+    private void flushNow() {
+        String batch;
+        boolean compact;
+        List<Entry> live = null;
+        synchronized (this) {
+            flushScheduled = false;
+            if (unflushed.length() == 0) {
+                return;
+            }
+            batch = unflushed.toString();
+            unflushed.setLength(0);
+            compact = acksSinceCompaction >= COMPACT_AFTER_ACKS;
+            if (compact) {
+                acksSinceCompaction = 0;
+                live = new ArrayList<>(pending.values());
+            }
+        }
+
+        try {
+            if (compact) {
+                compact(live);
+            } else {
+                if (appendStream == null) {
+                    appendStream = new FileOutputStream(journalFile, true);
+                }
+                appendStream.write(batch.getBytes(StandardCharsets.UTF_8));
+                appendStream.getFD().sync();
+            }
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Failed to write share journal", e);
+            closeAppendStream();
+        }
+    }
+
+    /**
+     * Rewrite the journal with only the live entries, then atomically swap it in
+     */
+    private void compact(List<Entry> live) throws IOException, JSONException {
+        closeAppendStream();
+        File compacted = new File(journalFile.getParentFile(), JOURNAL_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(compacted, false)) {
+            StringBuilder contents = new StringBuilder();
+            for (Entry entry : live) {
+                contents.append(entry.toJson().put("op", OP_ADD).toString()).append('\n');
+            }
+            out.write(contents.toString().getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        if (!compacted.renameTo(journalFile)) {
+            throw new IOException("Failed to swap in compacted journal");
+        }
+        Log.d(TAG, "Journal compacted - " + live.size() + " live share(s)");
+    }
+
+    /**
+     * Read every record back; a torn or corrupt line ends the replay (it can only be the last write)
+     * Runs on the io thread
+     */
+    private LinkedHashMap<String, Entry> replay() {
+        LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+        if (!journalFile.exists()) {
+            return entries;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                JSONObject record;
+                try {
+                    record = new JSONObject(line);
+                } catch (JSONException e) {
+                    Log.w(TAG, "Ignoring torn journal record");
+                    break;
+                }
+                String id = record.optString("id");
+                String op = record.optString("op");
+                if (OP_ACK.equals(op)) {
+                    entries.remove(id);
+                } else if (OP_UPDATE.equals(op)) {
+                    if (entries.containsKey(id)) {
+                        entries.put(id, Entry.fromJson(record));
+                    }
+                } else if (!entries.containsKey(id)) {
+                    entries.put(id, Entry.fromJson(record));
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to replay share journal", e);
+        }
+        return entries;
+    }
+
+    private void closeAppendStream() {
+        if (appendStream != null) {
+            try {
+                appendStream.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to close journal stream", e);
+            }
+            appendStream = null;
+        }
+    }
+}
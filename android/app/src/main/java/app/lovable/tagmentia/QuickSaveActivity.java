@@ -0,0 +1,191 @@
+package app.lovable.tagmentia;
+
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.pm.ShortcutManagerCompat;
+
+/**
+ * Share target for text shares that saves the link without starting the web app
+ *
+ * A translucent activity over the sharing app: QuickSaver extracts the link and queues it on the
+ * native link sync for the category of the Direct Share shortcut it was aimed at (ShareShortcuts)
+ * or the quick-save category, and a snackbar-style confirmation shows where it went. The WebView
+ * is never created. Tapping Edit takes the link back out of the queue and hands the share to
+ * MainActivity, which opens it in the full editor as before; otherwise the link is sent once the
+ * confirmation goes away. Shares QuickSaver can't take go to MainActivity right away - even when
+ * the user has already left, since the outcome may only be known after this activity is gone.
+ */
+public class QuickSaveActivity extends AppCompatActivity {
+    private static final String TAG = "QuickSave";
+
+    // Extraction and the queue write run here - never on the UI thread
+    private final ShareIngestionExecutor shareIngestion = new ShareIngestionExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable dismiss = this::finish;
+
+    private QuickSaver quickSaver;
+    // The link waiting for the confirmation to go away, null once it is committed or taken back
+    private QuickSaver.Outcome saved;
+    // Set once the outcome is shown - until then a tap outside can't end the activity
+    private boolean decided = false;
+    // Hands the outcome over between the save task and onDestroy, whichever comes last
+    private final Object outcomeLock = new Object();
+    // Guarded by outcomeLock: the activity is gone, so the task acts on its outcome itself
+    private boolean destroyed = false;
+    // Guarded by outcomeLock: the outcome on its way to onOutcome
+    private QuickSaver.Outcome computed;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        long receivedAt = SystemClock.uptimeMillis();
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_quick_save);
+        // Tapping anywhere outside the confirmation keeps the save and lets the user go back
+        findViewById(R.id.quick_save_root).setOnClickListener(v -> {
+            if (decided) {
+                finish();
+            }
+        });
+        findViewById(R.id.quick_save_edit).setOnClickListener(v -> edit());
+
+        Intent intent = getIntent();
+        if (savedInstanceState != null || intent == null || !Intent.ACTION_SEND.equals(intent.getAction())
+                || !"text/plain".equals(intent.getType())) {
+            // Recreated after the process died (the share was handled then) or not a text share
+            finish();
+            return;
+        }
+
+        quickSaver = new QuickSaver(ShareBridgePlugin.savedLinkSync(this),
+            QuickSaveCategory.getInstance(getFilesDir()),
+            CategoryCache.getInstance(getFilesDir()),
+            ShortLinkResolver.getInstance(getCacheDir()));
+        String sharedText = intent.getStringExtra(Intent.EXTRA_TEXT);
+        Uri sharedUri = intent.getParcelableExtra(Intent.EXTRA_STREAM);
+        String sharedUriString = sharedUri != null ? sharedUri.toString() : null;
+        // Set when the share was aimed at one of the category shortcuts
+        String categoryId = ShareShortcuts.categoryIdOf(intent.getStringExtra(ShortcutManagerCompat.EXTRA_SHORTCUT_ID));
+        Intent editor = editorIntent();
+        shareIngestion.submit("quick save", () -> {
+            android.os.Trace.beginSection("QuickSave.save");
+            try {
+                QuickSaver.Outcome outcome = quickSaver.save(sharedText, sharedUriString, categoryId);
+                synchronized (outcomeLock) {
+                    if (!destroyed) {
+                        computed = outcome;
+                        return outcome;
+                    }
+                }
+                handOverUnseen(outcome, editor);
+                return outcome;
+            } finally {
+                android.os.Trace.endSection();
+            }
+        }, outcome -> onOutcome(outcome, receivedAt));
+        if (categoryId != null) {
+            ShareShortcuts.getInstance(this).reportUsed(categoryId);
+        }
+    }
+
+    /**
+     * Confirm a quick-saved link, or pass the share on to the editor (main thread)
+     */
+    private void onOutcome(QuickSaver.Outcome outcome, long receivedAt) {
+        decided = true;
+        if (outcome == null || !outcome.isSaved()) {
+            // Deferred, or the save failed - the editor takes the share either way
+            Log.d(TAG, "Opening the editor" + (outcome != null ? " for " + outcome.url + " - " + outcome.deferredBecause : ""));
+            openEditor();
+            return;
+        }
+        saved = outcome;
+        Log.d(TAG, "Quick-saved " + outcome.url + " in " + (SystemClock.uptimeMillis() - receivedAt) + "ms");
+        // The save counts towards the category's rank
+        ShareShortcuts.getInstance(this).refresh();
+
+        TextView message = findViewById(R.id.quick_save_message);
+        message.setText(outcome.categoryName != null
+            ? getString(R.string.quick_save_saved_to, outcome.categoryName)
+            : getString(R.string.quick_save_saved));
+        findViewById(R.id.quick_save_panel).setVisibility(View.VISIBLE);
+        mainHandler.postDelayed(dismiss, getResources().getInteger(R.integer.quick_save_confirmation_ms));
+    }
+
+    /**
+     * Act on an outcome the activity went away before showing (e.g. the user pressed Home): nobody
+     * sees the confirmation, but a deferred share still has to reach the editor (any thread)
+     */
+    private void handOverUnseen(QuickSaver.Outcome outcome, Intent editor) {
+        if (outcome.isSaved()) {
+            quickSaver.commit();
+        } else {
+            Log.d(TAG, "Opening the editor after the activity went away: " + outcome.deferredBecause);
+            getApplicationContext().startActivity(editor);
+        }
+    }
+
+    /**
+     * Take the link back and open the share in the full editor instead
+     */
+    private void edit() {
+        if (saved != null && !quickSaver.undo(saved.itemId)) {
+            // Already sent - the editor will report it as saved
+            Log.w(TAG, "Quick-saved link already sent: " + saved.url);
+        }
+        saved = null;
+        openEditor();
+    }
+
+    /**
+     * Hand the untouched share intent to MainActivity, which boots straight into /add for it
+     */
+    private void openEditor() {
+        startActivity(editorIntent());
+        finish();
+    }
+
+    private Intent editorIntent() {
+        return new Intent(getIntent()).setClass(getApplicationContext(), MainActivity.class)
+            .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Nothing to come back to once the user has moved on
+        if (!isChangingConfigurations()) {
+            finish();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        QuickSaver.Outcome unseen;
+        synchronized (outcomeLock) {
+            destroyed = true;
+            // Computed, but its callback hasn't run and now never will
+            unseen = decided ? null : computed;
+        }
+        mainHandler.removeCallbacks(dismiss);
+        // Leaving before the save finished only drops the confirmation - interrupting the save
+        // could lose the link between taking the share and writing it to the queue
+        shareIngestion.shutdownAfterSubmitted();
+        if (unseen != null) {
+            handOverUnseen(unseen, editorIntent());
+        }
+        if (saved != null) {
+            quickSaver.commit();
+            saved = null;
+        }
+        super.onDestroy();
+    }
+}
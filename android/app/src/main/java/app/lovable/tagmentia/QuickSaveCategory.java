@@ -0,0 +1,127 @@
+package app.lovable.tagmentia;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The category quick-saved links go to, as last handed over by the web app
+ *
+ * That is the user's default category if they picked one, otherwise the category of their last
+ * save from the add form. Kept in one small file so QuickSaveActivity can read it in a process
+ * where the WebView never started; cleared on sign-out, when the next user's categories are unknown
+ *
+ * Plain Java with no Android dependencies so it can be unit tested on the JVM
+ * Every method can be called from any thread; reads and writes block on the file
+ */
+final class QuickSaveCategory {
+    private static final String FILE = "quick-save.category";
+
+    /**
+     * A category links can be saved to
+     */
+    static final class Category {
+        final String id;
+        final String name;
+
+        Category(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private static QuickSaveCategory instance;
+
+    private final File file;
+
+    // Guarded by this
+    private Category category;
+    private boolean loaded;
+
+    QuickSaveCategory(File directory) {
+        this.file = new File(directory, FILE);
+    }
+
+    /**
+     * Process-wide store, so the plugin and QuickSaveActivity see the same category
+     * @param directory App-private files directory (getFilesDir())
+     */
+    static synchronized QuickSaveCategory getInstance(File directory) {
+        if (instance == null) {
+            instance = new QuickSaveCategory(directory);
+        }
+        return instance;
+    }
+
+    /**
+     * @return the quick-save category, or null if the web app hasn't handed one over
+     */
+    synchronized Category get() {
+        if (!loaded) {
+            category = read();
+            loaded = true;
+        }
+        return category;
+    }
+
+    /**
+     * Replace the quick-save category (null id clears it)
+     */
+    synchronized void set(String id, String name) {
+        category = id == null || id.isEmpty() ? null : new Category(id, name);
+        loaded = true;
+        if (category == null) {
+            file.delete();
+            return;
+        }
+        try {
+            write(new JSONObject().put("id", category.id).putOpt("name", category.name).toString());
+        } catch (JSONException e) {
+            // Only thrown for non-finite numbers, which a category doesn't have
+        }
+    }
+
+    void clear() {
+        set(null, null);
+    }
+
+    private Category read() {
+        if (!file.exists()) {
+            return null;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            JSONObject record = new JSONObject(content.toString("UTF-8"));
+            return new Category(record.getString("id"), record.optString("name", null));
+        } catch (IOException | JSONException e) {
+            // Unreadable or torn - as if none was handed over
+            return null;
+        }
+    }
+
+    private void write(String content) {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+}
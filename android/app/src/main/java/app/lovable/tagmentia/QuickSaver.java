@@ -0,0 +1,121 @@
+package app.lovable.tagmentia;
+
+/**
+ * Saves a text share without the web app: extract and canonicalize the link, then queue it on the
+ * native link sync - for the category of the Direct Share shortcut it was aimed at, or else the
+ * quick-save category
+ *
+ * Everything here is local - a short link is only swapped for its final URL if ShortLinkResolver
+ * already has it cached, otherwise it is saved as-is and the backend follows it. Shares the web app
+ * has to look at first (no link, Tagmentia links, unsupported sites, no category or session yet)
+ * are deferred to the editor instead.
+ *
+ * Plain Java with no Android dependencies so it can be unit tested on the JVM
+ * Blocking - call save() from a background thread
+ */
+final class QuickSaver {
+
+    /**
+     * What happened to a share
+     */
+    static final class Outcome {
+        final String itemId; // The SavedLinkSync item, null if deferred
+        final String url;
+        final String categoryName; // Set when saved, may be null for a category handed over without a name
+        final String deferredBecause; // Set when deferred, for the log
+
+        private Outcome(String itemId, String url, String categoryName, String deferredBecause) {
+            this.itemId = itemId;
+            this.url = url;
+            this.categoryName = categoryName;
+            this.deferredBecause = deferredBecause;
+        }
+
+        static Outcome saved(String itemId, String url, String categoryName) {
+            return new Outcome(itemId, url, categoryName, null);
+        }
+
+        static Outcome deferred(String url, String because) {
+            return new Outcome(null, url, null, because);
+        }
+
+        boolean isSaved() {
+            return itemId != null;
+        }
+    }
+
+    private final SavedLinkSync linkSync;
+    private final QuickSaveCategory category;
+    private final CategoryCache categories;
+    private final ShortLinkResolver shortLinks;
+
+    QuickSaver(SavedLinkSync linkSync, QuickSaveCategory category, CategoryCache categories,
+               ShortLinkResolver shortLinks) {
+        this.linkSync = linkSync;
+        this.category = category;
+        this.categories = categories;
+        this.shortLinks = shortLinks;
+    }
+
+    /**
+     * Queue the link of a text share, or say why the editor has to take it
+     * @param sharedText EXTRA_TEXT of the share, may be null
+     * @param sharedUri EXTRA_STREAM of the share as a string, may be null
+     * @param categoryId The category of the Direct Share shortcut the share was aimed at, or null
+     */
+    Outcome save(String sharedText, String sharedUri, String categoryId) throws InterruptedException {
+        String url = SharedUrlExtractor.extract(sharedText);
+        if (url == null && sharedUri != null) {
+            url = SharedUrlExtractor.isHttpUrl(sharedUri) ? sharedUri : SharedUrlExtractor.extract(sharedUri);
+        }
+        if (url == null) {
+            return Outcome.deferred(null, "no link in the share");
+        }
+        if (DeepLinkRouter.isTagementLink(url)) {
+            return Outcome.deferred(url, "Tagmentia link");
+        }
+
+        if (ShortLinkResolver.isShortLink(url)) {
+            String resolved = shortLinks.cached(url);
+            if (resolved != null) {
+                url = resolved;
+            }
+        }
+        SharedUrlCanonicalizer.Result canonical = SharedUrlCanonicalizer.canonicalize(url);
+        if (canonical == null || canonical.platform == null) {
+            // The editor explains which sites are supported
+            return Outcome.deferred(url, "unsupported site");
+        }
+        url = canonical.url;
+
+        // A shortcut for a category deleted since it was published falls back to the quick-save category
+        CategoryCache.Category chosen = categories.find(categoryId);
+        QuickSaveCategory.Category target = chosen != null
+            ? new QuickSaveCategory.Category(chosen.id, chosen.name) : category.get();
+        if (target == null) {
+            return Outcome.deferred(url, "no quick-save category");
+        }
+        // Signed out, rejected or expired: the link would sit in the queue - the editor sends the user to log in
+        if (!linkSync.awaitSession()) {
+            return Outcome.deferred(url, linkSync.isSessionExpired() ? "session expired" : "no session");
+        }
+        String itemId = linkSync.enqueue(url, target.id, null, null);
+        categories.recordUse(target.id);
+        return Outcome.saved(itemId, url, target.name);
+    }
+
+    /**
+     * Take a quick-saved link back, e.g. because the user opened it in the editor
+     * @return false if it has already been sent
+     */
+    boolean undo(String itemId) {
+        return linkSync.cancel(itemId);
+    }
+
+    /**
+     * Send the quick-saved link now rather than with the next batch
+     */
+    void commit() {
+        linkSync.flush();
+    }
+}
@@ -0,0 +1,262 @@
+package app.lovable.tagmentia;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal tus 1.0 client for Supabase Storage's resumable upload endpoint
+ * A file is created once (POST), then sent in fixed-size chunks; after a dropped connection or
+ * a killed process the server is asked how far it got (HEAD) and the upload continues from there
+ *
+ * Plain Java with no Android dependencies so it can be unit tested against a local HTTP server
+ * Blocking - run it on a worker thread
+ */
+final class ResumableUploader {
+    static final String TUS_VERSION = "1.0.0";
+    // Supabase Storage requires 6 MB chunks (only the last one may be shorter)
+    static final int CHUNK_BYTES = 6 * 1024 * 1024;
+    static final int CONNECT_TIMEOUT_MS = 10000;
+    static final int READ_TIMEOUT_MS = 30000;
+
+    private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    /**
+     * A response that retrying won't fix (rejected file, ...)
+     */
+    static final class PermanentFailure extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        PermanentFailure(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The access token was turned down (401/403) - worth retrying once the web app has refreshed the session
+     */
+    static final class AuthFailure extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        AuthFailure(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Persists an upload's server-side URL between attempts and receives progress
+     */
+    interface Session {
+        /**
+         * @return the upload URL created by an earlier attempt, or null
+         */
+        String uploadUrl();
+
+        void onCreated(String uploadUrl);
+
+        void onProgress(long uploadedBytes);
+    }
+
+    private final String endpoint;
+    private final String objectEndpoint;
+    private final String apiKey;
+    private final int chunkBytes;
+
+    /**
+     * @param endpoint The tus endpoint ({supabase_url}/storage/v1/upload/resumable)
+     * @param objectEndpoint Public object URL prefix ({supabase_url}/storage/v1/object/public) used to
+     *                       skip objects the bucket already holds, or null to always upload
+     * @param apiKey Supabase publishable (anon) key
+     */
+    ResumableUploader(String endpoint, String objectEndpoint, String apiKey) {
+        this(endpoint, objectEndpoint, apiKey, CHUNK_BYTES);
+    }
+
+    ResumableUploader(String endpoint, String objectEndpoint, String apiKey, int chunkBytes) {
+        this.endpoint = endpoint;
+        this.objectEndpoint = objectEndpoint;
+        this.apiKey = apiKey;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Upload a file to bucket/objectName, resuming the session's earlier upload if the server still has it
+     * @throws PermanentFailure if the server rejected the upload, AuthFailure if it rejected the access
+     *         token; any other IOException is worth retrying
+     */
+    void upload(File file, String bucket, String objectName, String contentType, String accessToken, Session session) throws IOException {
+        long length = file.length();
+        if (session.uploadUrl() == null && isStored(bucket, objectName, length)) {
+            // Content-addressed name and same size - the bucket already has these bytes
+            session.onProgress(length);
+            return;
+        }
+        String uploadUrl = session.uploadUrl();
+        long offset = uploadUrl != null ? remoteOffset(uploadUrl, accessToken) : -1;
+        if (offset < 0) {
+            uploadUrl = create(length, bucket, objectName, contentType, accessToken);
+            session.onCreated(uploadUrl);
+            offset = 0;
+        }
+        session.onProgress(offset);
+
+        try (RandomAccessFile source = new RandomAccessFile(file, "r")) {
+            byte[] buffer = new byte[ChannelCopy.BUFFER_SIZE];
+            int conflicts = 0;
+            while (offset < length) {
+                int chunk = (int) Math.min(chunkBytes, length - offset);
+                // HttpURLConnection can't send PATCH; tus servers accept the override header instead
+                HttpURLConnection connection = open(uploadUrl, "POST", accessToken);
+                connection.setRequestProperty("X-HTTP-Method-Override", "PATCH");
+                connection.setRequestProperty("Content-Type", "application/offset+octet-stream");
+                connection.setRequestProperty("Upload-Offset", Long.toString(offset));
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(chunk);
+                source.seek(offset);
+                try (OutputStream out = connection.getOutputStream()) {
+                    int remaining = chunk;
+                    while (remaining > 0) {
+                        int read = source.read(buffer, 0, Math.min(buffer.length, remaining));
+                        if (read < 0) {
+                            throw new IOException("File shrank during upload: " + file);
+                        }
+                        out.write(buffer, 0, read);
+                        remaining -= read;
+                    }
+                }
+                int status = connection.getResponseCode();
+                if (status == 409 && ++conflicts <= 3) {
+                    // Offset mismatch - an earlier chunk landed after all; ask where the server is
+                    offset = remoteOffset(uploadUrl, accessToken);
+                    if (offset < 0) {
+                        throw new IOException("Upload vanished during offset recovery: " + objectName);
+                    }
+                    continue;
+                }
+                check(connection, "Chunk upload");
+                offset = headerOffset(connection, offset + chunk);
+                session.onProgress(offset);
+            }
+        }
+    }
+
+    /**
+     * @return the upload URL from the creation response
+     */
+    private String create(long length, String bucket, String objectName, String contentType, String accessToken) throws IOException {
+        HttpURLConnection connection = open(endpoint, "POST", accessToken);
+        connection.setRequestProperty("Upload-Length", Long.toString(length));
+        connection.setRequestProperty("Upload-Metadata",
+            "bucketName " + base64(bucket) + ",objectName " + base64(objectName)
+                + ",contentType " + base64(contentType) + ",cacheControl " + base64("3600"));
+        // A creation retried after a lost response may find its own object - replace it
+        connection.setRequestProperty("x-upsert", "true");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(0);
+        connection.getOutputStream().close();
+        check(connection, "Upload creation");
+        String location = connection.getHeaderField("Location");
+        if (location == null) {
+            throw new IOException("Upload creation returned no Location");
+        }
+        return new URL(new URL(endpoint), location).toString();
+    }
+
+    /**
+     * Check if bucket/objectName already exists with the given length
+     * Best effort - any failure just means the file is uploaded
+     */
+    private boolean isStored(String bucket, String objectName, long length) {
+        if (objectEndpoint == null) {
+            return false;
+        }
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(objectEndpoint + "/" + bucket + "/" + objectName).openConnection();
+            connection.setRequestMethod("HEAD");
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setRequestProperty("apikey", apiKey);
+            String stored = connection.getHeaderField("Content-Length");
+            return connection.getResponseCode() == 200 && stored != null && Long.parseLong(stored.trim()) == length;
+        } catch (IOException | NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return how many bytes the server has for an upload, or -1 if it no longer knows it
+     */
+    private long remoteOffset(String uploadUrl, String accessToken) throws IOException {
+        HttpURLConnection connection = open(uploadUrl, "HEAD", accessToken);
+        int status = connection.getResponseCode();
+        if (status == 404 || status == 410) {
+            return -1;
+        }
+        check(connection, "Upload offset lookup");
+        return headerOffset(connection, -1);
+    }
+
+    private HttpURLConnection open(String url, String method, String accessToken) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setRequestProperty("Tus-Resumable", TUS_VERSION);
+        connection.setRequestProperty("apikey", apiKey);
+        connection.setRequestProperty("Authorization", "Bearer " + accessToken);
+        return connection;
+    }
+
+    private static long headerOffset(HttpURLConnection connection, long fallback) {
+        try {
+            String offset = connection.getHeaderField("Upload-Offset");
+            return offset != null ? Long.parseLong(offset.trim()) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Throw for anything but 2xx - AuthFailure for a rejected token, PermanentFailure for other client
+     * errors retrying can't fix
+     */
+    static void check(HttpURLConnection connection, String what) throws IOException {
+        int status = connection.getResponseCode();
+        if (status >= 200 && status < 300) {
+            return;
+        }
+        String message = what + " failed: HTTP " + status;
+        if (status == HttpURLConnection.HTTP_UNAUTHORIZED || status == HttpURLConnection.HTTP_FORBIDDEN) {
+            throw new AuthFailure(message);
+        }
+        if (status >= 400 && status < 500 && status != 408 && status != 423 && status != 429) {
+            throw new PermanentFailure(message);
+        }
+        throw new IOException(message);
+    }
+
+    /**
+     * Standard base64 of a UTF-8 string (java.util.Base64 needs API 26)
+     */
+    static String base64(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        StringBuilder out = new StringBuilder((bytes.length + 2) / 3 * 4);
+        for (int i = 0; i < bytes.length; i += 3) {
+            int b = (bytes[i] & 0xff) << 16;
+            if (i + 1 < bytes.length) {
+                b |= (bytes[i + 1] & 0xff) << 8;
+            }
+            if (i + 2 < bytes.length) {
+                b |= bytes[i + 2] & 0xff;
+            }
+            out.append(BASE64[(b >> 18) & 0x3f]).append(BASE64[(b >> 12) & 0x3f]);
+            out.append(i + 1 < bytes.length ? BASE64[(b >> 6) & 0x3f] : '=');
+            out.append(i + 2 < bytes.length ? BASE64[b & 0x3f] : '=');
+        }
+        return out.toString();
+    }
+}
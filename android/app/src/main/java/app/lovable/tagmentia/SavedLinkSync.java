@@ -0,0 +1,743 @@
+package app.lovable.tagmentia;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves links through the save-shared-link function in batches instead of one request per link
+ *
+ * Links are queued on disk first, so nothing is lost if the process dies, and sent once
+ * MAX_BATCH_ITEMS are waiting or FLUSH_DELAY_MS after the first one - whichever comes first - as
+ * one gzip-compressed {"items": [...]} request. HttpURLConnection keeps the connection alive, so
+ * consecutive batches skip the TCP and TLS handshakes. The function answers per item: saved links
+ * and permanent failures (duplicate, unsupported, over the plan limit) leave the queue, items it
+ * asks to retry stay for the next batch. Network and server errors back off exponentially. A batch
+ * refused as a whole (4xx) is retried in halves, with the same backoff, until the link to blame is
+ * sent alone - only that one fails. A rejected session holds the queue until the web app hands
+ * over a fresh access token, and every held link is reported with ERROR_SESSION_EXPIRED so a save
+ * the user waits on can send them to log in. An access token past its exp claim counts as missing,
+ * so nothing is sent just to be turned down. The session kept here is also the one the screenshot
+ * uploads authenticate with (awaitAccessToken()).
+ *
+ * Plain Java with no Android dependencies so it can be unit tested against a local HTTP server
+ * Every method can be called from any thread; requests run on the sync thread
+ */
+final class SavedLinkSync {
+    static final int MAX_BATCH_ITEMS = 25;
+    static final long FLUSH_DELAY_MS = 30_000;
+    static final long MAX_BACKOFF_MS = 15 * 60_000;
+    static final int MAX_ATTEMPTS = 5; // Per item, for items the function asked to retry
+    static final int CONNECT_TIMEOUT_MS = 10000;
+    static final int READ_TIMEOUT_MS = 30000;
+    static final int MAX_RESPONSE_BYTES = 256 * 1024;
+    // A token this close to its exp claim counts as expired - a held batch may take that long to go out
+    static final long EXPIRY_MARGIN_MS = 60_000;
+    // Error of a link held for lack of a usable session - it stays queued (Result.queued)
+    static final String ERROR_SESSION_EXPIRED = "SESSION_EXPIRED";
+
+    private static final String QUEUE_FILE = "saved-links.queue";
+    private static final String SESSION_FILE = "saved-links.session";
+
+    /**
+     * A link waiting to be saved
+     */
+    static final class Item {
+        final String id;
+        final String url;
+        final String categoryId;
+        final String note; // Optional
+        final String reminderAt; // Optional, ISO 8601
+        final long queuedAt;
+        int attempts; // Guarded by the sync
+
+        Item(String id, String url, String categoryId, String note, String reminderAt, long queuedAt, int attempts) {
+            this.id = id;
+            this.url = url;
+            this.categoryId = categoryId;
+            this.note = note;
+            this.reminderAt = reminderAt;
+            this.queuedAt = queuedAt;
+            this.attempts = attempts;
+        }
+    }
+
+    /**
+     * The outcome of one queued link - final unless queued is set
+     */
+    static final class Result {
+        final String id;
+        final String url;
+        final boolean saved;
+        final String videoId; // Set when saved
+        final String error; // Set when not, e.g. "DUPLICATE_VIDEO"
+        final boolean queued; // Not sent and still queued, e.g. for ERROR_SESSION_EXPIRED - it goes with a later batch
+
+        Result(String id, String url, boolean saved, String videoId, String error) {
+            this(id, url, saved, videoId, error, false);
+        }
+
+        Result(String id, String url, boolean saved, String videoId, String error, boolean queued) {
+            this.id = id;
+            this.url = url;
+            this.saved = saved;
+            this.videoId = videoId;
+            this.error = error;
+            this.queued = queued;
+        }
+    }
+
+    /**
+     * Receives the outcome of every batch, on the sync thread
+     */
+    interface Listener {
+        void onResults(List<Result> results);
+    }
+
+    /**
+     * Counters since the sync was created, for diagnostics
+     */
+    static final class Stats {
+        final int pending;
+        final int batches;
+        final int saved;
+        final int failed;
+        final int retried; // Items sent again after a retry answer, a network or a server error
+        final long rawBytes; // Request bodies before compression
+        final long sentBytes; // ... and as sent
+
+        Stats(int pending, int batches, int saved, int failed, int retried, long rawBytes, long sentBytes) {
+            this.pending = pending;
+            this.batches = batches;
+            this.saved = saved;
+            this.failed = failed;
+            this.retried = retried;
+            this.rawBytes = rawBytes;
+            this.sentBytes = sentBytes;
+        }
+    }
+
+    private static SavedLinkSync instance;
+
+    private final File queueFile;
+    private final File sessionFile;
+    private final String endpoint;
+    private final String apiKey;
+    private final long flushDelayMs;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tagmentia-link-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private final LinkedHashMap<String, Item> queue = new LinkedHashMap<>();
+    private final Set<String> sending = new HashSet<>(); // IDs of the batch in flight
+    private String accessToken;
+    private String rejectedToken; // The session the function turned down - nothing is sent with it again
+    private ScheduledFuture<?> scheduledFlush;
+    private long scheduledAt;
+    private int batchLimit = MAX_BATCH_ITEMS; // Lowered while a refused batch is narrowed down
+    private int consecutiveFailures;
+    private int batches;
+    private int saved;
+    private int failed;
+    private int retried;
+    private long rawBytes;
+    private long sentBytes;
+
+    /**
+     * @param directory Where the queue and the last access token are kept
+     * @param endpoint URL of the save-shared-link function
+     * @param apiKey Supabase publishable (anon) key
+     * @param flushDelayMs How long the first queued link waits for others to join its batch
+     */
+    SavedLinkSync(File directory, String endpoint, String apiKey, long flushDelayMs) {
+        this.queueFile = new File(directory, QUEUE_FILE);
+        this.sessionFile = new File(directory, SESSION_FILE);
+        this.endpoint = endpoint;
+        this.apiKey = apiKey;
+        this.flushDelayMs = flushDelayMs;
+        // First task on the sync thread, so everything after it sees the restored queue
+        executor.execute(this::restore);
+    }
+
+    /**
+     * Process-wide sync, so a batch being collected outlives the activity that queued into it
+     */
+    static synchronized SavedLinkSync getInstance(File directory, String endpoint, String apiKey) {
+        if (instance == null) {
+            instance = new SavedLinkSync(directory, endpoint, apiKey, FLUSH_DELAY_MS);
+        }
+        return instance;
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Hand over the web app's current access token (null on sign-out)
+     * Held links are sent right away if the previous token was missing or rejected
+     */
+    void setAccessToken(String token) {
+        boolean unblocked;
+        synchronized (this) {
+            if (token == null ? accessToken == null : token.equals(accessToken)) {
+                return;
+            }
+            unblocked = token != null && !queue.isEmpty() && !hasUsableSession();
+            accessToken = token;
+        }
+        executor.execute(this::storeSession);
+        if (unblocked) {
+            flush();
+        }
+    }
+
+    /**
+     * Queue a link to be saved in the next batch
+     * @return the item ID that its Result will carry
+     */
+    String enqueue(String url, String categoryId, String note, String reminderAt) {
+        Item item = new Item(UUID.randomUUID().toString(), url, categoryId, note, reminderAt,
+            System.currentTimeMillis(), 0);
+        boolean full;
+        synchronized (this) {
+            queue.put(item.id, item);
+            full = queue.size() >= MAX_BATCH_ITEMS;
+        }
+        executor.execute(this::storeQueue);
+        if (full) {
+            flush();
+        } else {
+            scheduleFlush(flushDelayMs);
+        }
+        return item.id;
+    }
+
+    /**
+     * Take a link back out of the queue, e.g. when the user opens it in the editor instead
+     * @return false if it is already on its way (or gone), so it will be saved anyway
+     */
+    boolean cancel(String id) {
+        synchronized (this) {
+            if (sending.contains(id) || queue.remove(id) == null) {
+                return false;
+            }
+        }
+        executor.execute(this::storeQueue);
+        return true;
+    }
+
+    /**
+     * Whether queued links can be sent: there is an access token and the function hasn't rejected it
+     * Waits for the queue and session of an earlier process to be restored, so call it off the main thread
+     */
+    boolean awaitSession() throws InterruptedException {
+        return awaitAccessToken() != null;
+    }
+
+    /**
+     * The web app's current access token, or null if there is none or it has been rejected - for other
+     * native requests made on the user's behalf (ScreenshotUploadWorker)
+     * Waits for the session of an earlier process to be restored, so call it off the main thread
+     */
+    String awaitAccessToken() throws InterruptedException {
+        try {
+            return executor.submit(() -> {
+                synchronized (this) {
+                    return hasUsableSession() ? accessToken : null;
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Whether the current access token has run out (a missing one hasn't)
+     * Call it after awaitSession(), which waits for an earlier process's session to be restored
+     */
+    synchronized boolean isSessionExpired() {
+        return accessToken != null && isExpired(accessToken, System.currentTimeMillis());
+    }
+
+    /**
+     * Report a token another native request had turned down; links are held too until the web app hands over a new one
+     */
+    synchronized void rejectAccessToken(String token) {
+        if (token != null && token.equals(accessToken)) {
+            rejectedToken = token;
+        }
+    }
+
+    /**
+     * Send what is queued now rather than when the batch fills or its delay runs out (e.g. a save the user waits on)
+     */
+    void flush() {
+        scheduleFlush(0);
+    }
+
+    synchronized Stats stats() {
+        return new Stats(queue.size(), batches, saved, failed, retried, rawBytes, sentBytes);
+    }
+
+    /**
+     * There is an access token, the function hasn't rejected it and it hasn't expired (guarded by this)
+     */
+    private boolean hasUsableSession() {
+        return accessToken != null && !accessToken.equals(rejectedToken)
+            && !isExpired(accessToken, System.currentTimeMillis());
+    }
+
+    /**
+     * Whether a token is at or within EXPIRY_MARGIN_MS of its exp claim; tokens that aren't JWTs never expire here
+     */
+    static boolean isExpired(String token, long now) {
+        long expiresAt = expiresAtMs(token);
+        return expiresAt >= 0 && now >= expiresAt - EXPIRY_MARGIN_MS;
+    }
+
+    /**
+     * The exp claim of a JWT in milliseconds, or -1 if the token isn't a JWT or doesn't carry one
+     */
+    static long expiresAtMs(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return -1;
+        }
+        try {
+            long exp = new JSONObject(new String(base64UrlDecode(parts[1]), StandardCharsets.UTF_8)).optLong("exp", -1);
+            return exp >= 0 ? exp * 1000 : -1;
+        } catch (JSONException | IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Decode unpadded base64url, as JWT segments use it (java.util.Base64 needs API 26)
+     */
+    private static byte[] base64UrlDecode(String value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(value.length() * 3 / 4);
+        int buffer = 0;
+        int bits = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int digit;
+            if (c >= 'A' && c <= 'Z') {
+                digit = c - 'A';
+            } else if (c >= 'a' && c <= 'z') {
+                digit = c - 'a' + 26;
+            } else if (c >= '0' && c <= '9') {
+                digit = c - '0' + 52;
+            } else if (c == '-' || c == '+') {
+                digit = 62;
+            } else if (c == '_' || c == '/') {
+                digit = 63;
+            } else if (c == '=') {
+                break;
+            } else {
+                throw new IllegalArgumentException("Not base64url: " + c);
+            }
+            buffer = (buffer << 6) | digit;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                out.write((buffer >> bits) & 0xff);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Run a flush after delayMs, unless one is already due sooner
+     */
+    private synchronized void scheduleFlush(long delayMs) {
+        long at = System.currentTimeMillis() + delayMs;
+        if (scheduledFlush != null && !scheduledFlush.isDone()) {
+            if (scheduledAt <= at) {
+                return;
+            }
+            scheduledFlush.cancel(false);
+        }
+        scheduledAt = at;
+        scheduledFlush = executor.schedule(this::flushNow, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send one batch and apply its per-item results (sync thread)
+     */
+    private void flushNow() {
+        List<Item> batch = new ArrayList<>();
+        String token;
+        boolean held;
+        synchronized (this) {
+            scheduledFlush = null;
+            if (queue.isEmpty()) {
+                return;
+            }
+            // Without a usable session everything is held; setAccessToken() flushes once there is one
+            held = !hasUsableSession();
+            int limit = held ? queue.size() : batchLimit;
+            for (Item item : queue.values()) {
+                batch.add(item);
+                if (batch.size() == limit) {
+                    break;
+                }
+            }
+            token = accessToken;
+            if (!held) {
+                for (Item item : batch) {
+                    sending.add(item.id);
+                }
+            }
+        }
+        if (held) {
+            holdForSession(batch);
+            return;
+        }
+        try {
+            send(batch, token);
+        } finally {
+            synchronized (this) {
+                sending.clear();
+            }
+        }
+    }
+
+    /**
+     * POST one batch and apply the answers to the queue (sync thread)
+     */
+    private void send(List<Item> batch, String token) {
+        String response;
+        int status;
+        try {
+            byte[] body = encode(batch).getBytes(StandardCharsets.UTF_8);
+            byte[] compressed = gzip(body);
+            synchronized (this) {
+                batches++;
+                rawBytes += body.length;
+                sentBytes += compressed.length;
+            }
+            HttpURLConnection connection = post(compressed, token);
+            status = connection.getResponseCode();
+            response = read(connection, status);
+        } catch (IOException e) {
+            backOff(batch);
+            return;
+        }
+
+        if (status == HttpURLConnection.HTTP_UNAUTHORIZED || status == HttpURLConnection.HTTP_FORBIDDEN) {
+            synchronized (this) {
+                rejectedToken = token;
+            }
+            holdForSession(batch);
+            return;
+        }
+        if (status == 429 || status >= 500) {
+            backOff(batch);
+            return;
+        }
+        if (status != HttpURLConnection.HTTP_OK && batch.size() > 1) {
+            // The function refused the batch as a whole (400, 413, ...) - one link may be to blame, not all
+            // of them: keep every link and retry in halves until the one it refuses is sent on its own
+            synchronized (this) {
+                batchLimit = Math.max(1, batch.size() / 2);
+            }
+            backOff(batch);
+            return;
+        }
+
+        Map<String, JSONObject> answers = new HashMap<>();
+        if (status == HttpURLConnection.HTTP_OK && response != null) {
+            try {
+                JSONArray results = new JSONObject(response).getJSONArray("results");
+                for (int i = 0; i < results.length(); i++) {
+                    JSONObject result = results.getJSONObject(i);
+                    answers.put(result.optString("id"), result);
+                }
+            } catch (JSONException e) {
+                backOff(batch);
+                return;
+            }
+        }
+
+        List<Result> outcomes = new ArrayList<>();
+        boolean more;
+        boolean full;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            full = batch.size() >= batchLimit;
+            for (Item item : batch) {
+                JSONObject answer = answers.get(item.id);
+                if (status != HttpURLConnection.HTTP_OK) {
+                    // The function refused this link on its own (4xx) - resending it won't help
+                    outcomes.add(new Result(item.id, item.url, false, null, "HTTP " + status));
+                    batchLimit = MAX_BATCH_ITEMS;
+                } else if (answer == null) {
+                    continue; // Not processed - stays queued
+                } else if (answer.optBoolean("success")) {
+                    outcomes.add(new Result(item.id, item.url, true, answer.optString("videoId", null), null));
+                } else if (answer.optBoolean("retry") && item.attempts + 1 < MAX_ATTEMPTS) {
+                    item.attempts++;
+                    retried++;
+                    continue;
+                } else {
+                    outcomes.add(new Result(item.id, item.url, false, null, answer.optString("error", "Save failed")));
+                }
+                queue.remove(item.id);
+            }
+            for (Result outcome : outcomes) {
+                if (outcome.saved) {
+                    saved++;
+                } else {
+                    failed++;
+                }
+            }
+            more = !queue.isEmpty();
+            if (!more) {
+                batchLimit = MAX_BATCH_ITEMS;
+            }
+        }
+        storeQueue();
+        if (!outcomes.isEmpty()) {
+            for (Listener listener : listeners) {
+                listener.onResults(outcomes);
+            }
+        }
+        if (more) {
+            // A full batch means more are waiting to go now; otherwise the rest waits for company
+            scheduleFlush(full ? 0 : flushDelayMs);
+        }
+    }
+
+    /**
+     * Report links kept queued for lack of a usable session, so nobody waits on them in vain (sync thread)
+     */
+    private void holdForSession(List<Item> items) {
+        List<Result> held = new ArrayList<>();
+        for (Item item : items) {
+            held.add(new Result(item.id, item.url, false, null, ERROR_SESSION_EXPIRED, true));
+        }
+        for (Listener listener : listeners) {
+            listener.onResults(held);
+        }
+    }
+
+    /**
+     * Keep the batch queued and try again later, doubling the wait with every failure in a row (sync thread)
+     */
+    private void backOff(List<Item> batch) {
+        long delayMs;
+        synchronized (this) {
+            retried += batch.size();
+            consecutiveFailures++;
+            delayMs = Math.min(MAX_BACKOFF_MS, flushDelayMs << Math.min(consecutiveFailures - 1, 20));
+        }
+        scheduleFlush(delayMs);
+    }
+
+    private HttpURLConnection post(byte[] body, String token) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(endpoint).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("Content-Encoding", "gzip");
+        connection.setRequestProperty("apikey", apiKey);
+        connection.setRequestProperty("Authorization", "Bearer " + token);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        return connection;
+    }
+
+    /**
+     * Read the whole response - only a fully read body lets the connection go back to the pool
+     * @return the body, or null if there is none or it is implausibly large
+     */
+    private static String read(HttpURLConnection connection, int status) throws IOException {
+        InputStream stream = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (stream == null) {
+            return null;
+        }
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        try (InputStream in = stream) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (response.size() <= MAX_RESPONSE_BYTES) {
+                    response.write(buffer, 0, read);
+                }
+            }
+        }
+        return response.size() <= MAX_RESPONSE_BYTES ? response.toString("UTF-8") : null;
+    }
+
+    static String encode(List<Item> batch) {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < batch.size(); i++) {
+            Item item = batch.get(i);
+            json.append(i > 0 ? ",{" : "{").append("\"id\":");
+            JsonStringEncoder.appendQuoted(json, item.id).append(",\"url\":");
+            JsonStringEncoder.appendQuoted(json, item.url).append(",\"categoryId\":");
+            JsonStringEncoder.appendQuoted(json, item.categoryId);
+            if (item.note != null) {
+                JsonStringEncoder.appendQuoted(json.append(",\"note\":"), item.note);
+            }
+            if (item.reminderAt != null) {
+                JsonStringEncoder.appendQuoted(json.append(",\"reminderAt\":"), item.reminderAt);
+            }
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Load the queue and session left by an earlier process, and schedule their flush (sync thread)
+     */
+    private void restore() {
+        List<Item> restored = new ArrayList<>();
+        if (queueFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(queueFile), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        JSONObject record = new JSONObject(line);
+                        restored.add(new Item(record.getString("id"), record.getString("url"),
+                            record.getString("categoryId"), record.optString("note", null),
+                            record.optString("reminderAt", null), record.optLong("queuedAt"), record.optInt("attempts")));
+                    } catch (JSONException e) {
+                        // A torn last line from a crash mid-write - skip it
+                    }
+                }
+            } catch (IOException e) {
+                // Unreadable - start empty
+            }
+        }
+        String token = null;
+        if (sessionFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(sessionFile), StandardCharsets.UTF_8))) {
+                token = reader.readLine();
+            } catch (IOException e) {
+                // No session - links wait for the web app to hand one over
+            }
+        }
+
+        boolean pending;
+        synchronized (this) {
+            if (!restored.isEmpty()) {
+                // Older than anything queued since the process started
+                LinkedHashMap<String, Item> queued = new LinkedHashMap<>(queue);
+                queue.clear();
+                for (Item item : restored) {
+                    queue.put(item.id, item);
+                }
+                queue.putAll(queued);
+            }
+            if (accessToken == null && token != null && !token.isEmpty()) {
+                accessToken = token;
+            }
+            pending = !queue.isEmpty();
+        }
+        if (pending) {
+            scheduleFlush(flushDelayMs);
+        }
+    }
+
+    /**
+     * Rewrite the queue file with the current queue (sync thread)
+     */
+    private void storeQueue() {
+        StringBuilder lines = new StringBuilder();
+        synchronized (this) {
+            for (Item item : queue.values()) {
+                try {
+                    lines.append(new JSONObject()
+                        .put("id", item.id)
+                        .put("url", item.url)
+                        .put("categoryId", item.categoryId)
+                        .putOpt("note", item.note)
+                        .putOpt("reminderAt", item.reminderAt)
+                        .put("queuedAt", item.queuedAt)
+                        .put("attempts", item.attempts)).append('\n');
+                } catch (JSONException e) {
+                    // Only thrown for non-finite numbers, which an item doesn't have
+                }
+            }
+        }
+        writeAtomically(queueFile, lines.toString());
+    }
+
+    private void storeSession() {
+        String token;
+        synchronized (this) {
+            token = accessToken;
+        }
+        if (token == null) {
+            sessionFile.delete();
+        } else {
+            writeAtomically(sessionFile, token);
+        }
+    }
+
+    private static void writeAtomically(File file, String content) {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package app.lovable.tagmentia;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A batch of shared screenshots on its way to a video, owned by the native upload engine
+ *
+ * The files are taken out of the cache directory into the batch's own directory together with a
+ * state file recording, per file, its storage object name, its tus upload URL and whether it is
+ * complete. Every run picks up from that state: finished files are skipped, started ones resume
+ * at the server's offset, and ones the bucket already holds (same content hash) aren't sent at
+ * all. Once every file is stored, upload-screenshot registers them against the video (quota
+ * checks, database rows, video thumbnail) in one call.
+ *
+ * No access token is kept with the batch: each run is handed the session current at that time, so
+ * a batch outlives token refreshes. A missing or rejected token only makes the batch wait for the
+ * next one (UNAUTHORIZED) - its files are kept.
+ *
+ * Plain Java with no Android dependencies so it can be unit tested against a local HTTP server
+ * ScreenshotUploadWorker schedules the runs
+ */
+final class ScreenshotUploadBatch {
+    static final String BUCKET = "screenshots";
+    static final int MAX_PARALLEL_UPLOADS = 2;
+
+    private static final String STATE_FILE = "batch.properties";
+
+    enum Outcome { DONE, RETRY, UNAUTHORIZED, FAILED }
+
+    /**
+     * Receives byte progress across the whole batch, on the upload threads
+     */
+    interface Listener {
+        void onProgress(String batchId, long uploadedBytes, long totalBytes);
+    }
+
+    private final File directory;
+    private final Properties state;
+    private String error;
+
+    private ScreenshotUploadBatch(File directory, Properties state) {
+        this.directory = directory;
+        this.state = state;
+    }
+
+    /**
+     * Take ownership of the given files and record the batch on disk
+     * Files are moved, except content-addressed ones (see SharedImageNames), which are copied
+     * @param root Directory holding all batches (one subdirectory each)
+     * @param userId Owner - objects are stored under {userId}/{categoryId}/{videoId}/
+     */
+    static ScreenshotUploadBatch create(File root, List<File> files, String userId, String categoryId,
+                                        String videoId) throws IOException {
+        String id = UUID.randomUUID().toString();
+        File directory = new File(root, id);
+        if (!directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        Properties state = new Properties();
+        state.setProperty("userId", userId);
+        state.setProperty("categoryId", categoryId);
+        state.setProperty("videoId", videoId);
+        StringBuilder names = new StringBuilder();
+        for (File file : files) {
+            File owned = new File(directory, file.getName());
+            boolean contentAddressed = SharedImageNames.isContentAddressed(file.getName());
+            if (contentAddressed) {
+                // Other shares may reference the same stored file - leave it in place
+                copy(file, owned);
+            } else if (!file.renameTo(owned)) {
+                throw new IOException("Could not move " + file + " into upload batch " + id);
+            }
+            names.append(names.length() > 0 ? "/" : "").append(owned.getName());
+            // Hash-named objects make a repeat upload of the same bytes to the same video detectable
+            String objectName = contentAddressed
+                ? owned.getName().substring(SharedImageNames.FILE_PREFIX.length())
+                : UUID.randomUUID() + extensionOf(owned.getName());
+            state.setProperty("object." + owned.getName(), userId + "/" + categoryId + "/" + videoId + "/" + objectName);
+        }
+        state.setProperty("files", names.toString());
+        ScreenshotUploadBatch batch = new ScreenshotUploadBatch(directory, state);
+        batch.save();
+        return batch;
+    }
+
+    /**
+     * @return the batch recorded under root/id, or null if it is gone
+     */
+    static ScreenshotUploadBatch load(File root, String id) {
+        File directory = new File(root, id);
+        Properties state = new Properties();
+        try (InputStream in = new FileInputStream(new File(directory, STATE_FILE))) {
+            state.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        // Batches created before tokens were fetched per run recorded one - it is long expired
+        state.remove("accessToken");
+        return new ScreenshotUploadBatch(directory, state);
+    }
+
+    String id() {
+        return directory.getName();
+    }
+
+    /**
+     * Why the last run didn't finish, or null
+     */
+    String error() {
+        return error;
+    }
+
+    /**
+     * Whether the last run stopped for lack of a usable access token
+     */
+    boolean isAwaitingSession() {
+        return "true".equals(get("awaitingSession"));
+    }
+
+    /**
+     * Upload whatever is still missing (MAX_PARALLEL_UPLOADS files at a time), then register the batch
+     * @param finalizeEndpoint URL of the upload-screenshot function
+     * @param accessToken The web app's current session, null if there is none
+     * @return DONE once registered, RETRY after a failure worth retrying, UNAUTHORIZED without a token
+     *         or when it was rejected, FAILED if the server refused the batch
+     */
+    Outcome run(ResumableUploader uploader, String finalizeEndpoint, String apiKey, String accessToken,
+                Listener listener) {
+        error = null;
+        if ("true".equals(get("finalized"))) {
+            return Outcome.DONE;
+        }
+        if (accessToken == null) {
+            error = "No session";
+            set("awaitingSession", "true");
+            return Outcome.UNAUTHORIZED;
+        }
+        if (isAwaitingSession()) {
+            set("awaitingSession", "false");
+        }
+
+        List<File> files = files();
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        long totalBytes = total;
+        AtomicLong uploaded = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(MAX_PARALLEL_UPLOADS);
+        List<Future<?>> uploads = new ArrayList<>();
+        for (File file : files) {
+            if ("true".equals(get("done." + file.getName()))) {
+                listener.onProgress(id(), uploaded.addAndGet(file.length()), totalBytes);
+                continue;
+            }
+            uploads.add(pool.submit(() -> {
+                uploadFile(uploader, file, accessToken, uploaded, totalBytes, listener);
+                return null;
+            }));
+        }
+        pool.shutdown();
+
+        Outcome outcome = Outcome.DONE;
+        for (Future<?> upload : uploads) {
+            try {
+                upload.get();
+            } catch (ExecutionException e) {
+                error = String.valueOf(e.getCause().getMessage());
+                // A rejected token outranks everything else - the files must stay for the next session
+                if (e.getCause() instanceof ResumableUploader.AuthFailure) {
+                    outcome = Outcome.UNAUTHORIZED;
+                } else if (e.getCause() instanceof ResumableUploader.PermanentFailure) {
+                    if (outcome != Outcome.UNAUTHORIZED) {
+                        outcome = Outcome.FAILED;
+                    }
+                } else if (outcome == Outcome.DONE) {
+                    outcome = Outcome.RETRY;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pool.shutdownNow();
+                return Outcome.RETRY;
+            }
+        }
+        if (outcome == Outcome.UNAUTHORIZED) {
+            set("awaitingSession", "true");
+        }
+        if (outcome != Outcome.DONE) {
+            return outcome;
+        }
+
+        try {
+            register(finalizeEndpoint, apiKey, accessToken);
+            set("finalized", "true");
+            return Outcome.DONE;
+        } catch (ResumableUploader.AuthFailure e) {
+            error = e.getMessage();
+            set("awaitingSession", "true");
+            return Outcome.UNAUTHORIZED;
+        } catch (ResumableUploader.PermanentFailure e) {
+            error = e.getMessage();
+            return Outcome.FAILED;
+        } catch (IOException e) {
+            error = e.getMessage();
+            return Outcome.RETRY;
+        }
+    }
+
+    /**
+     * Remove the batch and its files
+     */
+    void delete() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private void uploadFile(ResumableUploader uploader, File file, String accessToken, AtomicLong uploaded,
+                            long totalBytes, Listener listener) throws IOException {
+        String name = file.getName();
+        long[] reported = {0};
+        uploader.upload(file, BUCKET, get("object." + name), SharedMediaServer.mimeTypeOf(name), accessToken,
+            new ResumableUploader.Session() {
+                @Override
+                public String uploadUrl() {
+                    String uploadUrl = get("url." + name);
+                    return uploadUrl.isEmpty() ? null : uploadUrl;
+                }
+
+                @Override
+                public void onCreated(String uploadUrl) {
+                    set("url." + name, uploadUrl);
+                }
+
+                @Override
+                public void onProgress(long uploadedBytes) {
+                    listener.onProgress(id(), uploaded.addAndGet(uploadedBytes - reported[0]), totalBytes);
+                    reported[0] = uploadedBytes;
+                }
+            });
+        set("done." + name, "true");
+    }
+
+    /**
+     * POST the stored object paths to upload-screenshot, which creates the screenshot rows
+     * Safe to repeat - paths already registered are skipped server side
+     */
+    private void register(String endpoint, String apiKey, String accessToken) throws IOException {
+        StringBuilder json = new StringBuilder("{\"videoId\":");
+        JsonStringEncoder.appendQuoted(json, get("videoId")).append(",\"categoryId\":");
+        JsonStringEncoder.appendQuoted(json, get("categoryId")).append(",\"setThumbnail\":true,\"paths\":[");
+        List<File> files = files();
+        for (int i = 0; i < files.size(); i++) {
+            JsonStringEncoder.appendQuoted(json.append(i > 0 ? "," : ""), get("object." + files.get(i).getName()));
+        }
+        byte[] body = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(endpoint).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setConnectTimeout(ResumableUploader.CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(ResumableUploader.READ_TIMEOUT_MS);
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("apikey", apiKey);
+        connection.setRequestProperty("Authorization", "Bearer " + accessToken);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        ResumableUploader.check(connection, "Screenshot registration");
+    }
+
+    private List<File> files() {
+        List<File> files = new ArrayList<>();
+        for (String name : get("files").split("/")) {
+            if (!name.isEmpty()) {
+                files.add(new File(directory, name));
+            }
+        }
+        return files;
+    }
+
+    private static void copy(File source, File target) throws IOException {
+        try (FileInputStream in = new FileInputStream(source);
+             FileOutputStream out = new FileOutputStream(target)) {
+            ChannelCopy.copy(in.getChannel(), out.getChannel(), source.length());
+        }
+    }
+
+    private static String extensionOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private synchronized String get(String key) {
+        return state.getProperty(key, "");
+    }
+
+    /**
+     * Record progress durably (temp file + rename), so a killed process resumes from here
+     */
+    private synchronized void set(String key, String value) {
+        state.setProperty(key, value);
+        try {
+            save();
+        } catch (IOException e) {
+            // Worst case the next run redoes this step
+        }
+    }
+
+    private synchronized void save() throws IOException {
+        File temp = new File(directory, STATE_FILE + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            state.store(out, null);
+        }
+        if (!temp.renameTo(new File(directory, STATE_FILE))) {
+            throw new IOException("Could not save upload batch state " + id());
+        }
+    }
+}
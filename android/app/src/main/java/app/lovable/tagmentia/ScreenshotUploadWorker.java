@@ -0,0 +1,180 @@
+package app.lovable.tagmentia;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a ScreenshotUploadBatch in the background, independent of the activity and the WebView
+ * WorkManager only starts it with a network connection, retries it with exponential backoff and
+ * reschedules it after the process is killed; each run resumes where the previous one stopped
+ *
+ * Each run authenticates with the session the web app keeps the native link sync updated with
+ * (SavedLinkSync.awaitAccessToken()). Without a usable one the batch waits, however many attempts
+ * that takes - resumeAwaitingSession() starts it again once the web app hands over a fresh token.
+ */
+public class ScreenshotUploadWorker extends Worker {
+    private static final String TAG = "ScreenshotUploadWorker";
+
+    static final String KEY_BATCH_ID = "batchId";
+    // Progress of a running batch, for WorkInfo.getProgress() (with KEY_BATCH_ID)
+    static final String KEY_UPLOADED_BYTES = "uploadedBytes";
+    static final String KEY_TOTAL_BYTES = "totalBytes";
+    // Progress goes through WorkManager's database - at most this often, plus the final byte
+    static final long PROGRESS_INTERVAL_MS = 500;
+    static final String UPLOADS_DIR = "uploads";
+    static final int MAX_ATTEMPTS = 10;
+    static final long BACKOFF_SECONDS = 30;
+
+    /**
+     * Receives how a batch ended while the app process is alive (ShareBridgePlugin forwards it to the web app)
+     */
+    interface Listener {
+        void onUploadFinished(String batchId, boolean uploaded, String error);
+    }
+
+    private static volatile Listener listener;
+
+    private long progressReportedAt = 0; // Guarded by this
+
+    public ScreenshotUploadWorker(Context context, WorkerParameters parameters) {
+        super(context, parameters);
+    }
+
+    static void setListener(Listener newListener) {
+        listener = newListener;
+    }
+
+    /**
+     * Every screenshot upload WorkManager knows about; running ones carry their progress (KEY_UPLOADED_BYTES)
+     */
+    static LiveData<List<WorkInfo>> uploads(Context context) {
+        return WorkManager.getInstance(context).getWorkInfosByTagLiveData(TAG);
+    }
+
+    /**
+     * Directory holding the batches - app-private files, so pending uploads survive cache trimming
+     */
+    static File uploadsDir(Context context) {
+        return new File(context.getFilesDir(), UPLOADS_DIR);
+    }
+
+    /**
+     * Schedule the upload of a batch created under uploadsDir()
+     */
+    static void enqueue(Context context, String batchId) {
+        enqueue(context, batchId, ExistingWorkPolicy.KEEP);
+    }
+
+    /**
+     * Run the batches waiting for a session now rather than after their backoff, e.g. on a new access token
+     * Reads the batches' state files, so call it off the main thread
+     */
+    static void resumeAwaitingSession(Context context) {
+        File root = uploadsDir(context);
+        String[] ids = root.list();
+        for (String id : ids != null ? ids : new String[0]) {
+            ScreenshotUploadBatch batch = ScreenshotUploadBatch.load(root, id);
+            if (batch != null && batch.isAwaitingSession()) {
+                enqueue(context, id, ExistingWorkPolicy.REPLACE);
+            }
+        }
+    }
+
+    private static void enqueue(Context context, String batchId, ExistingWorkPolicy policy) {
+        Constraints constraints = new Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ScreenshotUploadWorker.class)
+            .setConstraints(constraints)
+            .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+            .setInputData(new Data.Builder().putString(KEY_BATCH_ID, batchId).build())
+            .addTag(TAG)
+            .build();
+        WorkManager.getInstance(context).enqueueUniqueWork("screenshot-upload-" + batchId, policy, request);
+        Log.d(TAG, "Scheduled screenshot upload " + batchId);
+    }
+
+    @Override
+    public Result doWork() {
+        String batchId = getInputData().getString(KEY_BATCH_ID);
+        ScreenshotUploadBatch batch = batchId != null ? ScreenshotUploadBatch.load(uploadsDir(getApplicationContext()), batchId) : null;
+        if (batch == null) {
+            Log.w(TAG, "Upload batch is gone: " + batchId);
+            return Result.failure();
+        }
+
+        Context context = getApplicationContext();
+        SavedLinkSync session = ShareBridgePlugin.savedLinkSync(context);
+        String accessToken;
+        try {
+            accessToken = session.awaitAccessToken();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+        String supabaseUrl = context.getString(R.string.supabase_url);
+        String apiKey = context.getString(R.string.supabase_publishable_key);
+        ScreenshotUploadBatch.Outcome outcome = batch.run(
+            new ResumableUploader(supabaseUrl + "/storage/v1/upload/resumable", supabaseUrl + "/storage/v1/object/public", apiKey),
+            supabaseUrl + "/functions/v1/upload-screenshot",
+            apiKey,
+            accessToken,
+            this::reportProgress);
+
+        if (outcome == ScreenshotUploadBatch.Outcome.UNAUTHORIZED) {
+            // Never given up on - the files stay until a refreshed session can send them
+            Log.w(TAG, "Upload " + batchId + " waiting for a session: " + batch.error());
+            session.rejectAccessToken(accessToken);
+            return Result.retry();
+        }
+        if (outcome == ScreenshotUploadBatch.Outcome.RETRY && getRunAttemptCount() + 1 < MAX_ATTEMPTS) {
+            Log.w(TAG, "Upload " + batchId + " interrupted, will resume: " + batch.error());
+            return Result.retry();
+        }
+        boolean uploaded = outcome == ScreenshotUploadBatch.Outcome.DONE;
+        if (uploaded) {
+            Log.d(TAG, "Upload " + batchId + " complete");
+        } else {
+            Log.e(TAG, "Upload " + batchId + " failed: " + batch.error());
+        }
+        batch.delete();
+        Listener current = listener;
+        if (current != null) {
+            current.onUploadFinished(batchId, uploaded, batch.error());
+        }
+        return uploaded ? Result.success() : Result.failure();
+    }
+
+    /**
+     * Publish the batch's progress on its WorkInfo, throttled (upload threads)
+     */
+    private synchronized void reportProgress(String batchId, long uploadedBytes, long totalBytes) {
+        long now = SystemClock.uptimeMillis();
+        if (uploadedBytes < totalBytes && now - progressReportedAt < PROGRESS_INTERVAL_MS) {
+            return;
+        }
+        progressReportedAt = now;
+        setProgressAsync(new Data.Builder()
+            .putString(KEY_BATCH_ID, batchId)
+            .putLong(KEY_UPLOADED_BYTES, uploadedBytes)
+            .putLong(KEY_TOTAL_BYTES, totalBytes)
+            .build());
+    }
+}
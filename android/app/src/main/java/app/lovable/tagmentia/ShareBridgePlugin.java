@@ -0,0 +1,503 @@
+package app.lovable.tagmentia;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.lifecycle.Observer;
+import androidx.work.Data;
+import androidx.work.WorkInfo;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Capacitor bridge between the native share handling and the web app
+ * The web app calls notifyReady() once its router has mounted, which lets MainActivity
+ * flush queued share commands immediately instead of polling for WebView readiness,
+ * and acknowledgeShare() once it has taken over a journaled share
+ * getPrefetchedMetadata() hands over what MetadataPrefetcher fetched while the WebView was booting
+ *
+ * Shares reach the web app as typed shareReceived events (see toPayload) rather than strings
+ * written into localStorage; getPendingShares() lets a freshly loaded page recover any it missed.
+ * A short link is handed over as-is and followed natively afterwards; where it leads comes as a
+ * shareUrlResolved event. While a multi-image share is ingested, shareProgress events count its images
+ *
+ * uploadScreenshots() hands shared image files to the native background upload engine
+ * (ScreenshotUploadWorker); its progress (throttled, from WorkManager) comes back as uploadProgress
+ * events and how it ended as an uploadFinished event, which the web app shows wherever the user
+ * has moved on to
+ *
+ * queueSavedLink() / saveLinkNow() save links through the batched native sync (SavedLinkSync);
+ * every outcome comes back as a savedLinkSynced event; setQuickSaveCategory() names the category
+ * QuickSaveActivity saves shared links to without the web app
+ *
+ * setShareCategories() hands over the user's categories, which CategoryCache ranks by local usage
+ * for the Direct Share shortcuts (ShareShortcuts)
+ */
+@CapacitorPlugin(name = "ShareBridge")
+public class ShareBridgePlugin extends Plugin {
+    private static final String TAG = "ShareBridgePlugin";
+
+    static final String EVENT_SHARE_RECEIVED = "shareReceived";
+    static final String EVENT_SHARE_URL_RESOLVED = "shareUrlResolved";
+    static final String EVENT_SHARE_PROGRESS = "shareProgress";
+    static final String EVENT_UPLOAD_PROGRESS = "uploadProgress";
+    static final String EVENT_UPLOAD_FINISHED = "uploadFinished";
+    static final String EVENT_LINK_SYNCED = "savedLinkSynced";
+
+    // Bytes last reported per running upload, by WorkManager work ID (main thread)
+    private final Map<String, Long> reportedUploadBytes = new HashMap<>();
+    // Turns the progress of running uploads into uploadProgress events, each value once
+    private final Observer<List<WorkInfo>> uploadObserver = uploads -> {
+        for (WorkInfo upload : uploads) {
+            String workId = upload.getId().toString();
+            if (upload.getState() != WorkInfo.State.RUNNING) {
+                reportedUploadBytes.remove(workId);
+                continue;
+            }
+            Data progress = upload.getProgress();
+            String batchId = progress.getString(ScreenshotUploadWorker.KEY_BATCH_ID);
+            long uploadedBytes = progress.getLong(ScreenshotUploadWorker.KEY_UPLOADED_BYTES, -1);
+            Long reported = reportedUploadBytes.put(workId, uploadedBytes);
+            if (batchId == null || uploadedBytes < 0 || (reported != null && reported == uploadedBytes)) {
+                continue;
+            }
+            notifyListeners(EVENT_UPLOAD_PROGRESS, new JSObject()
+                .put("batchId", batchId)
+                .put("uploadedBytes", uploadedBytes)
+                .put("totalBytes", progress.getLong(ScreenshotUploadWorker.KEY_TOTAL_BYTES, 0)));
+        }
+    };
+    // saveLinkNow() calls waiting for their item's result, by item ID
+    private final Map<String, PluginCall> waitingSaves = new ConcurrentHashMap<>();
+    private final SavedLinkSync.Listener linkSyncListener = results -> {
+        for (SavedLinkSync.Result result : results) {
+            JSObject payload = new JSObject()
+                .put("id", result.id)
+                .put("url", result.url)
+                .put("saved", result.saved)
+                .put("videoId", result.videoId)
+                .put("error", result.error)
+                .put("queued", result.queued);
+            PluginCall waiting = waitingSaves.remove(result.id);
+            if (waiting != null) {
+                waiting.resolve(payload);
+            }
+            // Final results are retained, so those of links queued before the page loaded aren't lost;
+            // a link held for a session is reported again on every flush until it goes out
+            notifyListeners(EVENT_LINK_SYNCED, payload, !result.queued);
+        }
+    };
+
+    /**
+     * Implemented by the host activity to receive the web app's signals on the main thread
+     */
+    interface Host {
+        void onWebAppReady();
+
+        void onShareAcknowledged(String shareId);
+
+        /**
+         * Called on the plugin thread
+         */
+        MetadataPrefetcher getMetadataPrefetcher();
+
+        SharedMediaCache getSharedMediaCache();
+
+        BridgeCommandQueue getBridgeCommands();
+    }
+
+    @Override
+    public void load() {
+        // Retained, so a result that lands while the page reloads isn't lost
+        ScreenshotUploadWorker.setListener((batchId, uploaded, error) ->
+            notifyListeners(EVENT_UPLOAD_FINISHED, new JSObject()
+                .put("batchId", batchId)
+                .put("uploaded", uploaded)
+                .put("error", error), true));
+        getBridge().executeOnMainThread(() -> ScreenshotUploadWorker.uploads(getContext()).observeForever(uploadObserver));
+        savedLinkSync(getContext()).addListener(linkSyncListener);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        getBridge().executeOnMainThread(() -> ScreenshotUploadWorker.uploads(getContext()).removeObserver(uploadObserver));
+        savedLinkSync(getContext()).removeListener(linkSyncListener);
+    }
+
+    /**
+     * The process-wide link sync, posting to this project's save-shared-link function
+     */
+    static SavedLinkSync savedLinkSync(Context context) {
+        return SavedLinkSync.getInstance(context.getFilesDir(),
+            context.getString(R.string.supabase_url) + "/functions/v1/save-shared-link",
+            context.getString(R.string.supabase_publishable_key));
+    }
+
+    /**
+     * Called by the web app when the router has mounted and can handle navigation
+     */
+    @PluginMethod
+    public void notifyReady(PluginCall call) {
+        Log.d(TAG, "Web app reported ready");
+        call.resolve();
+        if (getActivity() instanceof Host) {
+            Host host = (Host) getActivity();
+            getActivity().runOnUiThread(host::onWebAppReady);
+        }
+    }
+
+    /**
+     * Called by the web app once it has consumed the share it was handed (see PendingShareJournal)
+     */
+    @PluginMethod
+    public void acknowledgeShare(PluginCall call) {
+        String shareId = call.getString("id");
+        if (shareId == null || shareId.isEmpty()) {
+            call.reject("Missing share id");
+            return;
+        }
+        Log.d(TAG, "Web app acknowledged share: " + shareId);
+        call.resolve();
+        if (getActivity() instanceof Host) {
+            Host host = (Host) getActivity();
+            getActivity().runOnUiThread(() -> host.onShareAcknowledged(shareId));
+        }
+    }
+
+    /**
+     * Called by the add form for the metadata of the shared URL it opened with
+     * Resolves { metadata } once a prefetch still in flight completes, or {} if nothing was prefetched
+     */
+    @PluginMethod
+    public void getPrefetchedMetadata(PluginCall call) {
+        String url = call.getString("url");
+        if (url == null || url.isEmpty()) {
+            call.reject("Missing url");
+            return;
+        }
+        if (!(getActivity() instanceof Host)) {
+            call.resolve(new JSObject());
+            return;
+        }
+        ((Host) getActivity()).getMetadataPrefetcher().get(url, json -> {
+            JSObject result = new JSObject();
+            if (json != null) {
+                try {
+                    result.put("metadata", new JSObject(json));
+                } catch (JSONException e) {
+                    Log.w(TAG, "Ignoring malformed prefetched metadata for " + url, e);
+                }
+            }
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * Diagnostics: usage and eviction counters of the shared media cache
+     * Resolves { entries, bytes, maxBytes, evictedEntries, evictedBytes, lastTrimAt }
+     */
+    @PluginMethod
+    public void getSharedMediaStats(PluginCall call) {
+        if (!(getActivity() instanceof Host)) {
+            call.reject("Shared media cache not available");
+            return;
+        }
+        SharedMediaCache.Stats stats = ((Host) getActivity()).getSharedMediaCache().stats();
+        call.resolve(new JSObject()
+            .put("entries", stats.entries)
+            .put("bytes", stats.bytes)
+            .put("maxBytes", stats.maxBytes)
+            .put("evictedEntries", stats.evictedEntries)
+            .put("evictedBytes", stats.evictedBytes)
+            .put("lastTrimAt", stats.lastTrimAt));
+    }
+
+    /**
+     * Diagnostics: share latency percentiles in ms since the share intent, per start type and stage
+     * Resolves { stages: { "cold.acknowledged": { count, p50, p95, p99, max }, ... } }
+     */
+    @PluginMethod
+    public void getShareLatencyStats(PluginCall call) {
+        JSObject stages = new JSObject();
+        for (Map.Entry<String, ShareLatencyTracker.Summary> entry
+                : ShareLatencyTracker.getInstance(getContext().getFilesDir()).summaries().entrySet()) {
+            ShareLatencyTracker.Summary summary = entry.getValue();
+            stages.put(entry.getKey(), new JSObject()
+                .put("count", summary.count)
+                .put("p50", summary.p50)
+                .put("p95", summary.p95)
+                .put("p99", summary.p99)
+                .put("max", summary.max));
+        }
+        call.resolve(new JSObject().put("stages", stages));
+    }
+
+    /**
+     * Diagnostics: counters of the native bridge command queue (navigations and share events)
+     */
+    @PluginMethod
+    public void getBridgeCommandStats(PluginCall call) {
+        if (!(getActivity() instanceof Host)) {
+            call.reject("Bridge command queue not available");
+            return;
+        }
+        BridgeCommandQueue.Stats stats = ((Host) getActivity()).getBridgeCommands().stats();
+        call.resolve(new JSObject()
+            .put("pending", stats.pending)
+            .put("submitted", stats.submitted)
+            .put("coalesced", stats.coalesced)
+            .put("executed", stats.executed)
+            .put("failed", stats.failed)
+            .put("cancelled", stats.cancelled)
+            .put("flushes", stats.flushes));
+    }
+
+    /**
+     * Hand the native link sync and screenshot uploads the web app's current session (null on sign-out)
+     */
+    @PluginMethod
+    public void setSyncSession(PluginCall call) {
+        String accessToken = call.getString("accessToken");
+        savedLinkSync(getContext()).setAccessToken(accessToken);
+        if (accessToken != null) {
+            ScreenshotUploadWorker.resumeAwaitingSession(getContext());
+        } else {
+            // The categories belong to the user who signed out
+            QuickSaveCategory.getInstance(getContext().getFilesDir()).clear();
+            CategoryCache.getInstance(getContext().getFilesDir()).clear();
+            ShareShortcuts.getInstance(getContext()).clear();
+        }
+        call.resolve();
+    }
+
+    /**
+     * Name the category quick-saved links go to: { id, name }, or { id: null } to send every share to the editor
+     */
+    @PluginMethod
+    public void setQuickSaveCategory(PluginCall call) {
+        QuickSaveCategory.getInstance(getContext().getFilesDir()).set(call.getString("id"), call.getString("name"));
+        call.resolve();
+    }
+
+    /**
+     * Queue a link for the next batch; resolves { id } right away, the outcome arrives as a savedLinkSynced event
+     */
+    @PluginMethod
+    public void queueSavedLink(PluginCall call) {
+        String id = enqueueSavedLink(call);
+        if (id != null) {
+            call.resolve(new JSObject().put("id", id));
+        }
+    }
+
+    /**
+     * Save a link the user is waiting on: it goes out at once, along with anything else queued
+     * Resolves { id, url, saved, videoId?, error?, queued } once the function has answered for it, or
+     * with queued set and error SESSION_EXPIRED if the session is missing or rejected - the link
+     * then stays queued until the web app hands over a fresh one
+     */
+    @PluginMethod
+    public void saveLinkNow(PluginCall call) {
+        String id = enqueueSavedLink(call);
+        if (id != null) {
+            waitingSaves.put(id, call);
+            savedLinkSync(getContext()).flush();
+        }
+    }
+
+    /**
+     * Hand over the user's categories: { categories: [{ id, name, color }] }
+     * Republishes the Direct Share shortcuts if the list changed
+     */
+    @PluginMethod
+    public void setShareCategories(PluginCall call) {
+        JSArray list = call.getArray("categories");
+        if (list == null) {
+            call.reject("Missing categories");
+            return;
+        }
+        List<CategoryCache.Category> categories = new ArrayList<>();
+        for (int i = 0; i < list.length(); i++) {
+            JSONObject category = list.optJSONObject(i);
+            String id = category != null ? category.optString("id", null) : null;
+            if (id != null && !id.isEmpty()) {
+                categories.add(new CategoryCache.Category(id, category.optString("name", null),
+                    category.optString("color", null)));
+            }
+        }
+        // The plugin thread, not the main thread - the cache writes its file here
+        if (CategoryCache.getInstance(getContext().getFilesDir()).setCategories(categories)) {
+            ShareShortcuts.getInstance(getContext()).refresh();
+        }
+        call.resolve();
+    }
+
+    /**
+     * Diagnostics: counters of the native link sync
+     */
+    @PluginMethod
+    public void getSavedLinkSyncStats(PluginCall call) {
+        SavedLinkSync.Stats stats = savedLinkSync(getContext()).stats();
+        call.resolve(new JSObject()
+            .put("pending", stats.pending)
+            .put("batches", stats.batches)
+            .put("saved", stats.saved)
+            .put("failed", stats.failed)
+            .put("retried", stats.retried)
+            .put("rawBytes", stats.rawBytes)
+            .put("sentBytes", stats.sentBytes));
+    }
+
+    /**
+     * @return the queued item's ID, or null if the call was rejected for missing fields
+     */
+    private String enqueueSavedLink(PluginCall call) {
+        String url = call.getString("url");
+        String categoryId = call.getString("categoryId");
+        if (url == null || url.isEmpty() || categoryId == null || categoryId.isEmpty()) {
+            call.reject("Missing required fields: url and categoryId");
+            return null;
+        }
+        SavedLinkSync sync = savedLinkSync(getContext());
+        String accessToken = call.getString("accessToken");
+        if (accessToken != null) {
+            sync.setAccessToken(accessToken);
+        }
+        String id = sync.enqueue(url, categoryId, call.getString("note"), call.getString("reminderAt"));
+        // Every save counts towards the category's Direct Share rank
+        CategoryCache.getInstance(getContext().getFilesDir()).recordUse(categoryId);
+        ShareShortcuts.getInstance(getContext()).refresh();
+        return id;
+    }
+
+    /**
+     * Called by the web app on startup for the shares that are journaled but not yet acknowledged
+     * Resolves { shares: [payload, ...] }, oldest first
+     */
+    @PluginMethod
+    public void getPendingShares(PluginCall call) {
+        // load() waits for the journal replay if the activity's hasn't finished yet
+        PendingShareJournal.getInstance(getContext().getFilesDir()).load(entries -> {
+            JSArray shares = new JSArray();
+            for (PendingShareJournal.Entry entry : entries) {
+                // Raw shares are still being ingested - they arrive as shareReceived events once they are ready
+                if (!entry.raw) {
+                    shares.put(toPayload(entry));
+                }
+            }
+            call.resolve(new JSObject().put("shares", shares));
+        });
+    }
+
+    /**
+     * Deliver a share to the web app's shareReceived listener (retained until one is registered)
+     */
+    void publishShare(PendingShareJournal.Entry entry) {
+        Log.d(TAG, "Publishing " + entry.kind + " share " + entry.id);
+        notifyListeners(EVENT_SHARE_RECEIVED, toPayload(entry), true);
+    }
+
+    /**
+     * Tell the add form where a delivered share's short link leads, so it can swap it in
+     */
+    void publishShareUrlResolved(String shareId, String shortUrl, String url) {
+        Log.d(TAG, "Short link of share " + shareId + " resolved");
+        notifyListeners(EVENT_SHARE_URL_RESOLVED, new JSObject()
+            .put("id", shareId)
+            .put("shortUrl", shortUrl)
+            .put("url", url), true);
+    }
+
+    /**
+     * Tell the web app how many images of a share being ingested are done (not retained - only the
+     * latest count matters, and the share itself follows)
+     */
+    void publishShareProgress(String shareId, int completed, int total) {
+        notifyListeners(EVENT_SHARE_PROGRESS, new JSObject()
+            .put("id", shareId)
+            .put("completed", completed)
+            .put("total", total));
+    }
+
+    /**
+     * Event payload for a journaled share: { id, kind, timestamp, source } plus url for URL shares,
+     * or the image manifest (file references, never image bytes) for image shares
+     */
+    static JSObject toPayload(PendingShareJournal.Entry entry) {
+        JSObject payload = new JSObject()
+            .put("id", entry.id)
+            .put("kind", entry.kind)
+            .put("timestamp", entry.timestamp)
+            .put("source", entry.sourcePackage);
+        if (PendingShareJournal.KIND_IMAGE.equals(entry.kind)) {
+            try {
+                payload.put("manifest", new JSObject(entry.value));
+            } catch (JSONException e) {
+                Log.e(TAG, "Malformed image manifest in share " + entry.id, e);
+            }
+        } else {
+            payload.put("url", entry.value);
+        }
+        return payload;
+    }
+
+    /**
+     * Called by the add form to upload shared image files in the background instead of from the WebView
+     * Expects { files: [manifest item names], userId, categoryId, videoId, accessToken? }; the files
+     * move into the upload batch, so they are gone from /_shared/ afterwards. The upload runs with
+     * whatever session is current at the time (setSyncSession), the optional accessToken only
+     * brings that up to date. Resolves { batchId }
+     */
+    @PluginMethod
+    public void uploadScreenshots(PluginCall call) {
+        String userId = call.getString("userId");
+        String categoryId = call.getString("categoryId");
+        String videoId = call.getString("videoId");
+        JSArray names = call.getArray("files");
+        if (userId == null || categoryId == null || videoId == null || names == null || names.length() == 0) {
+            call.reject("Missing upload fields");
+            return;
+        }
+
+        SharedMediaServer sharedMedia = new SharedMediaServer(getContext().getCacheDir());
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < names.length(); i++) {
+            File file = sharedMedia.fileFor(names.optString(i, null));
+            if (file == null) {
+                call.reject("Not a shared file: " + names.optString(i, null));
+                return;
+            }
+            files.add(file);
+        }
+
+        String accessToken = call.getString("accessToken");
+        if (accessToken != null) {
+            savedLinkSync(getContext()).setAccessToken(accessToken);
+        }
+        try {
+            ScreenshotUploadBatch batch = ScreenshotUploadBatch.create(ScreenshotUploadWorker.uploadsDir(getContext()),
+                files, userId, categoryId, videoId);
+            ScreenshotUploadWorker.enqueue(getContext(), batch.id());
+            call.resolve(new JSObject().put("batchId", batch.id()));
+        } catch (IOException e) {
+            Log.e(TAG, "Could not start screenshot upload", e);
+            call.reject("Could not start upload", e);
+        }
+    }
+}
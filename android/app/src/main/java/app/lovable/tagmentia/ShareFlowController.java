@@ -0,0 +1,821 @@
+package app.lovable.tagmentia;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Everything between an incoming intent and the web app: share extraction and ingestion, the
+ * share journal and its one-at-a-time delivery, deep-link navigation and the bridge command queue
+ *
+ * MainActivity owns one and forwards its lifecycle and the ShareBridge callbacks to it; the
+ * WebView is only reached through BridgeScriptDispatcher and the Delegate, so the whole flow can
+ * be driven without a Capacitor bridge (see ShareFlowHarness in the tests)
+ * Main thread only, unless noted
+ */
+final class ShareFlowController {
+    private static final String TAG = "ShareFlow";
+
+    // Keys of bridge commands that supersede each other - the latest navigation wins
+    private static final String COMMAND_NAVIGATION = "navigation";
+    private static final String COMMAND_SHARE = "share:";
+    private static final String COMMAND_SHARE_PROGRESS = "share-progress:";
+    // Async systrace section spanning a share from the intent to the web app's acknowledgement
+    private static final String SHARE_TRACE_SECTION = "Share";
+
+    /**
+     * What the flow needs from its activity
+     */
+    interface Delegate {
+        /**
+         * Hand a share to the web app as a typed shareReceived event (ShareBridgePlugin.publishShare)
+         */
+        void publishShare(PendingShareJournal.Entry entry);
+
+        /**
+         * Tell the web app a delivered share's short link resolved (ShareBridgePlugin.publishShareUrlResolved)
+         */
+        void shareUrlResolved(String shareId, String shortUrl, String url);
+
+        /**
+         * Tell the web app how far a multi-image share's ingestion has got (ShareBridgePlugin.publishShareProgress)
+         */
+        void shareProgress(String shareId, int completed, int total);
+
+        /**
+         * Host of the app the current share came from, or null
+         */
+        String referrerHost();
+    }
+
+    // Every bridge command goes through here: held until the web app reports ready (see ShareBridgePlugin),
+    // deduplicated by key, run together and cancelled with the activity
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final BridgeCommandQueue bridgeCommands = new BridgeCommandQueue(
+        new BridgeCommandQueue.Scheduler() {
+            @Override
+            public void schedule(Runnable task, long delayMs) {
+                mainHandler.postDelayed(task, delayMs);
+            }
+
+            @Override
+            public void cancel(Runnable task) {
+                mainHandler.removeCallbacks(task);
+            }
+        },
+        (key, error) -> Log.e(TAG, "Error running bridge command " + key, error));
+    // Share extraction, file I/O and encoding run here - never on the UI thread
+    private final ShareIngestionExecutor shareIngestion = new ShareIngestionExecutor();
+    // Short links are followed here, after their share has gone out - a slow redirect chain never holds up a share
+    private final ShareIngestionExecutor shortLinks = new ShareIngestionExecutor("tagmentia-short-links");
+
+    private final Context context;
+    private final Delegate delegate;
+    // Every script evaluated in the WebView goes through here, one evaluation per looper tick
+    private final BridgeScriptDispatcher bridgeScripts;
+    private final ShortLinkResolver shortLinkResolver;
+    private final MetadataPrefetcher metadataPrefetcher;
+    // Intent-to-acknowledgement latency per stage, mirrored as systrace sections
+    private final ShareLatencyTracker shareLatency;
+
+    // Every share is journaled raw the moment its intent arrives, ingested in arrival order and
+    // handed to the web app one at a time; the next one goes out once the web app acknowledges the current one
+    private final PendingShareJournal shareJournal;
+    private boolean shareJournalLoaded = false;
+    private String deliveredShareId;
+    // Raw shares this controller has queued for ingestion, so a replayed one isn't ingested twice
+    private final Set<String> ingestingShareIds = new HashSet<>();
+
+    ShareFlowController(Context context, Delegate delegate, BridgeScriptDispatcher bridgeScripts,
+                        PendingShareJournal shareJournal, ShareLatencyTracker shareLatency,
+                        ShortLinkResolver shortLinkResolver, MetadataPrefetcher metadataPrefetcher) {
+        this.context = context;
+        this.delegate = delegate;
+        this.bridgeScripts = bridgeScripts;
+        this.shareJournal = shareJournal;
+        this.shareLatency = shareLatency;
+        this.shortLinkResolver = shortLinkResolver;
+        this.metadataPrefetcher = metadataPrefetcher;
+    }
+
+    /**
+     * Replay shares left unacknowledged by an earlier run (e.g. killed during cold start)
+     * @param onLoaded Runs once the journal is loaded and the pinned files are known
+     */
+    void start(Runnable onLoaded) {
+        shareJournal.load(pending -> {
+            Log.d(TAG, "Share journal loaded - " + pending.size() + " pending share(s)");
+            shareJournalLoaded = true;
+            // Shares whose ingestion was cut short (process killed, activity destroyed) start over;
+            // the journal's current state, since shares of this run may have been ingested meanwhile
+            for (PendingShareJournal.Entry entry : shareJournal.pendingEntries()) {
+                if (entry.raw) {
+                    ingestShare(entry, null);
+                }
+            }
+            deliverNextShare();
+            onLoaded.run();
+        });
+    }
+
+    boolean isJournalLoaded() {
+        return shareJournalLoaded;
+    }
+
+    BridgeCommandQueue getBridgeCommands() {
+        return bridgeCommands;
+    }
+
+    /**
+     * Don't leave journaled shares waiting on the batching delay while we are in the background
+     */
+    void onStop() {
+        shareJournal.flush();
+    }
+
+    void onDestroy() {
+        shareIngestion.shutdown();
+        shortLinks.shutdown();
+        bridgeCommands.cancelAll();
+    }
+
+    /**
+     * A (re)loading page has no router yet - hold commands until it reports ready again
+     */
+    void onPageStarted() {
+        boolean wasReady = bridgeCommands.isReady();
+        bridgeCommands.setReady(false);
+        if (wasReady) {
+            // The page that was handed the current share is gone - queue it again for the new one
+            deliveredShareId = null;
+            deliverNextShare();
+        }
+    }
+
+    /**
+     * The web app's router has mounted - flush every bridge command queued while it was booting
+     */
+    void onWebAppReady() {
+        Log.d(TAG, "Web app ready, flushing " + bridgeCommands.stats().pending + " queued bridge command(s)");
+        shareLatency.markOpen(ShareLatencyTracker.Stage.WEBVIEW_READY);
+        bridgeCommands.setReady(true);
+    }
+
+    /**
+     * Called by ShareBridgePlugin (on the main thread) once the web app has taken over a share
+     */
+    void onShareAcknowledged(String shareId) {
+        if (!shareJournal.acknowledge(shareId)) {
+            Log.w(TAG, "Acknowledged share was not pending: " + shareId);
+        }
+        ShareLatencyTracker.Trace trace = shareLatency.finish(shareId);
+        if (trace != null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                android.os.Trace.endAsyncSection(SHARE_TRACE_SECTION, trace.id);
+            }
+            Log.d(TAG, "Share " + shareId + " (" + trace.startType() + " start) acknowledged "
+                + ((System.nanoTime() - trace.startNanos) / 1_000_000) + "ms after the intent");
+        }
+        if (shareId.equals(deliveredShareId)) {
+            deliveredShareId = null;
+        }
+        deliverNextShare();
+    }
+
+    /**
+     * Names of the shared files referenced by unacknowledged image shares (main thread)
+     */
+    Set<String> pinnedSharedMedia() {
+        Set<String> pinned = new HashSet<>();
+        for (PendingShareJournal.Entry entry : shareJournal.pendingEntries()) {
+            if (entry.raw || !PendingShareJournal.KIND_IMAGE.equals(entry.kind)) {
+                continue;
+            }
+            try {
+                JSONArray items = new JSONObject(entry.value).getJSONArray("items");
+                for (int i = 0; i < items.length(); i++) {
+                    pinned.add(items.getJSONObject(i).getString("name"));
+                }
+            } catch (JSONException e) {
+                Log.w(TAG, "Malformed image manifest in share " + entry.id, e);
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * Open the latency trace of a share intent, mirrored as an async systrace section (API 29+)
+     */
+    private ShareLatencyTracker.Trace beginShareTrace(boolean coldStart) {
+        ShareLatencyTracker.Trace trace = shareLatency.begin(coldStart);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            android.os.Trace.beginAsyncSection(SHARE_TRACE_SECTION, trace.id);
+        }
+        return trace;
+    }
+
+    /**
+     * Journal a share as its raw intent payload, before any background work, and queue its ingestion (main thread)
+     * @param kind PendingShareJournal.KIND_URL or KIND_IMAGE
+     * @param payload The raw payload built by rawTextPayload / rawImagePayload
+     * @param trace The latency trace opened for the share intent
+     */
+    private void journalShare(String kind, JSONObject payload, ShareLatencyTracker.Trace trace) {
+        PendingShareJournal.Entry entry = shareJournal.appendRaw(kind, payload.toString(), delegate.referrerHost());
+        shareLatency.attach(trace, entry.id);
+        Log.d(TAG, "Journaled raw " + kind + " share " + entry.id);
+        ingestShare(entry, trace);
+    }
+
+    /**
+     * Raw payload of a text share: { text, uri }, either may be missing
+     */
+    static JSONObject rawTextPayload(String sharedText, Uri sharedUri) throws JSONException {
+        return new JSONObject()
+            .putOpt("text", sharedText)
+            .putOpt("uri", sharedUri != null ? sharedUri.toString() : null);
+    }
+
+    /**
+     * Raw payload of an image share: { uris: [content URI, ...] }
+     */
+    static JSONObject rawImagePayload(List<Uri> imageUris) throws JSONException {
+        JSONArray uris = new JSONArray();
+        for (Uri uri : imageUris) {
+            uris.put(uri.toString());
+        }
+        return new JSONObject().put("uris", uris);
+    }
+
+    /**
+     * Queue the ingestion of a raw share behind the shares that arrived before it (main thread)
+     * @param trace The latency trace of the intent, or null for a share replayed from the journal
+     */
+    private void ingestShare(PendingShareJournal.Entry entry, ShareLatencyTracker.Trace trace) {
+        if (!ingestingShareIds.add(entry.id)) {
+            return;
+        }
+        try {
+            JSONObject payload = new JSONObject(entry.value);
+            if (PendingShareJournal.KIND_IMAGE.equals(entry.kind)) {
+                JSONArray uris = payload.getJSONArray("uris");
+                List<Uri> imageUris = new ArrayList<>();
+                for (int i = 0; i < uris.length(); i++) {
+                    imageUris.add(Uri.parse(uris.getString(i)));
+                }
+                ingestImages(entry.id, imageUris, trace);
+            } else {
+                ingestText(entry.id, payload.optString("text", null), payload.optString("uri", null), trace);
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Malformed raw payload in share " + entry.id, e);
+            dropShare(entry.id);
+        }
+    }
+
+    /**
+     * Replace a raw share with its ingested value and deliver it once the web app is free (main thread)
+     */
+    private void onShareIngested(String shareId, String value) {
+        ingestingShareIds.remove(shareId);
+        if (shareJournal.update(shareId, value) == null) {
+            Log.w(TAG, "Ingested share is no longer pending: " + shareId);
+        } else {
+            Log.d(TAG, "Ingested share " + shareId);
+        }
+        deliverNextShare();
+    }
+
+    /**
+     * Remove a raw share that turned out to have nothing to deliver (main thread)
+     */
+    private void dropShare(String shareId) {
+        ingestingShareIds.remove(shareId);
+        shareJournal.acknowledge(shareId);
+        deliverNextShare();
+    }
+
+    /**
+     * Hand the oldest unacknowledged share to the web app, unless one is already in flight (main thread)
+     */
+    private void deliverNextShare() {
+        if (!shareJournalLoaded || deliveredShareId != null) {
+            return;
+        }
+        PendingShareJournal.Entry entry = shareJournal.peek();
+        if (entry == null || entry.raw) {
+            // Shares go out in arrival order - wait for the oldest one to be ingested
+            return;
+        }
+        deliveredShareId = entry.id;
+        Log.d(TAG, "Delivering " + entry.kind + " share " + entry.id);
+        publishShare(entry);
+    }
+
+    /**
+     * Hand a share to the web app as a typed shareReceived event (main thread)
+     * The web app navigates to /add or /add-shared-screen itself; images travel as file references
+     */
+    private void publishShare(PendingShareJournal.Entry entry) {
+        // Held until the web app's router - and with it the share listener - has mounted
+        bridgeCommands.submit(COMMAND_SHARE + entry.id, () -> {
+            android.os.Trace.beginSection("Share.dispatch");
+            try {
+                // The latest value - a short link may have resolved while the command was held
+                PendingShareJournal.Entry current = shareJournal.get(entry.id);
+                delegate.publishShare(current != null ? current : entry);
+                shareLatency.mark(entry.id, ShareLatencyTracker.Stage.DISPATCHED);
+            } finally {
+                android.os.Trace.endSection();
+            }
+        });
+    }
+
+    /**
+     * The web app route an intent will end up on, if a cold start can boot straight into it
+     * Text shares and add-URL deep links open /add; image shares and everything else boot /
+     */
+    static String launchRoute(Intent intent) {
+        if (intent == null) {
+            return null;
+        }
+        if (Intent.ACTION_SEND.equals(intent.getAction()) && "text/plain".equals(intent.getType())) {
+            return "/add";
+        }
+        if (Intent.ACTION_VIEW.equals(intent.getAction()) && intent.getData() != null) {
+            try {
+                DeepLinkRouter.Route route = DeepLinkRouter.route(intent.getData().toString());
+                if (route != null && route.addUrl) {
+                    return "/add";
+                }
+            } catch (UnsupportedEncodingException e) {
+                // handleDeepLink logs it; boot / as usual
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Route an incoming intent - text and image shares, or a deep link
+     * @param coldStart The intent launched the activity, rather than reaching it while it was running
+     */
+    void handleIntent(Intent intent, boolean coldStart) {
+        if (intent == null) {
+            return;
+        }
+
+        String action = intent.getAction();
+        Uri data = intent.getData();
+        String type = intent.getType();
+
+        Log.d(TAG, "Handling intent - Action: " + action + ", Data: " + data + ", Type: " + type);
+
+        // Handle Share Intent (ACTION_SEND)
+        if (Intent.ACTION_SEND.equals(action) && type != null) {
+            if ("text/plain".equals(type)) {
+                handleShareIntent(intent, beginShareTrace(coldStart));
+                return;
+            } else if (type.startsWith("image/")) {
+                handleImageShareIntent(intent, beginShareTrace(coldStart));
+                return;
+            }
+        }
+
+        // Handle Share Intent (ACTION_SEND_MULTIPLE) - for multiple images
+        if (Intent.ACTION_SEND_MULTIPLE.equals(action) && type != null) {
+            if (type.startsWith("image/")) {
+                handleMultipleImageShareIntent(intent, beginShareTrace(coldStart));
+                return;
+            }
+        }
+
+        // Handle Deep Links (custom scheme and App Links)
+        if (Intent.ACTION_VIEW.equals(action) && data != null) {
+            handleDeepLink(data);
+            return;
+        }
+    }
+
+    /**
+     * Handle share intent from other apps
+     * Extracts URL from shared text and journals it for delivery to the web app
+     * Enhanced to better handle YouTube, TikTok, Instagram, Snapchat shares
+     * Also handles Tagement links as deep links
+     * The raw text is journaled right away; extraction runs on the ingestion thread and only the
+     * resolved URL comes back to the UI thread
+     */
+    private void handleShareIntent(Intent intent, ShareLatencyTracker.Trace trace) {
+        try {
+            String sharedText = intent.getStringExtra(Intent.EXTRA_TEXT);
+            String sharedTitle = intent.getStringExtra(Intent.EXTRA_SUBJECT);
+            Uri sharedUri = intent.getParcelableExtra(Intent.EXTRA_STREAM);
+            
+            Log.d(TAG, "Share intent received - Text: " + sharedText + ", Title: " + sharedTitle + ", URI: " + sharedUri);
+
+            if ((sharedText == null || sharedText.trim().isEmpty()) && sharedUri == null) {
+                Log.w(TAG, "Nothing to share in share intent");
+                return;
+            }
+            journalShare(PendingShareJournal.KIND_URL, rawTextPayload(sharedText, sharedUri), trace);
+        } catch (Exception e) {
+            Log.e(TAG, "Error handling share intent", e);
+        }
+    }
+
+    /**
+     * Queue the URL extraction of a journaled text share (main thread)
+     */
+    private void ingestText(String shareId, String sharedText, String sharedUri, ShareLatencyTracker.Trace trace) {
+        shareIngestion.submit("text share", () -> {
+            android.os.Trace.beginSection("Share.extractUrl");
+            try {
+                String url = resolveSharedUrl(sharedText, sharedUri);
+                shareLatency.mark(trace, ShareLatencyTracker.Stage.URL_EXTRACTED);
+                return url;
+            } finally {
+                android.os.Trace.endSection();
+            }
+        }, url -> onSharedTextResolved(shareId, url, sharedText));
+    }
+
+    /**
+     * Extract the shared URL from share intent extras (runs on the ingestion thread)
+     * @return the URL, or null if none could be found
+     */
+    private String resolveSharedUrl(String sharedText, String sharedUri) {
+        // One scan of the text covers plain URLs, URLs embedded in a message ("Check out this video: ...")
+        // and bare YouTube, TikTok, Instagram, Snapchat and Loom links
+        String url = SharedUrlExtractor.extract(sharedText);
+        Log.d(TAG, "Extracted URL from text: " + url);
+
+        // If no URL found in text, try to get it from the URI
+        if (url == null && sharedUri != null) {
+            url = SharedUrlExtractor.isHttpUrl(sharedUri) ? sharedUri : SharedUrlExtractor.extract(sharedUri);
+            Log.d(TAG, "Extracted URL from URI: " + url);
+        }
+
+        // Collapse share variants of the same video (youtu.be/ID?si=..., m.youtube.com/watch?v=ID&feature=share,
+        // youtube.com/shorts/ID, ...) into one canonical URL so the backend can dedupe and cache on it
+        SharedUrlCanonicalizer.Result canonical = SharedUrlCanonicalizer.canonicalize(url);
+        if (canonical != null && !canonical.url.equals(url)) {
+            Log.d(TAG, "Canonicalized shared URL: " + url + " -> " + canonical.url);
+            url = canonical.url;
+        }
+
+        // Fetch the title and thumbnail now rather than after the WebView has booted and the form has mounted;
+        // the form picks the result up through ShareBridgePlugin.getPrefetchedMetadata()
+        // Only supported platforms - the form turns anything else away without asking for metadata
+        // Short links are prefetched once resolveShortLink knows where they lead
+        if (canonical != null && canonical.platform != null && !ShortLinkResolver.isShortLink(url)) {
+            metadataPrefetcher.prefetch(url);
+        }
+        return url;
+    }
+
+    /**
+     * Follow a short link (vm.tiktok.com/CODE, ...) to the page it redirects to, after its share has
+     * been handed over with the short link itself, so the backend doesn't have to (main thread)
+     * Resolving takes up to ShortLinkResolver.RESOLVE_BUDGET_MS; the result updates the journaled share
+     * or, once the web app has it, the add form (see onShortLinkResolved)
+     */
+    private void resolveShortLink(String shareId, String shortUrl) {
+        shortLinks.submit("short link", () -> {
+            android.os.Trace.beginSection("Share.resolveShortLink");
+            try {
+                String resolved = shortLinkResolver.resolve(shortUrl);
+                if (resolved == null) {
+                    Log.w(TAG, "Could not resolve short link, keeping it as-is: " + shortUrl);
+                    return null;
+                }
+                SharedUrlCanonicalizer.Result canonical = SharedUrlCanonicalizer.canonicalize(resolved);
+                if (canonical != null) {
+                    resolved = canonical.url;
+                    if (canonical.platform != null) {
+                        metadataPrefetcher.prefetch(resolved);
+                    }
+                }
+                Log.d(TAG, "Resolved short link: " + shortUrl + " -> " + resolved);
+                return resolved;
+            } finally {
+                android.os.Trace.endSection();
+            }
+        }, resolved -> onShortLinkResolved(shareId, shortUrl, resolved));
+    }
+
+    /**
+     * Swap a resolved short link into its share (main thread)
+     * @param url Where the short link leads, or null if it couldn't be resolved
+     */
+    private void onShortLinkResolved(String shareId, String shortUrl, String url) {
+        if (url == null || url.equals(shortUrl)) {
+            return;
+        }
+        PendingShareJournal.Entry updated = shareJournal.update(shareId, url);
+        if (updated != null && !shareId.equals(deliveredShareId)) {
+            // Not handed over yet - it goes out with the resolved link
+            return;
+        }
+        // The add form may already show the short link - let it swap in the resolved one
+        bridgeCommands.submit(COMMAND_SHARE + shareId + ":url", () -> delegate.shareUrlResolved(shareId, shortUrl, url));
+    }
+
+    /**
+     * Deliver a resolved text share to the web app (main thread)
+     * @param shareId The journaled raw share
+     * @param url The extracted URL, or null if none was found
+     * @param sharedText The raw shared text, used when no URL was found
+     */
+    private void onSharedTextResolved(String shareId, String url, String sharedText) {
+        try {
+            if (url == null) {
+                Log.w(TAG, "No URL found in share intent - Text: " + sharedText);
+                // Deliver the raw text anyway, let the web app handle it
+                if (sharedText != null && !sharedText.trim().isEmpty()) {
+                    onShareIngested(shareId, sharedText.trim());
+                } else {
+                    dropShare(shareId);
+                }
+                return;
+            }
+
+            // Check if the URL is a Tagement link - if so, handle it as a deep link
+            if (DeepLinkRouter.isTagementLink(url)) {
+                Log.d(TAG, "Detected Tagement link in share intent, handling as deep link: " + url);
+                try {
+                    Uri tagmentUri = Uri.parse(url);
+                    handleDeepLink(tagmentUri);
+                    dropShare(shareId);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error handling Tagement link as deep link", e);
+                    // Fallback to regular share handling
+                    onShareIngested(shareId, url);
+                }
+                return;
+            }
+
+            onShareIngested(shareId, url);
+            if (ShortLinkResolver.isShortLink(url)) {
+                resolveShortLink(shareId, url);
+            }
+            
+        } catch (Exception e) {
+            Log.e(TAG, "Error handling share intent", e);
+        }
+    }
+
+    /**
+     * Handle image share intent from other apps (single image)
+     * Journals the content:// URI, then streams it into the cache directory on the ingestion thread,
+     * downscales/re-encodes it and hands the React app a file reference
+     */
+    private void handleImageShareIntent(Intent intent, ShareLatencyTracker.Trace trace) {
+        try {
+            Uri imageUri = intent.getParcelableExtra(Intent.EXTRA_STREAM);
+            
+            Log.d(TAG, "Image share intent received - URI: " + imageUri);
+
+            if (imageUri == null) {
+                Log.w(TAG, "No image URI found in share intent");
+                return;
+            }
+
+            journalShare(PendingShareJournal.KIND_IMAGE, rawImagePayload(Collections.singletonList(imageUri)), trace);
+            
+        } catch (Exception e) {
+            Log.e(TAG, "Error handling image share intent", e);
+        }
+    }
+
+    /**
+     * Handle multiple image share intent from other apps
+     * Journals the content:// URIs, then ingests them as one batch (see ingestImages)
+     */
+    private void handleMultipleImageShareIntent(Intent intent, ShareLatencyTracker.Trace trace) {
+        try {
+            ArrayList<Uri> imageUris = intent.getParcelableArrayListExtra(Intent.EXTRA_STREAM);
+            
+            Log.d(TAG, "Multiple image share intent received - Count: " + (imageUris != null ? imageUris.size() : 0));
+
+            if (imageUris == null || imageUris.isEmpty()) {
+                Log.w(TAG, "No image URIs found in share intent");
+                return;
+            }
+
+            journalShare(PendingShareJournal.KIND_IMAGE, rawImagePayload(imageUris), trace);
+            
+        } catch (Exception e) {
+            Log.e(TAG, "Error handling multiple image share intent", e);
+        }
+    }
+
+    /**
+     * Queue the ingestion of a journaled image share (main thread)
+     * A single image is streamed into the cache directory and downscaled/re-encoded; several are
+     * streamed and compressed concurrently (on a pool sized to the cores). Either way the React app
+     * gets one manifest of file references
+     */
+    private void ingestImages(String shareId, List<Uri> imageUris, ShareLatencyTracker.Trace trace) {
+        if (imageUris.size() == 1) {
+            Uri imageUri = imageUris.get(0);
+            shareIngestion.submit("image share", () -> {
+                android.os.Trace.beginSection("Share.ingestImage");
+                try {
+                    SharedImageIngestor.SharedImage image = new SharedImageIngestor(context.getContentResolver(), context.getCacheDir()).ingest(imageUri);
+                    image = new SharedImageCompressor(SharedImageCompressor.Config.defaults()).compressOrKeep(image);
+                    String manifest = buildSharedImageManifest(Collections.singletonList(image), 0);
+                    shareLatency.mark(trace, ShareLatencyTracker.Stage.IMAGE_INGESTED);
+                    return manifest;
+                } finally {
+                    android.os.Trace.endSection();
+                }
+            }, manifest -> onSharedImageIngested(shareId, manifest));
+            return;
+        }
+
+        shareIngestion.submit("multiple image share (" + imageUris.size() + ")", () -> {
+            android.os.Trace.beginSection("Share.ingestImages");
+            try {
+                SharedImageBatchIngestor.Result result = new SharedImageBatchIngestor(context.getContentResolver(),
+                    new SharedImageIngestor(context.getContentResolver(), context.getCacheDir()),
+                    new SharedImageCompressor(SharedImageCompressor.Config.defaults()))
+                    .ingestAll(imageUris, (index, completed, total, image) ->
+                        onSharedImageProgress(shareId, index, completed, total, image));
+                if (result.images.isEmpty()) {
+                    throw new IOException("None of the " + imageUris.size() + " shared images could be ingested");
+                }
+                String manifest = buildSharedImageManifest(result.images, result.failed);
+                shareLatency.mark(trace, ShareLatencyTracker.Stage.IMAGE_INGESTED);
+                return manifest;
+            } finally {
+                android.os.Trace.endSection();
+            }
+        }, manifest -> onSharedImageIngested(shareId, manifest));
+    }
+
+    /**
+     * Report per-image batch progress to the web app while the share itself is still being built
+     * Called on the batch worker threads; only the latest count per share goes out
+     */
+    private void onSharedImageProgress(String shareId, int index, int completed, int total, SharedImageIngestor.SharedImage image) {
+        Log.d(TAG, "Shared image " + (index + 1) + "/" + total + (image != null ? " ingested" : " failed") + " (" + completed + "/" + total + " done)");
+        mainHandler.post(() -> bridgeCommands.submit(COMMAND_SHARE_PROGRESS + shareId,
+            () -> delegate.shareProgress(shareId, completed, total)));
+    }
+
+    /**
+     * Build the batch manifest for the ingested images (runs on the ingestion thread)
+     * The web layer only receives file references - path, local URL, name, size, MIME type and content hash per image -
+     * and loads each file from the local origin (SharedMediaServer), so no base64 copy is ever built
+     * @return the manifest JSON, journaled as the value of an image share
+     */
+    private String buildSharedImageManifest(List<SharedImageIngestor.SharedImage> images, int failed) throws JSONException {
+        JSONArray items = new JSONArray();
+        for (SharedImageIngestor.SharedImage image : images) {
+            items.put(new JSONObject()
+                .put("path", image.file.getAbsolutePath())
+                .put("url", SharedMediaServer.pathFor(image.file))
+                .put("name", image.file.getName())
+                .put("size", image.size)
+                .put("mimeType", image.mimeType)
+                .put("compressed", image.compressed)
+                .put("sha256", image.sha256));
+        }
+        String manifest = new JSONObject()
+            .put("count", images.size())
+            .put("failed", failed)
+            .put("items", items)
+            .toString();
+
+        Log.d(TAG, "Built shared image manifest - Images: " + images.size() + ", Failed: " + failed);
+        return manifest;
+    }
+
+    /**
+     * Replace a raw image share with its manifest for delivery to the web app (main thread)
+     * @param manifest The manifest produced by buildSharedImageManifest, or null if ingestion failed
+     */
+    private void onSharedImageIngested(String shareId, String manifest) {
+        if (manifest == null) {
+            // The images can't be read (e.g. the grant on a replayed content:// URI is gone) - don't block later shares
+            Log.w(TAG, "Dropping image share that could not be ingested: " + shareId);
+            dropShare(shareId);
+            return;
+        }
+        onShareIngested(shareId, manifest);
+    }
+
+    /**
+     * Handle deep links (custom scheme: tagmentia:// or App Links: https://tagmentia.com/*)
+     */
+    private void handleDeepLink(Uri uri) {
+        try {
+            Log.d(TAG, "Deep link received - Scheme: " + uri.getScheme() + ", Host: " + uri.getHost() + ", Path: " + uri.getPath());
+
+            DeepLinkRouter.Route route = DeepLinkRouter.route(uri.toString());
+            if (route == null) {
+                Log.d(TAG, "Deep link has no route: " + uri);
+            } else if (route.addUrl) {
+                navigateToAddRoute(route.target);
+            } else {
+                navigateToPath(route.target);
+            }
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error handling deep link", e);
+        }
+    }
+
+    /**
+     * Navigate to the /add route in the web app with a URL from a deep link
+     * Uses JavaScript injection to navigate to the React Router /add route
+     * @param url The URL to add
+     */
+    private void navigateToAddRoute(String url) {
+        try {
+            Log.d(TAG, "Navigating to /add route with URL: " + url);
+            
+            String quotedUrl = JsonStringEncoder.quote(url);
+            String quotedTarget = JsonStringEncoder.quote("/add?url=" + Uri.encode(url, "UTF-8"));
+            
+            // Navigate to the /add route with the URL in the query parameter
+            String js =
+                "try { " +
+                "  if (window.location.pathname !== '/add') { " +
+                "    if (window.history && window.history.pushState) { " +
+                "      window.history.pushState({}, '', " + quotedTarget + "); " +
+                "      window.dispatchEvent(new PopStateEvent('popstate')); " +
+                "    } else { " +
+                "      window.location.href = " + quotedTarget + "; " +
+                "    } " +
+                "  } else { " +
+                "    // Already on /add, update the URL parameter and trigger React Router\n" +
+                "    const urlParams = new URLSearchParams(window.location.search); " +
+                "    urlParams.set('url', " + quotedUrl + "); " +
+                "    window.history.replaceState({}, '', '/add?' + urlParams.toString()); " +
+                "    window.dispatchEvent(new PopStateEvent('popstate')); " +
+                "  } " +
+                "  console.log('Navigated to /add with URL:', " + quotedUrl + "); " +
+                "} catch (e) { " +
+                "  console.error('Error navigating to /add:', e); " +
+                "  // Fallback: simple navigation\n" +
+                "  window.location.href = " + quotedTarget + "; " +
+                "}";
+            // Held until the web app's router has mounted; replaces any navigation still pending
+            bridgeCommands.submit(COMMAND_NAVIGATION, () -> bridgeScripts.dispatch("navigate to /add", js));
+            
+        } catch (Exception e) {
+            Log.e(TAG, "Error navigating to add route", e);
+        }
+    }
+
+    /**
+     * Navigate to a specific path in the web app
+     * @param path The path to navigate to (e.g., "/categories", "/add?url=...")
+     */
+    private void navigateToPath(String path) {
+        try {
+            // Ensure path starts with /
+            if (path == null || path.isEmpty()) {
+                path = "/";
+            }
+            if (!path.startsWith("/")) {
+                path = "/" + path;
+            }
+            
+            Log.d(TAG, "Navigating to path: " + path);
+            
+            // Navigate to the path
+            String quotedPath = JsonStringEncoder.quote(path);
+            String js = "if (window.location.pathname + window.location.search !== " + quotedPath + ") { " +
+                       "  if (window.history && window.history.pushState) { " +
+                       "    window.history.pushState({}, '', " + quotedPath + "); " +
+                       "    window.dispatchEvent(new PopStateEvent('popstate')); " +
+                       "  } else { " +
+                       "    window.location.href = " + quotedPath + "; " +
+                       "  } " +
+                       "}";
+            // Held until the web app's router has mounted; replaces any navigation still pending
+            String label = "navigate to " + path;
+            bridgeCommands.submit(COMMAND_NAVIGATION, () -> bridgeScripts.dispatch(label, js));
+            
+        } catch (Exception e) {
+            Log.e(TAG, "Error navigating to path: " + path, e);
+        }
+    }
+}
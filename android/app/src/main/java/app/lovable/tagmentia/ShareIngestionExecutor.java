@@ -0,0 +1,108 @@
+package app.lovable.tagmentia;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs share-intent extraction, file I/O and encoding on a dedicated background thread
+ * Only the final (small) result is posted back to the main looper. Submissions queue up and run
+ * one after another in arrival order - a share arriving while an earlier one is still being
+ * ingested never cancels it, the earlier share is already journaled and still has to be delivered
+ */
+final class ShareIngestionExecutor {
+    private static final String TAG = "ShareIngestion";
+
+    /**
+     * Background work producing a result for the main thread
+     */
+    interface Task<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * Receives the task result on the main thread
+     */
+    interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile boolean shutDown = false;
+
+    ShareIngestionExecutor() {
+        this("tagmentia-share-ingest");
+    }
+
+    /**
+     * @param threadName Name of the worker thread, for traces and logs
+     */
+    ShareIngestionExecutor(String threadName) {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a task behind the ones already submitted and deliver its result on the main thread
+     * A task that throws delivers null, so every submission gets exactly one callback until shutdown()
+     * Must be called from the main thread
+     */
+    <T> void submit(String label, Task<T> task, Callback<T> callback) {
+        if (shutDown) {
+            Log.w(TAG, "Ignoring share work submitted after shutdown: " + label);
+            return;
+        }
+        executor.execute(() -> {
+            long startedAt = System.nanoTime();
+            T result = null;
+            try {
+                result = task.run();
+                Log.d(TAG, "Share work finished: " + label + " in " + ((System.nanoTime() - startedAt) / 1_000_000) + "ms");
+            } catch (InterruptedException e) {
+                Log.d(TAG, "Share work interrupted: " + label);
+                return;
+            } catch (Exception e) {
+                Log.e(TAG, "Share work failed: " + label, e);
+            }
+
+            T delivered = result;
+            mainHandler.post(() -> {
+                // The owner may have gone away while this result was queued
+                if (!shutDown) {
+                    callback.onResult(delivered);
+                }
+            });
+        });
+    }
+
+    /**
+     * Interrupt in-flight work, drop queued work and undelivered results, and stop the worker thread
+     * (call from onDestroy)
+     */
+    void shutdown() {
+        shutDown = true;
+        mainHandler.removeCallbacksAndMessages(null);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Drop undelivered results but let the submitted work run to completion, then stop the worker thread
+     * For work that must not be cut short when its owner goes away (call from onDestroy)
+     */
+    void shutdownAfterSubmitted() {
+        shutDown = true;
+        mainHandler.removeCallbacksAndMessages(null);
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,301 @@
+package app.lovable.tagmentia;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Measures how long a share takes from the intent to the web app taking it over
+ *
+ * Each share intent opens a trace; the pipeline marks stages on it as it goes (on whatever thread
+ * reaches them) and the web app's acknowledgement closes it. Every stage is recorded as the time
+ * since the intent arrived, in a per-stage histogram split by start type - cold when the share
+ * launched the activity, warm when it was already running - so release-to-release regressions in
+ * either show up separately. Closed traces are appended to a small rotating log file as well.
+ *
+ * Plain Java with no Android dependencies so it can be unit tested; MainActivity adds the
+ * android.os.Trace sections around the same stages
+ */
+final class ShareLatencyTracker {
+    static final String LOG_FILE = "share_latency.log";
+    static final long MAX_LOG_BYTES = 64 * 1024; // Rotated to LOG_FILE.1 beyond this
+    static final int MAX_SAMPLES = 256; // Per histogram - the most recent ones
+    static final int MAX_OPEN_TRACES = 32;
+
+    /**
+     * Points of the share pipeline, in order (INTENT_RECEIVED is the origin of every trace)
+     */
+    enum Stage {
+        INTENT_RECEIVED("intent_received"),
+        URL_EXTRACTED("url_extracted"),
+        IMAGE_INGESTED("image_ingested"),
+        WEBVIEW_READY("webview_ready"),
+        DISPATCHED("dispatched"),
+        ACKNOWLEDGED("acknowledged");
+
+        final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * One share on its way through the pipeline
+     */
+    static final class Trace {
+        final int id;
+        final boolean coldStart;
+        final long startNanos;
+        private final Map<Stage, Long> stageMs = new EnumMap<>(Stage.class); // Guarded by the tracker
+        private String shareId;
+
+        Trace(int id, boolean coldStart, long startNanos) {
+            this.id = id;
+            this.coldStart = coldStart;
+            this.startNanos = startNanos;
+        }
+
+        String startType() {
+            return coldStart ? "cold" : "warm";
+        }
+    }
+
+    /**
+     * Latency percentiles of one stage and start type, in milliseconds since the intent
+     */
+    static final class Summary {
+        final int count;
+        final long p50;
+        final long p95;
+        final long p99;
+        final long max;
+
+        Summary(int count, long p50, long p95, long p99, long max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.max = max;
+        }
+    }
+
+    private static ShareLatencyTracker instance;
+
+    private final File logFile;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tagmentia-latency-log");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private int nextId;
+    private final LinkedHashMap<Integer, Trace> open = new LinkedHashMap<>();
+    private final Map<String, Histogram> histograms = new TreeMap<>();
+
+    /**
+     * @param logFile Where closed traces are appended, or null to keep them in memory only
+     */
+    ShareLatencyTracker(File logFile) {
+        this.logFile = logFile;
+    }
+
+    /**
+     * Process-wide tracker logging under the given directory
+     */
+    static synchronized ShareLatencyTracker getInstance(File directory) {
+        if (instance == null) {
+            instance = new ShareLatencyTracker(new File(directory, LOG_FILE));
+        }
+        return instance;
+    }
+
+    /**
+     * Open a trace for a share intent that just arrived
+     * @param coldStart The intent launched the activity (as opposed to reaching a running one)
+     */
+    Trace begin(boolean coldStart) {
+        return begin(coldStart, System.nanoTime());
+    }
+
+    synchronized Trace begin(boolean coldStart, long nowNanos) {
+        Trace trace = new Trace(++nextId, coldStart, nowNanos);
+        trace.stageMs.put(Stage.INTENT_RECEIVED, 0L);
+        open.put(trace.id, trace);
+        // Traces of shares that never made it (no URL, failed ingestion) would otherwise pile up
+        Iterator<Trace> oldest = open.values().iterator();
+        while (open.size() > MAX_OPEN_TRACES) {
+            oldest.next();
+            oldest.remove();
+        }
+        return trace;
+    }
+
+    void mark(Trace trace, Stage stage) {
+        mark(trace, stage, System.nanoTime());
+    }
+
+    /**
+     * Record that a trace reached a stage (only the first time counts)
+     */
+    synchronized void mark(Trace trace, Stage stage, long nowNanos) {
+        if (trace == null || trace.stageMs.containsKey(stage) || !open.containsKey(trace.id)) {
+            return;
+        }
+        long elapsedMs = Math.max(0, (nowNanos - trace.startNanos) / 1_000_000);
+        trace.stageMs.put(stage, elapsedMs);
+        histogram(stage, trace).add(elapsedMs);
+    }
+
+    void mark(String shareId, Stage stage) {
+        mark(traceFor(shareId), stage, System.nanoTime());
+    }
+
+    /**
+     * Mark every open trace that hasn't seen the stage yet (e.g. WEBVIEW_READY during a cold start)
+     */
+    void markOpen(Stage stage) {
+        long now = System.nanoTime();
+        Trace[] traces;
+        synchronized (this) {
+            traces = open.values().toArray(new Trace[0]);
+        }
+        for (Trace trace : traces) {
+            mark(trace, stage, now);
+        }
+    }
+
+    /**
+     * Tie a trace to the journaled share it produced, so later stages can find it by share id
+     */
+    synchronized void attach(Trace trace, String shareId) {
+        if (trace != null) {
+            trace.shareId = shareId;
+        }
+    }
+
+    Trace finish(String shareId) {
+        return finish(shareId, System.nanoTime());
+    }
+
+    /**
+     * Close the trace of an acknowledged share and append it to the log
+     * @return the closed trace, or null for shares replayed from an earlier process (they have none)
+     */
+    Trace finish(String shareId, long nowNanos) {
+        Trace trace;
+        String line;
+        synchronized (this) {
+            trace = traceFor(shareId);
+            if (trace == null) {
+                return null;
+            }
+            mark(trace, Stage.ACKNOWLEDGED, nowNanos);
+            open.remove(trace.id);
+            line = toLogLine(trace);
+        }
+        if (logFile != null) {
+            writer.execute(() -> append(line));
+        }
+        return trace;
+    }
+
+    /**
+     * Percentiles per "<start type>.<stage>" key, e.g. "cold.acknowledged"
+     */
+    synchronized Map<String, Summary> summaries() {
+        Map<String, Summary> summaries = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            summaries.put(entry.getKey(), entry.getValue().summary());
+        }
+        return summaries;
+    }
+
+    private synchronized Trace traceFor(String shareId) {
+        if (shareId == null) {
+            return null;
+        }
+        for (Trace trace : open.values()) {
+            if (shareId.equals(trace.shareId)) {
+                return trace;
+            }
+        }
+        return null;
+    }
+
+    private Histogram histogram(Stage stage, Trace trace) {
+        String key = trace.startType() + "." + stage.label;
+        Histogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = new Histogram();
+            histograms.put(key, histogram);
+        }
+        return histogram;
+    }
+
+    private static String toLogLine(Trace trace) {
+        StringBuilder line = new StringBuilder("{\"at\":").append(System.currentTimeMillis())
+            .append(",\"start\":\"").append(trace.startType()).append('"');
+        for (Map.Entry<Stage, Long> stage : trace.stageMs.entrySet()) {
+            line.append(",\"").append(stage.getKey().label).append("\":").append(stage.getValue());
+        }
+        return line.append("}\n").toString();
+    }
+
+    /**
+     * Append one line, rotating the file first when it has grown past MAX_LOG_BYTES (writer thread)
+     */
+    private void append(String line) {
+        if (logFile.length() > MAX_LOG_BYTES) {
+            File rotated = new File(logFile.getPath() + ".1");
+            rotated.delete();
+            logFile.renameTo(rotated);
+        }
+        try (OutputStream out = new FileOutputStream(logFile, true)) {
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Diagnostics only - the in-memory histograms still have the sample
+        }
+    }
+
+    /**
+     * The most recent MAX_SAMPLES values in a ring, percentiles by nearest rank
+     */
+    private static final class Histogram {
+        private final long[] samples = new long[MAX_SAMPLES];
+        private int count;
+        private int next;
+
+        void add(long value) {
+            samples[next] = value;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        Summary summary() {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return new Summary(count, percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                count > 0 ? sorted[count - 1] : 0);
+        }
+
+        private static long percentile(long[] sorted, int percent) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+    }
+}
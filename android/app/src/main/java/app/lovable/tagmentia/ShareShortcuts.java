@@ -0,0 +1,157 @@
+package app.lovable.tagmentia;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.core.content.pm.ShortcutInfoCompat;
+import androidx.core.content.pm.ShortcutManagerCompat;
+import androidx.core.graphics.drawable.IconCompat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes Direct Share targets for the categories the user is most likely to save to
+ *
+ * One long-lived dynamic shortcut per category, ranked by CategoryCache from the cached category
+ * list and local usage, and tagged with the share-target category of res/xml/shortcuts.xml. A share
+ * aimed at one reaches QuickSaveActivity with the shortcut ID, which names the category - so the
+ * link is saved without the category picker or a request for the category list. From the
+ * launcher the same shortcut opens the category.
+ *
+ * Ranking and publishing run on a background thread; refreshes requested while one is waiting are
+ * coalesced, and the shortcuts are only republished when the ranked set actually changed
+ */
+final class ShareShortcuts {
+    private static final String TAG = "ShareShortcuts";
+
+    // The share-target category in res/xml/shortcuts.xml
+    static final String SHARE_CATEGORY = "app.lovable.tagmentia.category.SAVE_TO_CATEGORY";
+    static final int MAX_TARGETS = 4;
+    private static final String ID_PREFIX = "category:";
+
+    private static ShareShortcuts instance;
+
+    private final Context context;
+    private final CategoryCache categories;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "tagmentia-shortcuts");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    // IDs and labels of the published shortcuts, in rank order (shortcut thread only)
+    private String published;
+
+    private ShareShortcuts(Context context, CategoryCache categories) {
+        this.context = context;
+        this.categories = categories;
+    }
+
+    /**
+     * Process-wide publisher, so refreshes from the plugin and QuickSaveActivity coalesce
+     */
+    static synchronized ShareShortcuts getInstance(Context context) {
+        if (instance == null) {
+            Context application = context.getApplicationContext();
+            instance = new ShareShortcuts(application, CategoryCache.getInstance(application.getFilesDir()));
+        }
+        return instance;
+    }
+
+    /**
+     * The category a Direct Share shortcut stands for
+     * @param shortcutId EXTRA_SHORTCUT_ID of a share intent, may be null
+     * @return the category ID, or null if the share wasn't aimed at one of these shortcuts
+     */
+    static String categoryIdOf(String shortcutId) {
+        if (shortcutId == null || !shortcutId.startsWith(ID_PREFIX) || shortcutId.length() == ID_PREFIX.length()) {
+            return null;
+        }
+        return shortcutId.substring(ID_PREFIX.length());
+    }
+
+    /**
+     * Re-rank the categories and republish the shortcuts if the top ones changed (any thread)
+     */
+    void refresh() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                refreshQueued.set(false);
+                publish();
+            });
+        }
+    }
+
+    /**
+     * Tell the system a shortcut was shared to, which it uses to rank Direct Share targets (any thread)
+     */
+    void reportUsed(String categoryId) {
+        executor.execute(() -> ShortcutManagerCompat.reportShortcutUsed(context, ID_PREFIX + categoryId));
+    }
+
+    /**
+     * Withdraw every shortcut, e.g. on sign-out (any thread)
+     */
+    void clear() {
+        executor.execute(() -> {
+            ShortcutManagerCompat.removeAllDynamicShortcuts(context);
+            published = null;
+        });
+    }
+
+    /**
+     * Publish the top-ranked categories as sharing shortcuts (shortcut thread)
+     */
+    private void publish() {
+        int limit = Math.min(MAX_TARGETS, ShortcutManagerCompat.getMaxShortcutCountPerActivity(context));
+        List<CategoryCache.Category> top = categories.ranked(limit);
+        StringBuilder signature = new StringBuilder();
+        for (CategoryCache.Category category : top) {
+            signature.append(category.id).append('\u0000').append(category.name).append('\u0000');
+        }
+        if (signature.toString().equals(published)) {
+            return;
+        }
+
+        List<ShortcutInfoCompat> shortcuts = new ArrayList<>();
+        for (int rank = 0; rank < top.size(); rank++) {
+            CategoryCache.Category category = top.get(rank);
+            String label = category.name != null && !category.name.isEmpty()
+                ? category.name : context.getString(R.string.app_name);
+            shortcuts.add(new ShortcutInfoCompat.Builder(context, ID_PREFIX + category.id)
+                .setShortLabel(label)
+                .setLongLabel(context.getString(R.string.share_shortcut_long_label, label))
+                .setIcon(IconCompat.createWithResource(context, R.mipmap.ic_launcher))
+                // Opening it from the launcher shows the category (see DeepLinkRouter)
+                .setIntent(new Intent(Intent.ACTION_VIEW,
+                    Uri.parse("https://tagmentia.com/category/" + Uri.encode(category.id)))
+                    .setClass(context, MainActivity.class))
+                .setCategories(Collections.singleton(SHARE_CATEGORY))
+                .setLongLived(true)
+                .setRank(rank)
+                .build());
+        }
+        try {
+            if (ShortcutManagerCompat.setDynamicShortcuts(context, shortcuts)) {
+                published = signature.toString();
+                Log.d(TAG, "Published " + shortcuts.size() + " share shortcut(s)");
+            } else {
+                // Rate-limited while in the background - the next refresh tries again
+                Log.w(TAG, "Share shortcuts not published (rate-limited)");
+            }
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Could not publish share shortcuts", e);
+        }
+    }
+}
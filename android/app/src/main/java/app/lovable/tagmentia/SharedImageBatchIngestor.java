@@ -0,0 +1,172 @@
+package app.lovable.tagmentia;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingests every image of an ACTION_SEND_MULTIPLE share concurrently
+ * Copies run on a pool sized to the device's cores, and a byte budget caps how much
+ * data may be in flight at once so large bursts stay memory- and I/O-bounded
+ *
+ * The same image shared twice in one batch resolves to the same content-addressed files, so
+ * compression is serialized per hash: the first item compresses, the next one reuses its output
+ */
+final class SharedImageBatchIngestor {
+    private static final String TAG = "SharedImageBatch";
+
+    static final long MAX_BYTES_IN_FLIGHT = 64L * 1024 * 1024;
+    private static final long UNKNOWN_SIZE_ESTIMATE = 8L * 1024 * 1024; // Charged when the provider reports no size
+    private static final int BUDGET_UNIT = 1024; // Semaphore permits are counted in KiB
+
+    /**
+     * Receives per-item progress on the worker thread that finished the item
+     */
+    interface ProgressListener {
+        /**
+         * @param image The ingested image, or null if this item failed
+         */
+        void onItemFinished(int index, int completed, int total, SharedImageIngestor.SharedImage image);
+    }
+
+    /**
+     * Outcome of a batch - successful images in share order plus the failure count
+     */
+    static final class Result {
+        final List<SharedImageIngestor.SharedImage> images;
+        final int failed;
+
+        Result(List<SharedImageIngestor.SharedImage> images, int failed) {
+            this.images = images;
+            this.failed = failed;
+        }
+    }
+
+    private final ContentResolver resolver;
+    private final SharedImageIngestor ingestor;
+    private final SharedImageCompressor compressor;
+    private final Semaphore byteBudget = new Semaphore((int) (MAX_BYTES_IN_FLIGHT / BUDGET_UNIT), true);
+    // One lock per SHA-256 seen in the batch, held around compression
+    private final ConcurrentHashMap<String, Object> hashLocks = new ConcurrentHashMap<>();
+
+    /**
+     * @param compressor Optional compression stage applied to every image after its copy, or null
+     */
+    SharedImageBatchIngestor(ContentResolver resolver, SharedImageIngestor ingestor, SharedImageCompressor compressor) {
+        this.resolver = resolver;
+        this.ingestor = ingestor;
+        this.compressor = compressor;
+    }
+
+    /**
+     * Pool size for batch copies - one worker per core, at least two
+     */
+    static int poolSize(int itemCount) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(itemCount, Math.max(2, cores)));
+    }
+
+    /**
+     * Ingest all URIs, blocking the calling (background) thread until the batch completes
+     * Interrupting the caller cancels every copy that has not finished yet
+     */
+    Result ingestAll(List<Uri> uris, ProgressListener listener) throws InterruptedException {
+        final int total = uris.size();
+        final AtomicInteger completed = new AtomicInteger();
+        int threads = poolSize(total);
+        ExecutorService pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "tagmentia-share-batch");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        List<Future<SharedImageIngestor.SharedImage>> futures = new ArrayList<>(total);
+        try {
+            for (int i = 0; i < total; i++) {
+                final int index = i;
+                final Uri uri = uris.get(i);
+                futures.add(pool.submit(() -> {
+                    SharedImageIngestor.SharedImage image = null;
+                    try {
+                        image = ingestWithinBudget(uri);
+                        return image;
+                    } finally {
+                        if (listener != null) {
+                            listener.onItemFinished(index, completed.incrementAndGet(), total, image);
+                        }
+                    }
+                }));
+            }
+
+            List<SharedImageIngestor.SharedImage> images = new ArrayList<>(total);
+            int failed = 0;
+            for (int i = 0; i < total; i++) {
+                try {
+                    images.add(futures.get(i).get());
+                } catch (ExecutionException | CancellationException e) {
+                    failed++;
+                    Log.e(TAG, "Failed to ingest shared image " + (i + 1) + "/" + total + ": " + uris.get(i), e.getCause() != null ? e.getCause() : e);
+                }
+            }
+            Log.d(TAG, "Batch ingested " + images.size() + "/" + total + " images on " + threads + " threads");
+            return new Result(images, failed);
+        } finally {
+            // On interruption this stops every copy still running or queued
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Copy (and compress) one image once the byte budget has room for it
+     */
+    private SharedImageIngestor.SharedImage ingestWithinBudget(Uri uri) throws Exception {
+        // A single item larger than the whole budget is charged the full budget, so it runs alone
+        long charged = Math.min(Math.max(estimateSize(uri), 1), MAX_BYTES_IN_FLIGHT);
+        int permits = (int) ((charged + BUDGET_UNIT - 1) / BUDGET_UNIT);
+        byteBudget.acquire(permits);
+        try {
+            SharedImageIngestor.SharedImage image = ingestor.ingest(uri);
+            if (compressor == null) {
+                return image;
+            }
+            synchronized (hashLocks.computeIfAbsent(image.sha256, hash -> new Object())) {
+                return compressor.compressOrKeep(image);
+            }
+        } finally {
+            byteBudget.release(permits);
+        }
+    }
+
+    /**
+     * Size reported by the content provider, or a conservative estimate if unknown
+     */
+    private long estimateSize(Uri uri) {
+        try (Cursor cursor = resolver.query(uri, new String[] { OpenableColumns.SIZE }, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                long size = cursor.getLong(0);
+                if (size > 0) {
+                    return size;
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Could not query size for URI: " + uri, e);
+        }
+        return UNKNOWN_SIZE_ESTIMATE;
+    }
+}
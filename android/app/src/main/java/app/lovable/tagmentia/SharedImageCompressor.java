@@ -0,0 +1,240 @@
+package app.lovable.tagmentia;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Native downscale and re-encode stage for shared screenshots
+ * Reads dimensions without decoding, decodes subsampled, applies EXIF orientation and
+ * re-encodes to WebP (or JPEG) so the web layer only ever receives an upload-ready file
+ * Must run off the main thread
+ */
+final class SharedImageCompressor {
+    private static final String TAG = "SharedImageCompressor";
+
+    /**
+     * Target size, quality and output format of the compression stage
+     */
+    static final class Config {
+        final int maxDimension;
+        final int quality;
+        final boolean webp;
+        final long skipBelowBytes;
+
+        /**
+         * @param maxDimension Longest edge of the output, in pixels
+         * @param quality Encoder quality, 0-100
+         * @param webp Encode to lossy WebP, otherwise JPEG
+         * @param skipBelowBytes Files this small that need no resize or rotation are kept as-is
+         */
+        Config(int maxDimension, int quality, boolean webp, long skipBelowBytes) {
+            this.maxDimension = maxDimension;
+            this.quality = quality;
+            this.webp = webp;
+            this.skipBelowBytes = skipBelowBytes;
+        }
+
+        /**
+         * Matches the web layer's imageCompression limits (1920px) and the upload-screenshot WebP policy
+         */
+        static Config defaults() {
+            return new Config(1920, 80, true, 200 * 1024);
+        }
+    }
+
+    private final Config config;
+
+    SharedImageCompressor(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * Compress, falling back to the original file if the stage fails for any reason
+     * (including running out of memory on a huge bitmap)
+     */
+    SharedImageIngestor.SharedImage compressOrKeep(SharedImageIngestor.SharedImage source) {
+        try {
+            return compress(source);
+        } catch (IOException | RuntimeException | OutOfMemoryError e) {
+            Log.e(TAG, "Compression failed, keeping original: " + source.file.getAbsolutePath(), e);
+            return source;
+        }
+    }
+
+    /**
+     * Downscale and re-encode an ingested image
+     * The original file is deleted when a smaller replacement is produced; animated GIFs,
+     * undecodable files and images that are already small enough are returned unchanged
+     */
+    SharedImageIngestor.SharedImage compress(SharedImageIngestor.SharedImage source) throws IOException {
+        if (source.mimeType.contains("gif")) {
+            return source; // Re-encoding would drop the animation
+        }
+
+        String path = source.file.getAbsolutePath();
+        // Content-addressed inputs give content-addressed outputs - a repeat share reuses the earlier result.
+        // Checked before reading the original, which the earlier compression may already have deleted
+        File outputFile = new File(source.file.getParentFile(), baseName(source.file) + "_c." + (config.webp ? "webp" : "jpg"));
+        if (SharedImageNames.isContentAddressed(outputFile.getName()) && outputFile.isFile()) {
+            if (source.file.exists() && !source.file.delete()) {
+                Log.w(TAG, "Failed to delete original of an already compressed image: " + path);
+            }
+            outputFile.setLastModified(System.currentTimeMillis());
+            Log.d(TAG, "Reusing compressed shared image " + outputFile.getName());
+            return new SharedImageIngestor.SharedImage(outputFile, config.webp ? "image/webp" : "image/jpeg",
+                outputFile.length(), source.sha256, true);
+        }
+
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(path, bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            Log.w(TAG, "Could not read image bounds, keeping original: " + path);
+            return source;
+        }
+
+        int rotation = readRotationDegrees(path, source.mimeType);
+        boolean oversized = Math.max(bounds.outWidth, bounds.outHeight) > config.maxDimension;
+        if (!oversized && rotation == 0 && source.size <= config.skipBelowBytes) {
+            return upToDate(source);
+        }
+
+        BitmapFactory.Options decode = new BitmapFactory.Options();
+        decode.inSampleSize = calculateInSampleSize(bounds.outWidth, bounds.outHeight, config.maxDimension);
+        Bitmap decoded = BitmapFactory.decodeFile(path, decode);
+        if (decoded == null) {
+            Log.w(TAG, "Could not decode image, keeping original: " + path);
+            return source;
+        }
+
+        Bitmap output = transform(decoded, rotation);
+        int outputWidth = output.getWidth();
+        int outputHeight = output.getHeight();
+        // Encode under a temporary name, so a half-written file never carries the content address
+        // (per thread, so two compressions of the same image never write into one file)
+        File tempFile = new File(outputFile.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tempFile), ChannelCopy.BUFFER_SIZE)) {
+            if (!output.compress(compressFormat(), config.quality, outputStream)) {
+                throw new IOException("Bitmap encoder failed for " + path);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (tempFile.exists() && !tempFile.delete()) {
+                Log.w(TAG, "Failed to delete partial output: " + tempFile.getAbsolutePath());
+            }
+            throw e;
+        } finally {
+            output.recycle();
+        }
+        if (!tempFile.renameTo(outputFile)) {
+            tempFile.delete();
+            throw new IOException("Failed to store compressed image as " + outputFile.getAbsolutePath());
+        }
+
+        long outputSize = outputFile.length();
+        if (!oversized && rotation == 0 && outputSize >= source.size) {
+            // Re-encoding didn't pay off - keep the original bytes
+            if (!outputFile.delete()) {
+                Log.w(TAG, "Failed to delete unused output: " + outputFile.getAbsolutePath());
+            }
+            return upToDate(source);
+        }
+
+        if (!source.file.delete()) {
+            Log.w(TAG, "Failed to delete original after compression: " + path);
+        }
+        Log.d(TAG, "Compressed shared image " + bounds.outWidth + "x" + bounds.outHeight + " (" + source.size + " bytes) -> "
+            + outputWidth + "x" + outputHeight
+            + " (" + outputSize + " bytes), sample " + decode.inSampleSize + ", rotation " + rotation);
+        return new SharedImageIngestor.SharedImage(outputFile, config.webp ? "image/webp" : "image/jpeg", outputSize, source.sha256, true);
+    }
+
+    /**
+     * Largest power-of-two subsampling that keeps the longest edge at or above the target
+     * The remainder is scaled precisely in transform(), so decode memory is at most ~4x the output
+     */
+    static int calculateInSampleSize(int width, int height, int maxDimension) {
+        int longestEdge = Math.max(width, height);
+        int inSampleSize = 1;
+        while (longestEdge / (inSampleSize * 2) >= maxDimension) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * Scale to the target size and apply the EXIF rotation in one pass
+     * Recycles the input when a new bitmap is produced
+     */
+    private Bitmap transform(Bitmap bitmap, int rotation) {
+        int longestEdge = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        float scale = longestEdge > config.maxDimension ? (float) config.maxDimension / longestEdge : 1f;
+        if (scale == 1f && rotation == 0) {
+            return bitmap;
+        }
+
+        Matrix matrix = new Matrix();
+        matrix.postScale(scale, scale);
+        matrix.postRotate(rotation);
+        Bitmap transformed = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (transformed != bitmap) {
+            bitmap.recycle();
+        }
+        return transformed;
+    }
+
+    /**
+     * Clockwise rotation the EXIF orientation tag asks for (JPEG/WebP only - screenshots carry none)
+     */
+    private static int readRotationDegrees(String path, String mimeType) {
+        if (!mimeType.contains("jpeg") && !mimeType.contains("jpg") && !mimeType.contains("webp")) {
+            return 0;
+        }
+        try {
+            int orientation = new ExifInterface(path).getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read EXIF orientation: " + path, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Mark an image that needs no re-encoding as upload-ready
+     */
+    private static SharedImageIngestor.SharedImage upToDate(SharedImageIngestor.SharedImage source) {
+        return new SharedImageIngestor.SharedImage(source.file, source.mimeType, source.size, source.sha256, true);
+    }
+
+    @SuppressWarnings("deprecation")
+    private Bitmap.CompressFormat compressFormat() {
+        if (!config.webp) {
+            return Bitmap.CompressFormat.JPEG;
+        }
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R ? Bitmap.CompressFormat.WEBP_LOSSY : Bitmap.CompressFormat.WEBP;
+    }
+
+    private static String baseName(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
@@ -0,0 +1,147 @@
+package app.lovable.tagmentia;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams shared images from a content:// (or file://) URI into the cache directory
+ * Bytes are moved through one fixed-size buffer (see ChannelCopy), so peak memory stays
+ * constant no matter how large the shared image is
+ *
+ * The store is content-addressed: the copy is hashed (SHA-256) on the way and the file is named
+ * after the hash, so sharing the same image again reuses the existing file instead of adding one
+ */
+final class SharedImageIngestor {
+    private static final String TAG = "SharedImageIngestor";
+
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * Result of a successful ingestion - a file reference the web layer can load directly
+     */
+    static final class SharedImage {
+        final File file;
+        final String mimeType;
+        final long size;
+        final String sha256; // Hex digest of the shared bytes (before compression)
+        final boolean compressed; // Already passed the native compression stage - upload-ready
+
+        SharedImage(File file, String mimeType, long size, String sha256) {
+            this(file, mimeType, size, sha256, false);
+        }
+
+        SharedImage(File file, String mimeType, long size, String sha256, boolean compressed) {
+            this.file = file;
+            this.mimeType = mimeType;
+            this.size = size;
+            this.sha256 = sha256;
+            this.compressed = compressed;
+        }
+    }
+
+    private final ContentResolver resolver;
+    private final File targetDir;
+
+    SharedImageIngestor(ContentResolver resolver, File targetDir) {
+        this.resolver = resolver;
+        this.targetDir = targetDir;
+    }
+
+    /**
+     * Copy the image behind the given URI into the target directory, or reuse the stored copy of the same bytes
+     * @throws IOException if the source cannot be opened or the copy fails
+     */
+    SharedImage ingest(Uri uri) throws IOException {
+        String mimeType = resolveMimeType(uri);
+        // The hash is only known once every byte is read, so copy to a temporary name first
+        // (the sequence keeps names unique when a batch copies several images within the same millisecond)
+        File tempFile = new File(targetDir, SharedImageNames.TEMP_PREFIX + System.currentTimeMillis() + "_" + sequence.incrementAndGet() + ".tmp");
+        MessageDigest digest = newDigest();
+
+        long copied;
+        try (ParcelFileDescriptor descriptor = resolver.openFileDescriptor(uri, "r")) {
+            if (descriptor == null) {
+                throw new IOException("Failed to open file descriptor for URI: " + uri);
+            }
+            try (FileInputStream inputStream = new FileInputStream(descriptor.getFileDescriptor());
+                 FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+                copied = ChannelCopy.copyAndDigest(inputStream.getChannel(), outputStream.getChannel(), digest);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Don't leave half-written files behind in the cache directory
+            discard(tempFile);
+            throw e;
+        }
+
+        String sha256 = ChannelCopy.toHex(digest.digest());
+        File imageFile = new File(targetDir, SharedImageNames.FILE_PREFIX + sha256 + "." + extensionFor(mimeType));
+        if (imageFile.isFile() && imageFile.length() == copied) {
+            // Seen before - keep the stored copy, and mark it recently used for SharedMediaCache
+            discard(tempFile);
+            imageFile.setLastModified(System.currentTimeMillis());
+            Log.d(TAG, "Shared image already stored as " + imageFile.getName() + " - Size: " + copied + " bytes, MIME: " + mimeType);
+            return new SharedImage(imageFile, mimeType, copied, sha256);
+        }
+        if (!tempFile.renameTo(imageFile)) {
+            discard(tempFile);
+            throw new IOException("Failed to store shared image as " + imageFile.getAbsolutePath());
+        }
+
+        Log.d(TAG, "Streamed shared image to " + imageFile.getAbsolutePath() + " - Size: " + copied + " bytes, MIME: " + mimeType);
+        return new SharedImage(imageFile, mimeType, copied, sha256);
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e); // Required on every Android/Java platform
+        }
+    }
+
+    private static void discard(File file) {
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Failed to delete partial image file: " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Determine the MIME type of the shared image, defaulting to PNG when unknown
+     */
+    private String resolveMimeType(Uri uri) {
+        String mimeType = null;
+        try {
+            mimeType = resolver.getType(uri);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not resolve MIME type for URI: " + uri, e);
+        }
+        if (mimeType == null || !mimeType.startsWith("image/")) {
+            mimeType = "image/png";
+        }
+        return mimeType;
+    }
+
+    /**
+     * Determine file extension from MIME type
+     */
+    static String extensionFor(String mimeType) {
+        if (mimeType.contains("jpeg") || mimeType.contains("jpg")) {
+            return "jpg";
+        } else if (mimeType.contains("gif")) {
+            return "gif";
+        } else if (mimeType.contains("webp")) {
+            return "webp";
+        }
+        return "png";
+    }
+}
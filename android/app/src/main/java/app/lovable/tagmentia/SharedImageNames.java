@@ -0,0 +1,29 @@
+package app.lovable.tagmentia;
+
+import java.util.regex.Pattern;
+
+/**
+ * Names of the shared image files the share pipeline writes into the cache directory
+ * SharedImageIngestor and SharedImageCompressor create them; SharedMediaServer, SharedMediaCache
+ * and ScreenshotUploadBatch only recognize them
+ *
+ * Plain Java with no Android dependencies so it can be unit tested on the JVM
+ */
+final class SharedImageNames {
+    static final String FILE_PREFIX = "shared_image_";
+    // Still under FILE_PREFIX, so SharedMediaCache cleans up copies a killed process left behind
+    static final String TEMP_PREFIX = FILE_PREFIX + "ingest_";
+    // shared_image_<sha256>.<ext>, plus the compression stage's shared_image_<sha256>_c.<ext>
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile(FILE_PREFIX + "[0-9a-f]{64}(_c)?\\.[a-z]+");
+
+    private SharedImageNames() {
+    }
+
+    /**
+     * Check if a file name is a content address (the hash, not the share, determines it), so the
+     * file may be referenced by several shares at once
+     */
+    static boolean isContentAddressed(String name) {
+        return CONTENT_ADDRESSED.matcher(name).matches();
+    }
+}
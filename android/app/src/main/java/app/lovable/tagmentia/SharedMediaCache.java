@@ -0,0 +1,133 @@
+package app.lovable.tagmentia;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the shared_image_* files in the cache directory within a byte budget
+ *
+ * Nothing else deletes them once a share is done with, so without this they pile up until the OS
+ * clears the whole cache directory - WebView caches included. A trim pass deletes files past
+ * MAX_AGE_MS, then the least recently used ones (by modification time, which SharedMediaServer
+ * refreshes on every read) until the directory fits the budget. Files referenced by shares the
+ * web app hasn't acknowledged are pinned, and files younger than MIN_AGE_MS are never touched,
+ * since the add form may still be showing an acknowledged share's image.
+ *
+ * Plain Java with no Android dependencies so it can be unit tested
+ */
+final class SharedMediaCache {
+    static final long MAX_AGE_MS = 7L * 24 * 60 * 60 * 1000;
+    static final long MIN_AGE_MS = 60L * 60 * 1000;
+
+    /**
+     * Snapshot for diagnostics - current usage plus evictions since process start
+     */
+    static final class Stats {
+        final int entries;
+        final long bytes;
+        final long maxBytes;
+        final int evictedEntries;
+        final long evictedBytes;
+        final long lastTrimAt; // 0 until the first trim pass
+
+        Stats(int entries, long bytes, long maxBytes, int evictedEntries, long evictedBytes, long lastTrimAt) {
+            this.entries = entries;
+            this.bytes = bytes;
+            this.maxBytes = maxBytes;
+            this.evictedEntries = evictedEntries;
+            this.evictedBytes = evictedBytes;
+            this.lastTrimAt = lastTrimAt;
+        }
+    }
+
+    private static SharedMediaCache instance;
+
+    private final File directory;
+    private final long maxBytes;
+    private final long maxAgeMs;
+    private final long minAgeMs;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tagmentia-media-trim");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private int evictedEntries;
+    private long evictedBytes;
+    private long lastTrimAt;
+
+    SharedMediaCache(File directory, long maxBytes, long maxAgeMs, long minAgeMs) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxAgeMs = maxAgeMs;
+        this.minAgeMs = minAgeMs;
+    }
+
+    /**
+     * Process-wide cache - one owner per directory
+     */
+    static synchronized SharedMediaCache getInstance(File directory, long maxBytes) {
+        if (instance == null) {
+            instance = new SharedMediaCache(directory, maxBytes, MAX_AGE_MS, MIN_AGE_MS);
+        }
+        return instance;
+    }
+
+    /**
+     * Run a trim pass on the cache's background thread
+     * @param pinned Names of files that must survive (referenced by unacknowledged shares)
+     */
+    void trimAsync(Set<String> pinned) {
+        executor.execute(() -> trim(pinned, System.currentTimeMillis()));
+    }
+
+    /**
+     * Delete expired files, then the least recently used ones until the budget is met (blocking)
+     */
+    synchronized Stats trim(Set<String> pinned, long now) {
+        File[] files = listFiles();
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        int entries = files.length;
+        // Oldest first - the least recently used go before anything fresher
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            long age = now - file.lastModified();
+            if (pinned.contains(file.getName()) || age < minAgeMs || (age <= maxAgeMs && total <= maxBytes)) {
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+                entries--;
+                evictedEntries++;
+                evictedBytes += length;
+            }
+        }
+        lastTrimAt = now;
+        return new Stats(entries, total, maxBytes, evictedEntries, evictedBytes, lastTrimAt);
+    }
+
+    /**
+     * Current usage (scans the directory)
+     */
+    synchronized Stats stats() {
+        long total = 0;
+        File[] files = listFiles();
+        for (File file : files) {
+            total += file.length();
+        }
+        return new Stats(files.length, total, maxBytes, evictedEntries, evictedBytes, lastTrimAt);
+    }
+
+    private File[] listFiles() {
+        File[] files = directory.listFiles(file -> file.isFile() && file.getName().startsWith(SharedImageNames.FILE_PREFIX));
+        return files != null ? files : new File[0];
+    }
+}
@@ -0,0 +1,217 @@
+package app.lovable.tagmentia;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves ingested share files on the app's local origin under /_shared/<file name>
+ * <img> and fetch() read the file straight from disk, no data: URL or base64 copy is built,
+ * and single byte ranges are honoured so large files can be read piecewise
+ *
+ * Only files the share pipeline wrote (SharedImageNames.FILE_PREFIX, directly in the
+ * directory) are reachable; anything else under the prefix is a 404
+ * Plain Java with no Android dependencies so it can be unit tested
+ */
+final class SharedMediaServer {
+    static final String PATH_PREFIX = "/_shared/";
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final Map<String, String> MIME_TYPES = new HashMap<>();
+
+    static {
+        MIME_TYPES.put("jpg", "image/jpeg");
+        MIME_TYPES.put("jpeg", "image/jpeg");
+        MIME_TYPES.put("png", "image/png");
+        MIME_TYPES.put("webp", "image/webp");
+        MIME_TYPES.put("gif", "image/gif");
+        MIME_TYPES.put("heic", "image/heic");
+        MIME_TYPES.put("heif", "image/heif");
+        MIME_TYPES.put("bmp", "image/bmp");
+    }
+
+    /**
+     * What to answer the WebView with (status, headers and body map onto WebResourceResponse)
+     */
+    static final class Response {
+        final int status;
+        final String reason;
+        final String mimeType;
+        final Map<String, String> headers;
+        final InputStream body;
+
+        Response(int status, String reason, String mimeType, Map<String, String> headers, InputStream body) {
+            this.status = status;
+            this.reason = reason;
+            this.mimeType = mimeType;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+
+    private final File directory;
+
+    SharedMediaServer(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Path of a share file on the local origin, as handed to the web app in the image manifest
+     */
+    static String pathFor(File file) {
+        return PATH_PREFIX + file.getName();
+    }
+
+    /**
+     * Check if a request path belongs to this server
+     */
+    static boolean handles(String path) {
+        return path != null && path.startsWith(PATH_PREFIX);
+    }
+
+    /**
+     * Answer a GET for a path under PATH_PREFIX
+     * @param range The request's Range header, may be null; anything but a single byte range is ignored
+     */
+    Response serve(String path, String range) {
+        String name = handles(path) ? path.substring(PATH_PREFIX.length()) : "";
+        File file = fileFor(name);
+        if (file == null) {
+            return error(404, "Not Found", null);
+        }
+
+        long length = file.length();
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+        Matcher matcher = range != null ? RANGE.matcher(range.trim()) : null;
+        if (matcher != null && matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            try {
+                if (matcher.group(1).isEmpty()) {
+                    // Suffix range: the last N bytes
+                    long suffix = Long.parseLong(matcher.group(2));
+                    if (suffix == 0 || length == 0) {
+                        return error(416, "Range Not Satisfiable", "bytes */" + length);
+                    }
+                    start = Math.max(0, length - suffix);
+                } else {
+                    start = Long.parseLong(matcher.group(1));
+                    if (start >= length) {
+                        return error(416, "Range Not Satisfiable", "bytes */" + length);
+                    }
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, Long.parseLong(matcher.group(2)));
+                    }
+                }
+                partial = end >= start;
+                if (!partial) {
+                    start = 0;
+                    end = length - 1;
+                }
+            } catch (NumberFormatException e) {
+                // Absurdly long numbers - ignore the range like any other malformed one
+                start = 0;
+                end = length - 1;
+            }
+        }
+
+        InputStream body;
+        try {
+            FileInputStream in = new FileInputStream(file);
+            file.setLastModified(System.currentTimeMillis()); // Recency for SharedMediaCache's LRU
+            in.getChannel().position(start);
+            body = new BoundedInputStream(in, end - start + 1);
+        } catch (IOException e) {
+            return error(404, "Not Found", null);
+        }
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Accept-Ranges", "bytes");
+        headers.put("Content-Length", Long.toString(end - start + 1));
+        if (partial) {
+            headers.put("Content-Range", "bytes " + start + "-" + end + "/" + length);
+        }
+        return new Response(partial ? 206 : 200, partial ? "Partial Content" : "OK", mimeTypeOf(name), headers, body);
+    }
+
+    /**
+     * @return the share file with this name, or null if there is none (or the name reaches outside the directory)
+     */
+    File fileFor(String name) {
+        if (name == null || !NAME.matcher(name).matches() || !name.startsWith(SharedImageNames.FILE_PREFIX)) {
+            return null;
+        }
+        File file = new File(directory, name);
+        return file.isFile() ? file : null;
+    }
+
+    static String mimeTypeOf(String name) {
+        int dot = name.lastIndexOf('.');
+        String mimeType = dot >= 0 ? MIME_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT)) : null;
+        return mimeType != null ? mimeType : "application/octet-stream";
+    }
+
+    private static Response error(int status, String reason, String contentRange) {
+        Map<String, String> headers = new HashMap<>();
+        if (contentRange != null) {
+            headers.put("Content-Range", contentRange);
+        }
+        return new Response(status, reason, "text/plain", headers, new ByteArrayInputStream(new byte[0]));
+    }
+
+    /**
+     * Stops after the requested range, so a partial response never runs into the rest of the file
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(count, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package app.lovable.tagmentia;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites shared links to one canonical URL per video, so every share of the same video
+ * reaches save-shared-link / fetch-metadata with the same dedupe and cache key
+ * The canonical forms match the backend providers (supabase/functions/save-shared-link/providers),
+ * so canonicalizing a canonical URL again - natively or on the backend - is a no-op
+ *
+ * Platform rules live in the RULES table; links that match no rule keep their URL and only lose
+ * tracking parameters
+ *
+ * Plain Java with no Android dependencies so it can be unit tested and benchmarked on the JVM
+ */
+final class SharedUrlCanonicalizer {
+
+    /**
+     * A canonicalized link
+     */
+    static final class Result {
+        final String url;
+        final String platform; // youtube, tiktok, instagram, snapchat or loom; null for other sites
+        final String videoId;  // null if the link names no single video (profiles, short links)
+
+        Result(String url, String platform, String videoId) {
+            this.url = url;
+            this.platform = platform;
+            this.videoId = videoId;
+        }
+    }
+
+    /**
+     * One row of the rule table: links on these hosts whose path matches are rewritten to the template
+     */
+    private static final class Rule {
+        final String platform;
+        final Set<String> hosts;
+        final Pattern path;
+        final String idParam;       // Query parameter holding the video ID, or null if it is the path's last group
+        final boolean shortLink;    // The ID is a redirect code, not a video ID
+        final String template;      // {id}, {host} and {1}..{n} (path groups) are substituted
+        final String[] keptParams;  // Query parameters carried over to the canonical URL
+
+        Rule(String platform, Set<String> hosts, String path, String idParam, boolean shortLink, String template, String... keptParams) {
+            this.platform = platform;
+            this.hosts = hosts;
+            this.path = Pattern.compile(path);
+            this.idParam = idParam;
+            this.shortLink = shortLink;
+            this.template = template;
+            this.keptParams = keptParams;
+        }
+    }
+
+    // Same allowlist as the web layer (urlNormalization.ts) and the backend (providers/types.ts)
+    private static final Set<String> YOUTUBE_HOSTS = setOf("youtube.com", "www.youtube.com", "m.youtube.com");
+    private static final Set<String> YOUTUBE_SHORT_HOSTS = setOf("youtu.be");
+    private static final Set<String> TIKTOK_HOSTS = setOf("tiktok.com", "www.tiktok.com", "m.tiktok.com");
+    private static final Set<String> TIKTOK_SHORT_HOSTS = setOf("vm.tiktok.com", "vt.tiktok.com");
+    private static final Set<String> INSTAGRAM_HOSTS = setOf("instagram.com", "www.instagram.com", "m.instagram.com");
+    private static final Set<String> SNAPCHAT_HOSTS = setOf("snapchat.com", "www.snapchat.com");
+    private static final Set<String> SNAPCHAT_STORY_HOSTS = setOf("story.snapchat.com");
+    private static final Set<String> SNAPCHAT_SHORT_HOSTS = setOf("t.snapchat.com");
+    private static final Set<String> LOOM_HOSTS = setOf("loom.com", "www.loom.com");
+
+    private static final String YOUTUBE_WATCH = "https://www.youtube.com/watch?v={id}";
+    private static final String YOUTUBE_ID = "([A-Za-z0-9_-]{11})";
+
+    // First matching rule wins; short links only resolve server-side, so they keep their code and lose the tracking
+    private static final Rule[] RULES = {
+        //       platform     hosts                 path                                                          id param short  template                                  kept
+        new Rule("youtube",   YOUTUBE_HOSTS,        "/watch/?",                                                   "v",     false, YOUTUBE_WATCH,                            "t"),
+        new Rule("youtube",   YOUTUBE_HOSTS,        "/(?:shorts|embed|v|live)/" + YOUTUBE_ID + "(?:/.*)?",         null,    false, YOUTUBE_WATCH,                            "t"),
+        new Rule("youtube",   YOUTUBE_SHORT_HOSTS,  "/" + YOUTUBE_ID + "/?",                                      null,    false, YOUTUBE_WATCH,                            "t"),
+        new Rule("tiktok",    TIKTOK_HOSTS,         "/(@[^/]+)/video/(\\d+)(?:/.*)?",                             null,    false, "https://www.tiktok.com/{1}/video/{id}"),
+        new Rule("tiktok",    TIKTOK_SHORT_HOSTS,   "/([A-Za-z0-9]+)/?",                                          null,    true,  "https://{host}/{id}/"),
+        new Rule("instagram", INSTAGRAM_HOSTS,      "(?:/[^/]+)?/reels?/([A-Za-z0-9_-]+)(?:/.*)?",                null,    false, "https://www.instagram.com/reel/{id}/"),
+        new Rule("instagram", INSTAGRAM_HOSTS,      "(?:/[^/]+)?/(?:p|tv)/([A-Za-z0-9_-]+)(?:/.*)?",              null,    false, "https://www.instagram.com/p/{id}/"),
+        new Rule("snapchat",  SNAPCHAT_HOSTS,       "/spotlight/([A-Za-z0-9_-]+)/?",                              null,    false, "https://www.snapchat.com/spotlight/{id}"),
+        new Rule("snapchat",  SNAPCHAT_STORY_HOSTS, "/p/([A-Za-z0-9_-]+)/?",                                      null,    false, "https://story.snapchat.com/p/{id}"),
+        new Rule("snapchat",  SNAPCHAT_SHORT_HOSTS, "/([A-Za-z0-9_-]+)/?",                                        null,    true,  "https://t.snapchat.com/{id}"),
+        new Rule("loom",      LOOM_HOSTS,           "/(?:share|embed)/([A-Za-z0-9_-]+)(?:/.*)?",                  null,    false, "https://www.loom.com/share/{id}"),
+    };
+    private static final Pattern VIDEO_ID = Pattern.compile("[A-Za-z0-9_-]+");
+
+    // Dropped from every link
+    private static final Set<String> TRACKING_PARAMS = setOf(
+        "fbclid", "gclid", "dclid", "msclkid", "igshid", "igsh", "mc_cid", "mc_eid");
+    private static final String TRACKING_PARAM_PREFIX = "utm_";
+    // Additionally dropped from supported-platform links that match no rule (profiles, playlists, ...)
+    private static final Set<String> PLATFORM_TRACKING_PARAMS = setOf(
+        "si", "feature", "pp", "app", "_r", "_t", "is_from_webapp", "sender_device", "share_app_id",
+        "share_item_id", "share_link_id", "sharer_language", "source", "ref", "ref_src");
+
+    private SharedUrlCanonicalizer() {
+    }
+
+    /**
+     * Canonicalize an http(s) URL
+     * @return the canonical link, or null if the input is not an http(s) URL
+     */
+    static Result canonicalize(String url) {
+        if (!SharedUrlExtractor.isHttpUrl(url)) {
+            return null;
+        }
+        DeepLinkRouter.Parts parts = DeepLinkRouter.parse(url);
+        if (!parts.hierarchical || parts.host == null) {
+            return new Result(url, null, null);
+        }
+
+        String host = parts.host.toLowerCase(Locale.ROOT);
+        String path = parts.path.isEmpty() ? "/" : parts.path;
+        String platform = null;
+        for (Rule rule : RULES) {
+            if (!rule.hosts.contains(host)) {
+                continue;
+            }
+            platform = rule.platform;
+            Matcher matcher = rule.path.matcher(path);
+            if (!matcher.matches()) {
+                continue;
+            }
+            String videoId = rule.idParam != null
+                ? parts.queryParameter(rule.idParam)
+                : matcher.group(matcher.groupCount());
+            if (videoId == null || !VIDEO_ID.matcher(videoId).matches()) {
+                continue;
+            }
+            return new Result(expand(rule, matcher, host, videoId, parts.encodedQuery), rule.platform, rule.shortLink ? null : videoId);
+        }
+
+        return new Result(stripTrackingParams(url, platform != null), platform, null);
+    }
+
+    /**
+     * Fill in the rule's template and append the parameters it keeps, in their original encoding
+     */
+    private static String expand(Rule rule, Matcher matcher, String host, String videoId, String encodedQuery) {
+        String canonical = rule.template.replace("{id}", videoId).replace("{host}", host);
+        for (int group = 1; group < matcher.groupCount(); group++) {
+            canonical = canonical.replace("{" + group + "}", matcher.group(group));
+        }
+        if (encodedQuery == null || rule.keptParams.length == 0) {
+            return canonical;
+        }
+
+        StringBuilder result = new StringBuilder(canonical);
+        boolean hasQuery = canonical.indexOf('?') >= 0;
+        for (String kept : rule.keptParams) {
+            String pair = findParam(encodedQuery, kept);
+            if (pair != null) {
+                result.append(hasQuery ? '&' : '?').append(pair);
+                hasQuery = true;
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Raw "name=value" pair of the first non-empty parameter with the given name, or null
+     */
+    private static String findParam(String encodedQuery, String name) {
+        int start = 0;
+        while (start < encodedQuery.length()) {
+            int end = encodedQuery.indexOf('&', start);
+            if (end < 0) {
+                end = encodedQuery.length();
+            }
+            if (encodedQuery.startsWith(name + "=", start) && end > start + name.length() + 1) {
+                return encodedQuery.substring(start, end);
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Remove tracking parameters from the query, leaving the rest of the URL untouched
+     */
+    static String stripTrackingParams(String url, boolean supportedPlatform) {
+        int fragmentStart = url.indexOf('#');
+        int queryEnd = fragmentStart < 0 ? url.length() : fragmentStart;
+        int queryStart = url.indexOf('?');
+        if (queryStart < 0 || queryStart > queryEnd) {
+            return url;
+        }
+
+        StringBuilder kept = new StringBuilder();
+        int start = queryStart + 1;
+        while (start <= queryEnd) {
+            int end = url.indexOf('&', start);
+            if (end < 0 || end > queryEnd) {
+                end = queryEnd;
+            }
+            int separator = url.indexOf('=', start);
+            String name = url.substring(start, separator < 0 || separator > end ? end : separator);
+            boolean tracking = name.isEmpty()
+                || TRACKING_PARAMS.contains(name)
+                || name.startsWith(TRACKING_PARAM_PREFIX)
+                || (supportedPlatform && PLATFORM_TRACKING_PARAMS.contains(name));
+            if (!tracking) {
+                kept.append(kept.length() == 0 ? '?' : '&').append(url, start, end);
+            }
+            start = end + 1;
+        }
+        return url.substring(0, queryStart) + kept + url.substring(queryEnd);
+    }
+
+    private static Set<String> setOf(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,205 @@
+package app.lovable.tagmentia;
+
+/**
+ * Finds the URL to save in text shared from other apps
+ * One left-to-right scan over the text visits every candidate (http(s):// or www. prefixes and
+ * bare domains like youtu.be/x), ranks it, and stops at the first best-ranked one. No regexes and
+ * no intermediate strings - the only allocation is the returned URL
+ *
+ * Ranking, best first - within a rank the earliest candidate in the text wins:
+ *   0. http(s):// URLs, www. hosts and bare links to a supported service (YouTube, TikTok,
+ *      Instagram, Snapchat, Loom)
+ *   1. Supported-service links with unusual casing (YouTube.com/..., HTTPS://...)
+ *   2. Subdomains of a supported service on another TLD (m.youtube.net/...)
+ *
+ * Plain Java with no Android dependencies so it can be unit tested and benchmarked on the JVM
+ */
+final class SharedUrlExtractor {
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_CASE_INSENSITIVE = 1;
+    private static final int RANK_OTHER_TLD = 2;
+    private static final int NOT_A_URL = Integer.MAX_VALUE;
+
+    private static final String HTTP = "http://";
+    private static final String HTTPS = "https://";
+    private static final String WWW = "www.";
+
+    // Bare domains of these hosts are upgraded to https:// links
+    private static final String[] SUPPORTED_HOSTS = {
+        "youtube.com", "youtu.be", "tiktok.com", "instagram.com", "snapchat.com", "loom.com"
+    };
+    private static final String[] SUPPORTED_SERVICES = { "youtube", "youtu", "tiktok", "instagram", "snapchat", "loom" };
+    private static final String[] SERVICE_TLDS = { "com", "be", "net", "org" };
+
+    private SharedUrlExtractor() {
+    }
+
+    /**
+     * Extract the best URL from shared text
+     * @return an http(s) URL, or null if the text contains none
+     */
+    static String extract(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+
+        int length = text.length();
+        int bestRank = NOT_A_URL;
+        int bestStart = -1;
+        int bestEnd = -1;
+
+        int position = 0;
+        while (position < length) {
+            // Candidates never span whitespace, so every token is scanned exactly once
+            while (position < length && isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            int tokenEnd = position;
+            while (tokenEnd < length && !isWhitespace(text.charAt(tokenEnd))) {
+                tokenEnd++;
+            }
+
+            int start = findCandidateStart(text, position, tokenEnd);
+            if (start >= 0) {
+                int end = trimTrailingPunctuation(text, start, tokenEnd);
+                int rank = rank(text, start, end);
+                if (rank < bestRank) {
+                    bestRank = rank;
+                    bestStart = start;
+                    bestEnd = end;
+                    if (rank == RANK_EXACT) {
+                        break;
+                    }
+                }
+            }
+            position = tokenEnd;
+        }
+
+        return bestRank == NOT_A_URL ? null : toUrl(text, bestStart, bestEnd);
+    }
+
+    /**
+     * Whether the string already is an http(s) URL (scheme check only, like Uri.getScheme())
+     */
+    static boolean isHttpUrl(String url) {
+        return url != null && (url.startsWith("http:") || url.startsWith("https:"));
+    }
+
+    /**
+     * First index in [from, to) where a URL can begin: an http(s):// or www. prefix, or a
+     * label followed by a dot and a two-letter TLD start; -1 if the token holds none
+     */
+    private static int findCandidateStart(String text, int from, int to) {
+        int failedLabelEnd = from; // Positions inside a label already known not to start a domain
+        for (int i = from; i < to; i++) {
+            if (text.regionMatches(true, i, HTTP, 0, HTTP.length())
+                || text.regionMatches(true, i, HTTPS, 0, HTTPS.length())
+                || text.regionMatches(true, i, WWW, 0, WWW.length())) {
+                return i;
+            }
+            if (i >= failedLabelEnd && isLabelChar(text.charAt(i))) {
+                int labelEnd = i;
+                while (labelEnd < to && isLabelChar(text.charAt(labelEnd))) {
+                    labelEnd++;
+                }
+                if (labelEnd + 2 < to && text.charAt(labelEnd) == '.'
+                    && isAsciiLetter(text.charAt(labelEnd + 1)) && isAsciiLetter(text.charAt(labelEnd + 2))) {
+                    return i;
+                }
+                failedLabelEnd = labelEnd;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * End of the candidate once trailing sentence punctuation, brackets and quotes are dropped
+     */
+    private static int trimTrailingPunctuation(String text, int start, int end) {
+        while (end > start && ".,;:!?()[]\"'".indexOf(text.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return end;
+    }
+
+    private static int rank(String text, int start, int end) {
+        if (text.startsWith(HTTP, start) || text.startsWith(HTTPS, start) || text.startsWith(WWW, start)
+            || containsSupportedHost(text, start, end, false)) {
+            return RANK_EXACT;
+        }
+        if (hasHttpScheme(text, start) || containsSupportedHost(text, start, end, true)) {
+            return RANK_CASE_INSENSITIVE;
+        }
+        if (containsServiceOnOtherTld(text, start, end)) {
+            return RANK_OTHER_TLD;
+        }
+        return NOT_A_URL;
+    }
+
+    /**
+     * Build the returned URL - the only allocation of an extraction
+     */
+    private static String toUrl(String text, int start, int end) {
+        if (text.startsWith(HTTP, start) || text.startsWith(HTTPS, start)) {
+            return text.substring(start, end);
+        }
+        if (hasHttpScheme(text, start)) {
+            // Lower-case the scheme only, the rest of the URL may be case sensitive
+            int schemeEnd = text.indexOf(':', start);
+            return text.substring(start, schemeEnd).toLowerCase(java.util.Locale.ROOT) + text.substring(schemeEnd, end);
+        }
+        return HTTPS + text.substring(start, end);
+    }
+
+    private static boolean hasHttpScheme(String text, int start) {
+        return text.regionMatches(true, start, HTTP, 0, HTTP.length())
+            || text.regionMatches(true, start, HTTPS, 0, HTTPS.length());
+    }
+
+    private static boolean containsSupportedHost(String text, int start, int end, boolean ignoreCase) {
+        for (int i = start; i < end; i++) {
+            for (String host : SUPPORTED_HOSTS) {
+                if (i + host.length() <= end && text.regionMatches(ignoreCase, i, host, 0, host.length())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Matches "<label>.<service>.<com|be|net|org>" anywhere in the candidate, ignoring case
+     */
+    private static boolean containsServiceOnOtherTld(String text, int start, int end) {
+        for (int dot = start + 1; dot < end; dot++) {
+            if (text.charAt(dot) != '.' || !isLabelChar(text.charAt(dot - 1))) {
+                continue;
+            }
+            for (String service : SUPPORTED_SERVICES) {
+                int tldDot = dot + 1 + service.length();
+                if (tldDot < end && text.charAt(tldDot) == '.'
+                    && text.regionMatches(true, dot + 1, service, 0, service.length())) {
+                    for (String tld : SERVICE_TLDS) {
+                        if (tldDot + 1 + tld.length() <= end && text.regionMatches(true, tldDot + 1, tld, 0, tld.length())) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Same set as the regex \s
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    private static boolean isLabelChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
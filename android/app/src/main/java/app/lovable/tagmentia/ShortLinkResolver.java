@@ -0,0 +1,317 @@
+package app.lovable.tagmentia;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Follows share short links (vm.tiktok.com/CODE, t.snapchat.com/CODE, ...) to the page they redirect to,
+ * so the backend gets a URL it can canonicalize and cache on instead of paying the redirect chain itself
+ *
+ * Redirects are followed one hop at a time with HEAD requests (GET if the server refuses HEAD),
+ * within MAX_HOPS and a RESOLVE_BUDGET_MS deadline for the whole chain. HttpURLConnection keeps
+ * connections alive per host, so later hops and later shares reuse the pooled sockets.
+ * Resolutions are kept in an in-memory LRU backed by a small on-disk cache with a TTL;
+ * failures are never cached.
+ *
+ * Plain Java with no Android dependencies so it can be unit tested against a local HTTP server
+ * Blocking - call it from a background thread
+ */
+class ShortLinkResolver {
+    static final int MAX_HOPS = 5;
+    static final int RESOLVE_BUDGET_MS = 3000;
+    static final int MEMORY_ENTRIES = 64;
+    static final int DISK_ENTRIES = 256;
+    static final long TTL_MS = 7L * 24 * 60 * 60 * 1000;
+
+    private static final String CACHE_FILE = "short-links.cache";
+    private static final String USER_AGENT = "Mozilla/5.0 (Linux; Android) Tagmentia";
+    private static final Pattern SCHEME = Pattern.compile("[A-Za-z][A-Za-z0-9+.-]*:");
+
+    // youtu.be is not here: its code is the video ID, so SharedUrlCanonicalizer rewrites it without a request
+    private static final Set<String> SHORT_LINK_HOSTS = new HashSet<>(Arrays.asList(
+        "vm.tiktok.com", "vt.tiktok.com", "t.snapchat.com"));
+    // Hosts whose short links live under a path prefix (tiktok.com/t/CODE, instagram.com/share/CODE)
+    private static final Map<String, String> SHORT_LINK_PATHS = new LinkedHashMap<>();
+    static {
+        for (String host : new String[] { "tiktok.com", "www.tiktok.com", "m.tiktok.com" }) {
+            SHORT_LINK_PATHS.put(host, "/t/");
+        }
+        for (String host : new String[] { "instagram.com", "www.instagram.com", "m.instagram.com" }) {
+            SHORT_LINK_PATHS.put(host, "/share/");
+        }
+    }
+
+    private static final class CacheEntry {
+        final String resolved;
+        final long expiresAt;
+
+        CacheEntry(String resolved, long expiresAt) {
+            this.resolved = resolved;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static ShortLinkResolver instance;
+
+    private final File cacheFile;
+    private final long ttlMs;
+
+    // Guarded by this
+    private final LinkedHashMap<String, CacheEntry> memory = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            return size() > MEMORY_ENTRIES;
+        }
+    };
+    private LinkedHashMap<String, CacheEntry> disk; // Loaded on the first memory miss
+    private int appendedSinceCompaction = 0;
+
+    ShortLinkResolver(File cacheFile, long ttlMs) {
+        this.cacheFile = cacheFile;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Process-wide resolver, so the memory cache outlives the activity
+     * @param directory App-private cache directory (getCacheDir())
+     */
+    static synchronized ShortLinkResolver getInstance(File directory) {
+        if (instance == null) {
+            instance = new ShortLinkResolver(new File(directory, CACHE_FILE), TTL_MS);
+        }
+        return instance;
+    }
+
+    /**
+     * Check if a URL is a short link that only says where the content is after a redirect
+     */
+    static boolean isShortLink(String url) {
+        if (!SharedUrlExtractor.isHttpUrl(url)) {
+            return false;
+        }
+        DeepLinkRouter.Parts parts = DeepLinkRouter.parse(url);
+        if (parts.host == null) {
+            return false;
+        }
+        String host = parts.host.toLowerCase(Locale.ROOT);
+        if (SHORT_LINK_HOSTS.contains(host)) {
+            return parts.path.length() > 1;
+        }
+        String prefix = SHORT_LINK_PATHS.get(host);
+        return prefix != null && parts.path.startsWith(prefix) && parts.path.length() > prefix.length();
+    }
+
+    /**
+     * Follow a link's redirects to the final http(s) URL
+     * @return the final URL, or null if the chain failed, timed out or ran past MAX_HOPS
+     */
+    String resolve(String url) {
+        String cached = lookup(url);
+        if (cached != null) {
+            return cached;
+        }
+        String resolved;
+        try {
+            resolved = follow(url);
+        } catch (IOException e) {
+            return null;
+        }
+        if (resolved != null) {
+            store(url, resolved);
+        }
+        return resolved;
+    }
+
+    /**
+     * A link's final URL if an earlier resolve() left it in the cache - never touches the network
+     * @return the cached final URL, or null
+     */
+    String cached(String url) {
+        return lookup(url);
+    }
+
+    /**
+     * Follow a link's redirect chain over the network, bypassing the cache
+     * Package-private so the share flow tests can stand in for the network
+     * @return the final URL, or null if the chain ran past MAX_HOPS
+     */
+    String follow(String url) throws IOException {
+        long deadline = System.currentTimeMillis() + RESOLVE_BUDGET_MS;
+        String current = url;
+        for (int hop = 0; hop <= MAX_HOPS; hop++) {
+            String location = nextHop(current, "HEAD", deadline);
+            if (location == null) {
+                return current;
+            }
+            if (SCHEME.matcher(location).lookingAt() && !SharedUrlExtractor.isHttpUrl(location.toLowerCase(Locale.ROOT))) {
+                // Redirect into an app scheme (snssdk://, instagram://) - the last web URL is the answer
+                return current;
+            }
+            current = new URL(new URL(current), location).toString();
+        }
+        return null;
+    }
+
+    /**
+     * Request a URL once without following redirects
+     * @return the Location of a redirect, or null if the URL is the final page
+     */
+    private static String nextHop(String url, String method, long deadline) throws IOException {
+        int remaining = (int) (deadline - System.currentTimeMillis());
+        if (remaining <= 0) {
+            throw new IOException("Short link resolution timed out: " + url);
+        }
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setInstanceFollowRedirects(false);
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(remaining);
+            connection.setReadTimeout(remaining);
+            connection.setRequestProperty("User-Agent", USER_AGENT);
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_BAD_METHOD && "HEAD".equals(method)) {
+                return nextHop(url, "GET", deadline);
+            }
+            if (status >= 400) {
+                throw new IOException("HTTP " + status + " from " + url);
+            }
+            if (status < 300 || status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return null;
+            }
+            String location = connection.getHeaderField("Location");
+            if (location == null || location.isEmpty()) {
+                throw new IOException("Redirect without Location from " + url);
+            }
+            return location;
+        } finally {
+            // Don't read a GET body we don't need; closing it lets the socket go back to the pool for HEAD
+            if ("HEAD".equals(method)) {
+                closeQuietly(connection);
+            } else {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private static void closeQuietly(HttpURLConnection connection) {
+        try {
+            connection.getInputStream().close();
+        } catch (IOException ignored) {
+            // Error responses have no input stream
+        }
+    }
+
+    private synchronized String lookup(String url) {
+        long now = System.currentTimeMillis();
+        CacheEntry entry = memory.get(url);
+        if (entry == null) {
+            entry = disk().get(url);
+            if (entry != null) {
+                memory.put(url, entry);
+            }
+        }
+        if (entry == null || entry.expiresAt <= now) {
+            return null;
+        }
+        return entry.resolved;
+    }
+
+    private synchronized void store(String url, String resolved) {
+        CacheEntry entry = new CacheEntry(resolved, System.currentTimeMillis() + ttlMs);
+        memory.put(url, entry);
+        LinkedHashMap<String, CacheEntry> entries = disk();
+        entries.remove(url);
+        entries.put(url, entry);
+
+        try {
+            if (++appendedSinceCompaction > DISK_ENTRIES || entries.size() > DISK_ENTRIES) {
+                compact(entries);
+            } else {
+                try (Writer writer = new OutputStreamWriter(new FileOutputStream(cacheFile, true), StandardCharsets.UTF_8)) {
+                    writer.write(line(url, entry));
+                }
+            }
+        } catch (IOException e) {
+            // The memory cache still has it; the disk copy is only an optimization for the next process
+        }
+    }
+
+    /**
+     * Drop expired and surplus entries and rewrite the file (temp file + rename)
+     */
+    private void compact(LinkedHashMap<String, CacheEntry> entries) throws IOException {
+        long now = System.currentTimeMillis();
+        Iterator<CacheEntry> iterator = entries.values().iterator();
+        int surplus = entries.size() - DISK_ENTRIES;
+        while (iterator.hasNext()) {
+            CacheEntry entry = iterator.next();
+            if (surplus-- > 0 || entry.expiresAt <= now) {
+                iterator.remove();
+            }
+        }
+
+        File temp = new File(cacheFile.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, CacheEntry> entry : entries.entrySet()) {
+                writer.write(line(entry.getKey(), entry.getValue()));
+            }
+        }
+        if (!temp.renameTo(cacheFile)) {
+            throw new IOException("Could not replace " + cacheFile);
+        }
+        appendedSinceCompaction = 0;
+    }
+
+    /**
+     * Disk entries, oldest first; later lines for the same link win
+     */
+    private LinkedHashMap<String, CacheEntry> disk() {
+        if (disk != null) {
+            return disk;
+        }
+        disk = new LinkedHashMap<>();
+        if (!cacheFile.exists()) {
+            return disk;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(cacheFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // expiresAt \t short link \t resolved URL - a torn or malformed line is skipped
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 3) {
+                    continue;
+                }
+                try {
+                    disk.remove(fields[1]);
+                    disk.put(fields[1], new CacheEntry(fields[2], Long.parseLong(fields[0])));
+                } catch (NumberFormatException ignored) {
+                    // Skip the line
+                }
+            }
+        } catch (IOException e) {
+            // Start with an empty cache
+        }
+        return disk;
+    }
+
+    private static String line(String url, CacheEntry entry) {
+        return entry.expiresAt + "\t" + url + "\t" + entry.resolved + "\n";
+    }
+}
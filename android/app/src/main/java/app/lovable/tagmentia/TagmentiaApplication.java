@@ -0,0 +1,45 @@
+package app.lovable.tagmentia;
+
+import android.app.Application;
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.WebSettings;
+
+/**
+ * Loads the WebView provider ahead of the bridge, once per process
+ *
+ * Loading the provider (the WebView APK and its native library) is the largest part of creating
+ * the bridge's WebView. MainActivity starts it on a background thread first thing in onCreate, so
+ * it overlaps with the splash screen and plugin setup; when BridgeActivity creates the WebView the
+ * provider is loaded (or the main thread waits on the loading already under way instead of
+ * starting over). Not done when the process starts - that may be for QuickSaveActivity or
+ * WorkManager (uploads), which never create a WebView.
+ */
+public class TagmentiaApplication extends Application {
+    private static final String TAG = "TagmentiaApplication";
+
+    // Main thread only
+    private boolean webViewPrewarmed = false;
+
+    /**
+     * Start loading the WebView provider in the background; only the first call does anything (main thread)
+     */
+    void prewarmWebView() {
+        if (webViewPrewarmed) {
+            return;
+        }
+        webViewPrewarmed = true;
+        Thread thread = new Thread(() -> {
+            long startedAt = SystemClock.uptimeMillis();
+            try {
+                // Cheapest public call that loads the provider without creating a WebView
+                WebSettings.getDefaultUserAgent(this);
+                Log.d(TAG, "WebView provider loaded in " + (SystemClock.uptimeMillis() - startedAt) + "ms");
+            } catch (RuntimeException e) {
+                // No or a broken WebView - the bridge reports it when it creates one
+                Log.w(TAG, "WebView prewarm failed", e);
+            }
+        }, "tagmentia-webview-prewarm");
+        thread.start();
+    }
+}
@@ -0,0 +1,349 @@
+package app.lovable.tagmentia;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Disk cache for remote thumbnails shown in the WebView, independent of the WebView's HTTP cache
+ * (which the OS evicts freely)
+ *
+ * Hits within their freshness window are served from disk without touching the network; stale
+ * entries are revalidated with If-None-Match / If-Modified-Since, and served stale if the network
+ * fails. Entries are evicted least-recently-used once the cache exceeds its byte budget; recency is
+ * persisted through the body file's modification time, so the order survives restarts.
+ *
+ * Plain Java with no Android dependencies so it can be unit tested against a local HTTP server
+ * Blocking - call it from a background thread (shouldInterceptRequest already runs on one)
+ */
+final class ThumbnailCache {
+    static final long MAX_ENTRY_BYTES = 2L * 1024 * 1024;
+    // Thumbnail URLs practically never change content; revalidating more often than this is wasted radio time
+    static final long MIN_FRESH_MS = 24L * 60 * 60 * 1000;
+    static final int CONNECT_TIMEOUT_MS = 5000;
+    static final int READ_TIMEOUT_MS = 10000;
+
+    private static final String META_SUFFIX = ".meta";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    // Image CDNs of the supported platforms (matched as host suffixes)
+    private static final String[] THUMBNAIL_HOSTS = {
+        "i.ytimg.com", "img.youtube.com", ".tiktokcdn.com", ".tiktokcdn-us.com",
+        ".cdninstagram.com", ".fbcdn.net", ".sc-cdn.net", ".loom.com"
+    };
+
+    /**
+     * A cached thumbnail opened for reading
+     */
+    static final class Hit {
+        final String mimeType;
+        final InputStream body;
+
+        Hit(String mimeType, InputStream body) {
+            this.mimeType = mimeType;
+            this.body = body;
+        }
+    }
+
+    private static ThumbnailCache instance;
+
+    private final File directory;
+    private final long maxBytes;
+    private final long minFreshMs;
+    private final String publicStoragePrefix;
+
+    // Guarded by this - cache key -> bytes on disk, least recently used first; loaded on first use
+    private LinkedHashMap<String, Long> index;
+    private long totalBytes;
+
+    /**
+     * @param publicStoragePrefix URL prefix of the app's public Supabase storage (screenshots, uploaded thumbnails)
+     */
+    ThumbnailCache(File directory, long maxBytes, long minFreshMs, String publicStoragePrefix) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.minFreshMs = minFreshMs;
+        this.publicStoragePrefix = publicStoragePrefix;
+    }
+
+    /**
+     * Process-wide cache - one owner per directory
+     */
+    static synchronized ThumbnailCache getInstance(File directory, long maxBytes, String publicStoragePrefix) {
+        if (instance == null) {
+            instance = new ThumbnailCache(directory, maxBytes, MIN_FRESH_MS, publicStoragePrefix);
+        }
+        return instance;
+    }
+
+    /**
+     * Check if a URL is a thumbnail this cache should handle
+     */
+    boolean isCacheable(String url) {
+        if (url == null || !url.startsWith("https://")) {
+            return false;
+        }
+        if (publicStoragePrefix != null && url.startsWith(publicStoragePrefix)) {
+            return true;
+        }
+        String host = DeepLinkRouter.parse(url).host;
+        if (host == null) {
+            return false;
+        }
+        host = host.toLowerCase(Locale.ROOT);
+        for (String suffix : THUMBNAIL_HOSTS) {
+            if (suffix.startsWith(".") ? host.endsWith(suffix) : host.equals(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Serve a thumbnail from disk, downloading or revalidating it first if needed
+     * @param userAgent Sent with network requests (the WebView's), may be null
+     * @return the thumbnail, or null if it can't be cached and the WebView should load it itself
+     */
+    Hit open(String url, String userAgent) {
+        synchronized (this) {
+            // Before any download starts, so the sweep of leftover temp files can't catch one in progress
+            loadIndex();
+        }
+        String key = keyFor(url);
+        Properties meta = readMeta(key);
+        if (meta != null && System.currentTimeMillis() < expiresAtOf(meta)) {
+            return openBody(key, meta);
+        }
+
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            if (userAgent != null) {
+                connection.setRequestProperty("User-Agent", userAgent);
+            }
+            if (meta != null && meta.getProperty("etag") != null) {
+                connection.setRequestProperty("If-None-Match", meta.getProperty("etag"));
+            }
+            if (meta != null && meta.getProperty("lastModified") != null) {
+                connection.setRequestProperty("If-Modified-Since", meta.getProperty("lastModified"));
+            }
+
+            int status = connection.getResponseCode();
+            String cacheControl = connection.getHeaderField("Cache-Control");
+            if (cacheControl != null && cacheControl.contains("no-store")) {
+                return null;
+            }
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && meta != null) {
+                meta.setProperty("expiresAt", Long.toString(expiresAt(cacheControl)));
+                writeMeta(key, meta);
+                return openBody(key, meta);
+            }
+            if (status >= HttpURLConnection.HTTP_INTERNAL_ERROR && meta != null) {
+                return openBody(key, meta);
+            }
+            String mimeType = connection.getContentType();
+            if (status != HttpURLConnection.HTTP_OK || mimeType == null || !mimeType.startsWith("image/")
+                || connection.getContentLength() > MAX_ENTRY_BYTES) {
+                return null;
+            }
+
+            Properties fresh = new Properties();
+            fresh.setProperty("url", url);
+            fresh.setProperty("mimeType", mimeType.split(";")[0].trim());
+            fresh.setProperty("expiresAt", Long.toString(expiresAt(cacheControl)));
+            if (connection.getHeaderField("ETag") != null) {
+                fresh.setProperty("etag", connection.getHeaderField("ETag"));
+            }
+            if (connection.getHeaderField("Last-Modified") != null) {
+                fresh.setProperty("lastModified", connection.getHeaderField("Last-Modified"));
+            }
+            try (InputStream in = connection.getInputStream()) {
+                if (!store(key, in, fresh)) {
+                    return null;
+                }
+            }
+            return openBody(key, fresh);
+        } catch (IOException e) {
+            // Flaky network - a stale thumbnail beats a broken image (same for 5xx above)
+            return meta != null ? openBody(key, meta) : null;
+        }
+    }
+
+    /**
+     * Bytes currently on disk
+     */
+    synchronized long size() {
+        loadIndex();
+        return totalBytes;
+    }
+
+    private long expiresAt(String cacheControl) {
+        long freshFor = 0;
+        if (cacheControl != null) {
+            Matcher matcher = MAX_AGE.matcher(cacheControl);
+            if (matcher.find()) {
+                freshFor = Long.parseLong(matcher.group(1)) * 1000;
+            }
+        }
+        return System.currentTimeMillis() + Math.max(freshFor, minFreshMs);
+    }
+
+    private static long expiresAtOf(Properties meta) {
+        try {
+            return Long.parseLong(meta.getProperty("expiresAt", "0"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Open the body under the lock, so eviction can't delete it between the lookup and the open
+     */
+    private synchronized Hit openBody(String key, Properties meta) {
+        File body = new File(directory, key);
+        try {
+            InputStream in = new FileInputStream(body);
+            body.setLastModified(System.currentTimeMillis());
+            loadIndex();
+            index.get(key); // Access-ordered: marks it most recently used
+            return new Hit(meta.getProperty("mimeType"), in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Download a body into the cache (temp file + rename) and evict down to the budget
+     * @return false if the body was larger than MAX_ENTRY_BYTES
+     */
+    private boolean store(String key, InputStream in, Properties meta) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        File temp = new File(directory, key + "." + Thread.currentThread().getId() + TEMP_SUFFIX);
+        long length = 0;
+        try (OutputStream out = new FileOutputStream(temp)) {
+            byte[] buffer = new byte[ChannelCopy.BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                length += read;
+                if (length > MAX_ENTRY_BYTES) {
+                    temp.delete();
+                    return false;
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+
+        synchronized (this) {
+            loadIndex();
+            if (!temp.renameTo(new File(directory, key))) {
+                temp.delete();
+                throw new IOException("Could not store thumbnail " + key);
+            }
+            writeMeta(key, meta);
+            Long previous = index.remove(key);
+            if (previous != null) {
+                totalBytes -= previous;
+            }
+            long stored = length + new File(directory, key + META_SUFFIX).length();
+            index.put(key, stored);
+            totalBytes += stored;
+            evict();
+        }
+        return true;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            new File(directory, entry.getKey()).delete();
+            new File(directory, entry.getKey() + META_SUFFIX).delete();
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Rebuild the LRU order from the body files' modification times (oldest first)
+     */
+    private void loadIndex() {
+        if (index != null) {
+            return;
+        }
+        index = new LinkedHashMap<>(64, 0.75f, true);
+        totalBytes = 0;
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(TEMP_SUFFIX)) {
+                file.delete(); // Left over from a download the process died during
+            } else if (!name.endsWith(META_SUFFIX)) {
+                File meta = new File(directory, name + META_SUFFIX);
+                if (meta.exists()) {
+                    long stored = file.length() + meta.length();
+                    index.put(name, stored);
+                    totalBytes += stored;
+                } else {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private synchronized Properties readMeta(String key) {
+        File file = new File(directory, key + META_SUFFIX);
+        if (!file.exists() || !new File(directory, key).exists()) {
+            return null;
+        }
+        Properties meta = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            meta.load(in);
+            return meta;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private synchronized void writeMeta(String key, Properties meta) throws IOException {
+        try (OutputStream out = new FileOutputStream(new File(directory, key + META_SUFFIX))) {
+            meta.store(out, null);
+        }
+    }
+
+    private static String keyFor(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
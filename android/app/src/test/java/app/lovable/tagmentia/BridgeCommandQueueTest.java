@@ -0,0 +1,113 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Local unit tests for the keyed bridge command queue, driven by a manual scheduler
+ */
+public class BridgeCommandQueueTest {
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<String> ran = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+
+    private final BridgeCommandQueue queue = new BridgeCommandQueue(new BridgeCommandQueue.Scheduler() {
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            scheduled.add(task);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            scheduled.remove(task);
+        }
+    }, (key, error) -> failures.add(key));
+
+    private void runScheduled() {
+        List<Runnable> tasks = new ArrayList<>(scheduled);
+        scheduled.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void submit_beforeReady_holdsCommandsAndKeepsOnlyTheLatestPerKey() {
+        for (int i = 1; i <= 5; i++) {
+            String target = "/add?url=" + i;
+            queue.submit("navigation", () -> ran.add(target));
+        }
+        queue.submit("share:a", () -> ran.add("share a"));
+        queue.submit("share:b", () -> ran.add("share b"));
+        assertTrue(ran.isEmpty());
+        assertTrue(scheduled.isEmpty());
+
+        queue.setReady(true);
+
+        assertEquals(Arrays.asList("/add?url=5", "share a", "share b"), ran);
+        BridgeCommandQueue.Stats stats = queue.stats();
+        assertEquals(7, stats.submitted);
+        assertEquals(4, stats.coalesced);
+        assertEquals(3, stats.executed);
+        assertEquals(1, stats.flushes);
+        assertEquals(0, stats.pending);
+    }
+
+    @Test
+    public void submit_whenReady_coalescesUntilTheScheduledFlush() {
+        queue.setReady(true);
+        queue.submit("navigation", () -> ran.add("/categories"));
+        queue.submit("navigation", () -> ran.add("/add"));
+        assertEquals(1, scheduled.size());
+        assertTrue(ran.isEmpty());
+
+        runScheduled();
+
+        assertEquals(Arrays.asList("/add"), ran);
+        assertEquals(1, queue.stats().flushes);
+    }
+
+    @Test
+    public void setReady_false_holdsCommandsUntilTheNextReady() {
+        queue.setReady(true);
+        queue.submit("navigation", () -> ran.add("/add"));
+        // The page reloads before the flush
+        queue.setReady(false);
+        runScheduled();
+        assertTrue(ran.isEmpty());
+
+        queue.setReady(true);
+        assertEquals(Arrays.asList("/add"), ran);
+    }
+
+    @Test
+    public void cancelAll_dropsPendingAndLaterCommands() {
+        queue.setReady(true);
+        queue.submit("navigation", () -> ran.add("/add"));
+        queue.cancelAll();
+        queue.submit("navigation", () -> ran.add("/categories"));
+
+        assertTrue(scheduled.isEmpty());
+        assertTrue(ran.isEmpty());
+        assertEquals(1, queue.stats().cancelled);
+    }
+
+    @Test
+    public void flush_failingCommand_doesNotStopTheOthers() {
+        queue.submit("share:a", () -> {
+            throw new IllegalStateException("boom");
+        });
+        queue.submit("navigation", () -> ran.add("/add"));
+        queue.setReady(true);
+
+        assertEquals(Arrays.asList("/add"), ran);
+        assertEquals(Arrays.asList("share:a"), failures);
+        assertEquals(1, queue.stats().failed);
+        assertEquals(1, queue.stats().executed);
+    }
+}
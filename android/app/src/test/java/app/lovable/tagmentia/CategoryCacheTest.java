@@ -0,0 +1,120 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Local unit tests for the native category cache and its usage ranking, on a fixed clock
+ */
+public class CategoryCacheTest {
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private CategoryCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("files");
+        cache = new CategoryCache(directory);
+        cache.setCategories(Arrays.asList(
+            new CategoryCache.Category("c", "cooking", "orange-sunset"),
+            new CategoryCache.Category("a", "Art", null),
+            new CategoryCache.Category("t", "Travel", "green-forest"),
+            new CategoryCache.Category("m", "Music", null)));
+    }
+
+    @Test
+    public void ranked_unusedCategoriesFollowInNameOrder() {
+        assertEquals(Arrays.asList("a", "c", "m", "t"), ids(cache.ranked(10, NOW)));
+    }
+
+    @Test
+    public void ranked_usedCategoriesComeFirstAndTheLimitApplies() {
+        cache.recordUse("t", NOW);
+        cache.recordUse("m", NOW);
+        cache.recordUse("m", NOW);
+
+        assertEquals(Arrays.asList("m", "t"), ids(cache.ranked(2, NOW)));
+    }
+
+    @Test
+    public void ranked_recentUseOutranksOlderHeavierUse() {
+        for (int i = 0; i < 4; i++) {
+            cache.recordUse("a", NOW - 3 * CategoryCache.HALF_LIFE_MS);
+        }
+        cache.recordUse("t", NOW - DAY_MS);
+
+        // 4 uses three half-lives ago are worth 0.5 now; one use yesterday is worth almost 1
+        assertEquals(Arrays.asList("t", "a", "c", "m"), ids(cache.ranked(10, NOW)));
+    }
+
+    @Test
+    public void recordUse_ignoresUnknownCategories() {
+        cache.recordUse("gone", NOW);
+        cache.recordUse(null, NOW);
+
+        assertEquals(Arrays.asList("a", "c", "m", "t"), ids(cache.ranked(10, NOW)));
+    }
+
+    @Test
+    public void setCategories_reportsChangesAndDropsUsageOfRemovedCategories() {
+        cache.recordUse("t", NOW);
+
+        assertFalse(cache.setCategories(Arrays.asList(
+            new CategoryCache.Category("c", "cooking", "orange-sunset"),
+            new CategoryCache.Category("a", "Art", null),
+            new CategoryCache.Category("t", "Travel", "green-forest"),
+            new CategoryCache.Category("m", "Music", null))));
+        assertTrue(cache.setCategories(Arrays.asList(
+            new CategoryCache.Category("a", "Art", null),
+            new CategoryCache.Category("m", "Music", null))));
+        assertNull(cache.find("t"));
+
+        // Travel comes back without its history
+        cache.setCategories(Arrays.asList(
+            new CategoryCache.Category("a", "Art", null),
+            new CategoryCache.Category("t", "Travel", null)));
+        assertEquals(Arrays.asList("a", "t"), ids(cache.ranked(10, NOW)));
+    }
+
+    @Test
+    public void listAndUsage_surviveARestart() {
+        cache.recordUse("m", NOW);
+
+        CategoryCache restored = new CategoryCache(directory);
+        assertEquals("Music", restored.find("m").name);
+        assertEquals("orange-sunset", restored.find("c").color);
+        assertEquals("m", restored.ranked(1, NOW).get(0).id);
+    }
+
+    @Test
+    public void clear_forgetsEverythingOnDiskToo() {
+        cache.recordUse("m", NOW);
+        cache.clear();
+
+        assertTrue(cache.ranked(10, NOW).isEmpty());
+        assertTrue(new CategoryCache(directory).ranked(10, NOW).isEmpty());
+    }
+
+    private static List<String> ids(List<CategoryCache.Category> categories) {
+        List<String> ids = new ArrayList<>();
+        for (CategoryCache.Category category : categories) {
+            ids.add(category.id);
+        }
+        return ids;
+    }
+}
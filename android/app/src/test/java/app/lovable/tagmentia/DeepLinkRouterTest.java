@@ -0,0 +1,63 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for deep link routing
+ */
+public class DeepLinkRouterTest {
+
+    @Test
+    public void route_customSchemeWithUrl_opensAdd() throws Exception {
+        DeepLinkRouter.Route route = DeepLinkRouter.route("tagmentia://add?url=https%3A%2F%2Fyoutu.be%2Fabc%3Ft%3D1");
+        assertTrue(route.addUrl);
+        assertEquals("https://youtu.be/abc?t=1", route.target);
+    }
+
+    @Test
+    public void route_customSchemeWithPath_navigates() throws Exception {
+        DeepLinkRouter.Route route = DeepLinkRouter.route("tagmentia://open/categories/42?tab=videos");
+        assertFalse(route.addUrl);
+        assertEquals("/categories/42?tab=videos", route.target);
+    }
+
+    @Test
+    public void route_appLink_navigatesToPathAndQuery() throws Exception {
+        DeepLinkRouter.Route route = DeepLinkRouter.route("https://app.tagmentia.com/dashboard?view=grid#top");
+        assertFalse(route.addUrl);
+        assertEquals("/dashboard?view=grid", route.target);
+
+        assertEquals("", DeepLinkRouter.route("https://tagmentia.com").target);
+    }
+
+    @Test
+    public void route_appLinkAdd_decodesPlusAndEscapes() throws Exception {
+        DeepLinkRouter.Route route = DeepLinkRouter.route("https://tagmentia.com/add?x=1&url=https%3A%2F%2Fexample.com%2Fa%2Bb+c");
+        assertTrue(route.addUrl);
+        assertEquals("https://example.com/a b c", route.target);
+    }
+
+    @Test
+    public void route_unrelatedLinks() throws Exception {
+        assertEquals("https://loom.com/share/1", DeepLinkRouter.route("https://example.com/?url=https://loom.com/share/1").target);
+        assertNull(DeepLinkRouter.route("https://example.com/page"));
+        assertNull(DeepLinkRouter.route("tagmentia:opaque?url=x"));
+    }
+
+    @Test
+    public void isTagementLink() {
+        assertTrue(DeepLinkRouter.isTagementLink("tagmentia://add"));
+        assertTrue(DeepLinkRouter.isTagementLink("http://user@www.tagmentia.com:8080/x"));
+        assertFalse(DeepLinkRouter.isTagementLink("https://nottagmentia.com/x"));
+        assertFalse(DeepLinkRouter.isTagementLink("https://tagmentia.com.evil.io/x"));
+        assertFalse(DeepLinkRouter.isTagementLink(null));
+    }
+
+    @Test
+    public void percentDecode_keepsMalformedEscapes() {
+        assertEquals("100% caf\u00e9", DeepLinkRouter.percentDecode("100% caf%C3%A9", false));
+        assertEquals("a+b", DeepLinkRouter.percentDecode("a+b", false));
+    }
+}
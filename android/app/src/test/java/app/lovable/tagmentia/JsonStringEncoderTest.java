@@ -0,0 +1,34 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for the JSON string encoder used in bridge scripts
+ */
+public class JsonStringEncoderTest {
+
+    @Test
+    public void quote_cleanValueIsCopiedAsIs() {
+        assertEquals("\"https://youtu.be/abc?t=1\"", JsonStringEncoder.quote("https://youtu.be/abc?t=1"));
+        assertEquals("\"\"", JsonStringEncoder.quote(""));
+        assertEquals("null", JsonStringEncoder.quote(null));
+    }
+
+    @Test
+    public void quote_escapesQuotesBackslashesAndControlCharacters() {
+        assertEquals("\"say \\\"hi\\\" it's C:\\\\x\"", JsonStringEncoder.quote("say \"hi\" it's C:\\x"));
+        assertEquals("\"a\\nb\\r\\tc\\b\\f\\u0000\\u001f\"", JsonStringEncoder.quote("a\nb\r\tc\b\f\u0000\u001f"));
+    }
+
+    @Test
+    public void quote_escapesJavaScriptLineTerminators() {
+        assertEquals("\"a\\u2028b\\u2029\"", JsonStringEncoder.quote("a\u2028b\u2029"));
+    }
+
+    @Test
+    public void quote_keepsOtherUnicode() {
+        assertEquals("\"caf\u00e9 \ud83c\udfac\"", JsonStringEncoder.quote("caf\u00e9 \ud83c\udfac"));
+    }
+}
@@ -0,0 +1,116 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local unit tests for the metadata prefetch, against an in-process fetch-metadata stand-in
+ */
+public class MetadataPrefetcherTest {
+    private static final String METADATA = "{\"platform\":\"youtube\",\"title\":\"A video\",\"thumbnail_url\":\"https://i.ytimg.com/vi/x/hq.jpg\"}";
+
+    private HttpServer server;
+    private String endpoint;
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/functions/v1/fetch-metadata", exchange -> {
+            String body = read(exchange.getRequestBody());
+            requestBodies.add(body + " key=" + exchange.getRequestHeaders().getFirst("apikey"));
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = (body.contains("broken") ? "{\"error\":\"Failed to fetch URL\"}" : METADATA)
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(body.contains("broken") ? 502 : 200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/functions/v1/fetch-metadata";
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toString("UTF-8");
+    }
+
+    private static String await(MetadataPrefetcher prefetcher, String url) throws InterruptedException {
+        BlockingQueue<String> result = new ArrayBlockingQueue<>(1);
+        prefetcher.get(url, json -> result.add(json != null ? json : "null"));
+        String json = result.poll(5, TimeUnit.SECONDS);
+        assertNotNull("No callback for " + url, json);
+        return "null".equals(json) ? null : json;
+    }
+
+    @Test
+    public void get_waitsForInFlightPrefetchWithoutSecondRequest() throws InterruptedException {
+        MetadataPrefetcher prefetcher = new MetadataPrefetcher(endpoint, "anon");
+        String url = "https://www.youtube.com/watch?v=dQw4w9WgXcQ";
+        prefetcher.prefetch(url);
+        prefetcher.prefetch(url);
+
+        BlockingQueue<String> result = new ArrayBlockingQueue<>(1);
+        prefetcher.get(url, result::add);
+        assertNull(result.poll(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+
+        assertEquals(METADATA, result.poll(5, TimeUnit.SECONDS));
+        assertEquals(METADATA, await(prefetcher, url));
+        assertEquals(1, requestBodies.size());
+        assertEquals("{\"url\":\"" + url + "\"} key=anon", requestBodies.get(0));
+    }
+
+    @Test
+    public void get_unknownUrl_reportsNothing() throws InterruptedException {
+        assertNull(await(new MetadataPrefetcher(endpoint, "anon"), "https://www.loom.com/share/abc"));
+    }
+
+    @Test
+    public void failedPrefetch_isNotCached() throws InterruptedException {
+        release.countDown();
+        MetadataPrefetcher prefetcher = new MetadataPrefetcher(endpoint, "anon");
+        String url = "https://www.tiktok.com/@broken/video/1";
+        prefetcher.prefetch(url);
+        assertNull(await(prefetcher, url));
+
+        prefetcher.prefetch(url);
+        assertNull(await(prefetcher, url));
+        assertEquals(2, requestBodies.size());
+    }
+}
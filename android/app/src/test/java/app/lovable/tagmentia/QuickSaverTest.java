@@ -0,0 +1,189 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Local unit tests for the quick-save path: what is queued, what goes to the editor, and taking a link back
+ *
+ * The sync's flush delay is far beyond the test, so nothing is ever sent - the endpoint is unreachable on purpose
+ */
+public class QuickSaverTest {
+    private static final String TOKEN = "session-token";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private SavedLinkSync sync;
+    private QuickSaveCategory category;
+    private CategoryCache categories;
+    private QuickSaver quickSaver;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("files");
+        sync = new SavedLinkSync(directory, "http://127.0.0.1:9/functions/v1/save-shared-link", "anon-key", 60_000);
+        category = new QuickSaveCategory(directory);
+        categories = new CategoryCache(directory);
+        quickSaver = new QuickSaver(sync, category, categories,
+            new ShortLinkResolver(new File(folder.newFolder("cache"), "short-links.cache"), ShortLinkResolver.TTL_MS));
+    }
+
+    @After
+    public void tearDown() {
+        // Unreachable endpoint - don't let a pending flush outlive the test
+        sync.setAccessToken(null);
+    }
+
+    @Test
+    public void save_queuesTheCanonicalLinkForTheQuickSaveCategory() throws InterruptedException {
+        category.set("category-1", "Recipes");
+        sync.setAccessToken(TOKEN);
+
+        QuickSaver.Outcome outcome = quickSaver.save("Watch this https://youtu.be/dQw4w9WgXcQ?si=tracking", null, null);
+
+        assertTrue(outcome.isSaved());
+        assertEquals("https://www.youtube.com/watch?v=dQw4w9WgXcQ", outcome.url);
+        assertEquals("Recipes", outcome.categoryName);
+        assertEquals(1, sync.stats().pending);
+    }
+
+    @Test
+    public void save_usesTheCategoryOfTheDirectShareShortcut() throws InterruptedException {
+        category.set("category-1", "Recipes");
+        categories.setCategories(Arrays.asList(
+            new CategoryCache.Category("category-1", "Recipes", null),
+            new CategoryCache.Category("category-2", "Travel", "green-forest")));
+        sync.setAccessToken(TOKEN);
+
+        QuickSaver.Outcome outcome = quickSaver.save("https://youtu.be/dQw4w9WgXcQ", null, "category-2");
+
+        assertTrue(outcome.isSaved());
+        assertEquals("Travel", outcome.categoryName);
+        // The save moves the category to the top of the Direct Share ranking
+        assertEquals("category-2", categories.ranked(1).get(0).id);
+    }
+
+    @Test
+    public void save_fallsBackToTheQuickSaveCategoryForAnUnknownShortcut() throws InterruptedException {
+        category.set("category-1", "Recipes");
+        sync.setAccessToken(TOKEN);
+
+        QuickSaver.Outcome outcome = quickSaver.save("https://youtu.be/dQw4w9WgXcQ", null, "deleted-category");
+
+        assertTrue(outcome.isSaved());
+        assertEquals("Recipes", outcome.categoryName);
+    }
+
+    @Test
+    public void save_fallsBackToTheSharedUri() throws InterruptedException {
+        category.set("category-1", "Recipes");
+        sync.setAccessToken(TOKEN);
+
+        QuickSaver.Outcome outcome = quickSaver.save(null, "https://www.tiktok.com/@chef/video/7234567890123456789", null);
+
+        assertTrue(outcome.isSaved());
+        assertTrue(outcome.url.contains("7234567890123456789"));
+    }
+
+    @Test
+    public void save_keepsAnUncachedShortLinkForTheBackend() throws InterruptedException {
+        category.set("category-1", "Recipes");
+        sync.setAccessToken(TOKEN);
+
+        QuickSaver.Outcome outcome = quickSaver.save("https://vm.tiktok.com/ZMabcdef/", null, null);
+
+        assertTrue(outcome.isSaved());
+        assertTrue(outcome.url.startsWith("https://vm.tiktok.com/ZMabcdef"));
+    }
+
+    @Test
+    public void save_defersWithoutACategory() throws InterruptedException {
+        sync.setAccessToken(TOKEN);
+
+        QuickSaver.Outcome outcome = quickSaver.save("https://youtu.be/dQw4w9WgXcQ", null, null);
+
+        assertFalse(outcome.isSaved());
+        assertEquals(0, sync.stats().pending);
+    }
+
+    @Test
+    public void save_defersWithoutASession() throws InterruptedException {
+        category.set("category-1", "Recipes");
+
+        assertFalse(quickSaver.save("https://youtu.be/dQw4w9WgXcQ", null, null).isSaved());
+        assertEquals(0, sync.stats().pending);
+    }
+
+    @Test
+    public void save_defersWithAnExpiredSession() throws InterruptedException {
+        category.set("category-1", "Recipes");
+        // What the web app leaves behind when it hasn't run for longer than the token lives
+        sync.setAccessToken(jwtExpiringAt(System.currentTimeMillis() - 60_000));
+
+        QuickSaver.Outcome outcome = quickSaver.save("https://youtu.be/dQw4w9WgXcQ", null, null);
+
+        assertFalse(outcome.isSaved());
+        assertEquals("session expired", outcome.deferredBecause);
+        assertEquals(0, sync.stats().pending);
+
+        // A refreshed token saves again
+        sync.setAccessToken(jwtExpiringAt(System.currentTimeMillis() + 3_600_000));
+        assertTrue(quickSaver.save("https://youtu.be/dQw4w9WgXcQ", null, null).isSaved());
+    }
+
+    @Test
+    public void save_defersWhatTheEditorHasToExplain() throws InterruptedException {
+        category.set("category-1", "Recipes");
+        sync.setAccessToken(TOKEN);
+
+        assertFalse(quickSaver.save("nothing to see here", null, null).isSaved());
+        assertFalse(quickSaver.save("https://example.com/article", null, null).isSaved());
+        assertFalse(quickSaver.save("https://tagmentia.com/category/abc", null, null).isSaved());
+        assertEquals(0, sync.stats().pending);
+    }
+
+    @Test
+    public void undo_takesTheLinkBackOutOfTheQueue() throws InterruptedException {
+        category.set("category-1", "Recipes");
+        sync.setAccessToken(TOKEN);
+        QuickSaver.Outcome outcome = quickSaver.save("https://youtu.be/dQw4w9WgXcQ", null, null);
+
+        assertTrue(quickSaver.undo(outcome.itemId));
+        assertEquals(0, sync.stats().pending);
+        assertFalse(quickSaver.undo(outcome.itemId));
+    }
+
+    @Test
+    public void category_survivesARestartAndClears() {
+        category.set("category-1", "Recipes");
+
+        QuickSaveCategory.Category restored = new QuickSaveCategory(directory).get();
+        assertNotNull(restored);
+        assertEquals("category-1", restored.id);
+        assertEquals("Recipes", restored.name);
+
+        category.clear();
+        assertNull(category.get());
+        assertNull(new QuickSaveCategory(directory).get());
+    }
+
+    private static String jwtExpiringAt(long millis) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8))
+            + "." + encoder.encodeToString(("{\"sub\":\"user\",\"exp\":" + millis / 1000 + "}").getBytes(StandardCharsets.UTF_8))
+            + ".signature";
+    }
+}
@@ -0,0 +1,316 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Local unit tests for the batched link sync, against an in-process save-shared-link stand-in
+ *
+ * The stand-in answers per item from the URL: ".../duplicate" is a permanent failure, ".../busy"
+ * asks for a retry, anything else is saved. A batch holding a ".../malformed" link is refused as a
+ * whole with a 400
+ */
+public class SavedLinkSyncTest {
+    private static final String TOKEN = "session-token";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private String endpoint;
+    private volatile int status = 200;
+    // One entry per request: the items it carried
+    private final List<JSONArray> batches = new CopyOnWriteArrayList<>();
+    private final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+    private final Map<String, String> headers = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<SavedLinkSync.Result> results = new LinkedBlockingQueue<>();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/functions/v1/save-shared-link", exchange -> {
+            headers.put("Content-Encoding", String.valueOf(exchange.getRequestHeaders().getFirst("Content-Encoding")));
+            headers.put("Authorization", String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] response;
+            int responseStatus = 400;
+            try {
+                JSONArray items = new JSONObject(read(new GZIPInputStream(exchange.getRequestBody())))
+                    .getJSONArray("items");
+                batches.add(items);
+                JSONArray answers = new JSONArray();
+                int answerStatus = status;
+                for (int i = 0; i < items.length(); i++) {
+                    JSONObject item = items.getJSONObject(i);
+                    String url = item.getString("url");
+                    JSONObject answer = new JSONObject().put("id", item.getString("id"));
+                    if (url.endsWith("/malformed")) {
+                        answerStatus = 400;
+                    } else if (url.endsWith("/duplicate")) {
+                        answer.put("success", false).put("error", "DUPLICATE_VIDEO").put("retry", false);
+                    } else if (url.endsWith("/busy")) {
+                        answer.put("success", false).put("error", "Timed out").put("retry", true);
+                    } else {
+                        answer.put("success", true).put("videoId", "video-" + url.substring(url.lastIndexOf('/') + 1));
+                    }
+                    answers.put(answer);
+                }
+                responseStatus = answerStatus;
+                response = (answerStatus == 200 ? new JSONObject().put("results", answers).toString() : "{\"error\":\"nope\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                response = "{\"error\":\"bad request\"}".getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.sendResponseHeaders(responseStatus, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/functions/v1/save-shared-link";
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toString("UTF-8");
+    }
+
+    private SavedLinkSync newSync(File directory, long flushDelayMs) {
+        SavedLinkSync sync = new SavedLinkSync(directory, endpoint, "anon", flushDelayMs);
+        sync.addListener(batch -> results.addAll(batch));
+        return sync;
+    }
+
+    private List<SavedLinkSync.Result> awaitResults(int count) throws InterruptedException {
+        List<SavedLinkSync.Result> received = new ArrayList<>();
+        while (received.size() < count) {
+            SavedLinkSync.Result result = results.poll(5, TimeUnit.SECONDS);
+            assertNotNull("Only " + received.size() + " of " + count + " results arrived", result);
+            received.add(result);
+        }
+        return received;
+    }
+
+    @Test
+    public void enqueue_fullBatch_sendsOneCompressedRequest() throws Exception {
+        SavedLinkSync sync = newSync(folder.newFolder(), 60_000);
+        sync.setAccessToken(TOKEN);
+        for (int i = 0; i < SavedLinkSync.MAX_BATCH_ITEMS; i++) {
+            sync.enqueue("https://youtu.be/" + i, "category", null, null);
+        }
+
+        List<SavedLinkSync.Result> received = awaitResults(SavedLinkSync.MAX_BATCH_ITEMS);
+
+        assertEquals(1, batches.size());
+        assertEquals(SavedLinkSync.MAX_BATCH_ITEMS, batches.get(0).length());
+        assertEquals("gzip", headers.get("Content-Encoding"));
+        assertEquals("Bearer " + TOKEN, headers.get("Authorization"));
+        for (SavedLinkSync.Result result : received) {
+            assertTrue(result.saved);
+        }
+        SavedLinkSync.Stats stats = sync.stats();
+        assertEquals(0, stats.pending);
+        assertEquals(SavedLinkSync.MAX_BATCH_ITEMS, stats.saved);
+        assertTrue(stats.sentBytes < stats.rawBytes);
+    }
+
+    @Test
+    public void enqueue_fewLinks_waitForTheFlushDelayAndGoTogether() throws Exception {
+        SavedLinkSync sync = newSync(folder.newFolder(), 200);
+        sync.setAccessToken(TOKEN);
+        sync.enqueue("https://youtu.be/a", "category", "a note", null);
+        sync.enqueue("https://youtu.be/b", "category", null, "2026-01-01T09:00:00Z");
+        sync.enqueue("https://youtu.be/c", "category", null, null);
+        assertTrue(batches.isEmpty());
+
+        awaitResults(3);
+
+        assertEquals(1, batches.size());
+        JSONObject first = batches.get(0).getJSONObject(0);
+        assertEquals("https://youtu.be/a", first.getString("url"));
+        assertEquals("a note", first.getString("note"));
+        assertFalse(first.has("reminderAt"));
+    }
+
+    @Test
+    public void flush_appliesPerItemResults() throws Exception {
+        SavedLinkSync sync = newSync(folder.newFolder(), 60_000);
+        sync.setAccessToken(TOKEN);
+        String saved = sync.enqueue("https://youtu.be/ok", "category", null, null);
+        String duplicate = sync.enqueue("https://youtu.be/duplicate", "category", null, null);
+        sync.enqueue("https://youtu.be/busy", "category", null, null);
+        sync.flush();
+
+        List<SavedLinkSync.Result> received = awaitResults(2);
+
+        assertEquals(saved, received.get(0).id);
+        assertEquals("video-ok", received.get(0).videoId);
+        assertEquals(duplicate, received.get(1).id);
+        assertFalse(received.get(1).saved);
+        assertEquals("DUPLICATE_VIDEO", received.get(1).error);
+        // The item the function asked to retry stays for the next batch
+        SavedLinkSync.Stats stats = sync.stats();
+        assertEquals(1, stats.pending);
+        assertEquals(1, stats.retried);
+    }
+
+    @Test
+    public void flush_rejectedSession_holdsTheQueueUntilANewToken() throws Exception {
+        SavedLinkSync sync = newSync(folder.newFolder(), 60_000);
+        status = 401;
+        sync.setAccessToken("expired");
+        String id = sync.enqueue("https://youtu.be/a", "category", null, null);
+        sync.flush();
+
+        // Whoever waits on the link hears about the session right away, and the link stays queued
+        SavedLinkSync.Result held = awaitResults(1).get(0);
+        assertEquals(id, held.id);
+        assertFalse(held.saved);
+        assertTrue(held.queued);
+        assertEquals(SavedLinkSync.ERROR_SESSION_EXPIRED, held.error);
+
+        // Nothing more goes out with the rejected session - a flush only reports the link held again
+        sync.flush();
+        assertTrue(awaitResults(1).get(0).queued);
+        assertEquals(1, batches.size());
+        assertEquals(1, sync.stats().pending);
+        assertEquals(0, sync.stats().failed);
+
+        status = 200;
+        sync.setAccessToken(TOKEN);
+
+        assertTrue(awaitResults(1).get(0).saved);
+        assertEquals(2, batches.size());
+    }
+
+    @Test
+    public void accessToken_rejectedElsewhere_isNotHandedOutUntilANewOne() throws Exception {
+        SavedLinkSync sync = newSync(folder.newFolder(), 60_000);
+        sync.setAccessToken("expired");
+        assertEquals("expired", sync.awaitAccessToken());
+
+        // e.g. a screenshot upload got a 401 with it
+        sync.rejectAccessToken("expired");
+        assertNull(sync.awaitAccessToken());
+        assertFalse(sync.awaitSession());
+
+        sync.setAccessToken(TOKEN);
+        assertEquals(TOKEN, sync.awaitAccessToken());
+        // A late report about the old token doesn't reject the new one
+        sync.rejectAccessToken("expired");
+        assertEquals(TOKEN, sync.awaitAccessToken());
+    }
+
+    @Test
+    public void flush_withoutASession_reportsTheLinksHeld() throws Exception {
+        SavedLinkSync sync = newSync(folder.newFolder(), 60_000);
+        sync.enqueue("https://youtu.be/a", "category", null, null);
+        sync.flush();
+
+        SavedLinkSync.Result held = awaitResults(1).get(0);
+        assertTrue(held.queued);
+        assertEquals(SavedLinkSync.ERROR_SESSION_EXPIRED, held.error);
+        assertTrue(batches.isEmpty());
+        assertEquals(1, sync.stats().pending);
+    }
+
+    @Test
+    public void flush_refusedBatch_failsOnlyTheLinkToBlame() throws Exception {
+        SavedLinkSync sync = newSync(folder.newFolder(), 50);
+        sync.setAccessToken(TOKEN);
+        String first = sync.enqueue("https://youtu.be/first", "category", null, null);
+        String malformed = sync.enqueue("https://youtu.be/malformed", "category", null, null);
+        String last = sync.enqueue("https://youtu.be/last", "category", null, null);
+        sync.flush();
+
+        List<SavedLinkSync.Result> received = awaitResults(3);
+
+        assertEquals(first, received.get(0).id);
+        assertTrue(received.get(0).saved);
+        assertEquals(malformed, received.get(1).id);
+        assertFalse(received.get(1).saved);
+        assertEquals("HTTP 400", received.get(1).error);
+        assertEquals(last, received.get(2).id);
+        assertTrue(received.get(2).saved);
+        // The whole batch, then one link at a time
+        assertEquals(3, batches.get(0).length());
+        assertEquals(1, batches.get(1).length());
+        SavedLinkSync.Stats stats = sync.stats();
+        assertEquals(0, stats.pending);
+        assertEquals(2, stats.saved);
+        assertEquals(1, stats.failed);
+    }
+
+    @Test
+    public void consecutiveBatches_reuseTheConnection() throws Exception {
+        SavedLinkSync sync = newSync(folder.newFolder(), 60_000);
+        sync.setAccessToken(TOKEN);
+        sync.enqueue("https://youtu.be/a", "category", null, null);
+        sync.flush();
+        awaitResults(1);
+        sync.enqueue("https://youtu.be/b", "category", null, null);
+        sync.flush();
+        awaitResults(1);
+
+        assertEquals(2, clientPorts.size());
+        assertEquals(clientPorts.get(0), clientPorts.get(1));
+    }
+
+    @Test
+    public void restart_restoresTheQueueAndSession() throws Exception {
+        File directory = folder.newFolder();
+        SavedLinkSync first = newSync(directory, 60_000);
+        status = 503;
+        first.setAccessToken(TOKEN);
+        first.enqueue("https://youtu.be/kept", "category", null, null);
+        first.flush();
+        while (first.stats().retried == 0) {
+            Thread.sleep(10);
+        }
+
+        // A new process: the queue and the token come back from disk
+        status = 200;
+        SavedLinkSync second = newSync(directory, 60_000);
+        second.flush();
+
+        SavedLinkSync.Result result = awaitResults(1).get(0);
+        assertTrue(result.saved);
+        assertEquals("https://youtu.be/kept", result.url);
+    }
+}
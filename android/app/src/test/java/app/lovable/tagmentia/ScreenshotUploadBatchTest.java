@@ -0,0 +1,271 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local unit tests for the native screenshot upload engine, against an in-process stand-in for
+ * Supabase Storage's tus endpoint and the upload-screenshot function
+ */
+public class ScreenshotUploadBatchTest {
+    private static final String UPLOADS = "/storage/v1/upload/resumable";
+    private static final String OBJECTS = "/storage/v1/object/public";
+    private static final int CHUNK = 1024;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private HttpServer server;
+    private String base;
+    private final Map<String, ByteArrayOutputStream> stored = new ConcurrentHashMap<>();
+    private final Map<String, String> objectNames = new ConcurrentHashMap<>();
+    private final Map<String, Integer> bucketObjects = new ConcurrentHashMap<>();
+    private final List<String> registrations = new CopyOnWriteArrayList<>();
+    private final AtomicLong chunkBytesReceived = new AtomicLong();
+    private final AtomicInteger failChunk = new AtomicInteger(-1);
+    private final AtomicInteger chunks = new AtomicInteger();
+    private final AtomicInteger uploadIds = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(UPLOADS, exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestHeaders().getFirst("X-HTTP-Method-Override");
+            method = method != null ? method : exchange.getRequestMethod();
+            byte[] body = read(exchange.getRequestBody());
+            if (path.equals(UPLOADS) && method.equals("POST")) {
+                String id = "u" + uploadIds.getAndIncrement();
+                stored.put(id, new ByteArrayOutputStream());
+                objectNames.put(id, exchange.getRequestHeaders().getFirst("Upload-Metadata"));
+                exchange.getResponseHeaders().add("Location", UPLOADS + "/" + id);
+                exchange.sendResponseHeaders(201, -1);
+            } else {
+                ByteArrayOutputStream upload = stored.get(path.substring(UPLOADS.length() + 1));
+                if (upload == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else if (method.equals("HEAD") && !"Bearer token".equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                    // Storage answers an offset lookup with a token it won't take like this
+                    exchange.sendResponseHeaders(403, -1);
+                } else if (method.equals("HEAD")) {
+                    exchange.getResponseHeaders().add("Upload-Offset", Integer.toString(upload.size()));
+                    exchange.sendResponseHeaders(200, -1);
+                } else if (chunks.getAndIncrement() == failChunk.get()) {
+                    exchange.sendResponseHeaders(503, -1);
+                } else if (Long.parseLong(exchange.getRequestHeaders().getFirst("Upload-Offset")) != upload.size()) {
+                    exchange.sendResponseHeaders(409, -1);
+                } else {
+                    synchronized (upload) {
+                        upload.write(body);
+                    }
+                    chunkBytesReceived.addAndGet(body.length);
+                    exchange.getResponseHeaders().add("Upload-Offset", Integer.toString(upload.size()));
+                    exchange.sendResponseHeaders(204, -1);
+                }
+            }
+            exchange.close();
+        });
+        server.createContext(OBJECTS, exchange -> {
+            Integer length = bucketObjects.get(exchange.getRequestURI().getPath().substring(OBJECTS.length() + 1));
+            if (length != null) {
+                exchange.getResponseHeaders().add("Content-Length", Integer.toString(length));
+            }
+            exchange.sendResponseHeaders(length != null ? 200 : 404, -1);
+            exchange.close();
+        });
+        server.createContext("/functions/v1/upload-screenshot", exchange -> {
+            String body = new String(read(exchange.getRequestBody()), "UTF-8");
+            boolean authorized = "Bearer token".equals(exchange.getRequestHeaders().getFirst("Authorization"));
+            registrations.add(body);
+            respond(exchange, authorized ? 200 : 401, authorized ? "{\"uploaded\":1}" : "{\"error\":\"Unauthorized\"}");
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes("UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private File image(String name, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        File file = new File(temp.getRoot(), name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+        return file;
+    }
+
+    private ScreenshotUploadBatch.Outcome run(ScreenshotUploadBatch batch, List<Long> progress) {
+        return run(batch, "token", progress);
+    }
+
+    private ScreenshotUploadBatch.Outcome run(ScreenshotUploadBatch batch, String accessToken, List<Long> progress) {
+        return batch.run(new ResumableUploader(base + UPLOADS, base + OBJECTS, "anon", CHUNK),
+            base + "/functions/v1/upload-screenshot", "anon", accessToken, (id, uploaded, total) -> progress.add(uploaded));
+    }
+
+    private ScreenshotUploadBatch batch(File... files) throws IOException {
+        return ScreenshotUploadBatch.create(temp.newFolder("uploads"), Arrays.asList(files), "user", "cat", "video");
+    }
+
+    @Test
+    public void run_uploadsEveryFileInChunksAndRegistersThem() throws IOException {
+        File a = image("shared_image_1_1.jpg", 3000);
+        File b = image("shared_image_1_2.png", 1500);
+        byte[] aBytes = java.nio.file.Files.readAllBytes(a.toPath());
+        ScreenshotUploadBatch batch = batch(a, b);
+        assertFalse(a.exists());
+
+        List<Long> progress = new CopyOnWriteArrayList<>();
+        assertEquals(ScreenshotUploadBatch.Outcome.DONE, run(batch, progress));
+
+        assertEquals(2, stored.size());
+        assertEquals(4500, chunkBytesReceived.get());
+        assertEquals(Long.valueOf(4500), progress.get(progress.size() - 1));
+        boolean found = false;
+        for (ByteArrayOutputStream upload : stored.values()) {
+            found |= Arrays.equals(aBytes, upload.toByteArray());
+        }
+        assertTrue(found);
+        assertEquals(1, registrations.size());
+        assertTrue(registrations.get(0), registrations.get(0).matches(
+            "\\{\"videoId\":\"video\",\"categoryId\":\"cat\",\"setThumbnail\":true,\"paths\":\\[\"user/cat/video/[0-9a-f-]+\\.jpg\",\"user/cat/video/[0-9a-f-]+\\.png\"]}"));
+    }
+
+    @Test
+    public void run_afterInterruption_resumesAtServerOffset() throws IOException {
+        ScreenshotUploadBatch batch = batch(image("shared_image_1_1.jpg", 3000));
+        failChunk.set(1);
+        assertEquals(ScreenshotUploadBatch.Outcome.RETRY, run(batch, new ArrayList<>()));
+        assertNotNull(batch.error());
+        assertEquals(CHUNK, chunkBytesReceived.get());
+
+        // A later attempt, e.g. after the process was killed, starts from what is on disk
+        ScreenshotUploadBatch reloaded = ScreenshotUploadBatch.load(temp.getRoot().toPath().resolve("uploads").toFile(), batch.id());
+        assertNotNull(reloaded);
+        assertEquals(ScreenshotUploadBatch.Outcome.DONE, run(reloaded, new ArrayList<>()));
+        assertEquals(1, stored.size());
+        assertEquals(3000, chunkBytesReceived.get());
+        assertEquals(1, registrations.size());
+    }
+
+    @Test
+    public void run_rejectedToken_waitsForTheNextSessionWithoutReuploading() throws IOException {
+        ScreenshotUploadBatch batch = batch(image("shared_image_1_1.jpg", 100));
+        assertEquals(ScreenshotUploadBatch.Outcome.UNAUTHORIZED, run(batch, "expired", new ArrayList<>()));
+        assertTrue(batch.error().contains("401"));
+        assertTrue(batch.isAwaitingSession());
+        assertEquals(100, chunkBytesReceived.get());
+
+        // The files stay with the batch; a run with a refreshed token only registers them
+        ScreenshotUploadBatch reloaded = ScreenshotUploadBatch.load(temp.getRoot().toPath().resolve("uploads").toFile(), batch.id());
+        assertNotNull(reloaded);
+        assertTrue(reloaded.isAwaitingSession());
+        assertEquals(ScreenshotUploadBatch.Outcome.DONE, run(reloaded, "token", new ArrayList<>()));
+        assertFalse(reloaded.isAwaitingSession());
+        assertEquals(100, chunkBytesReceived.get());
+        assertEquals(2, registrations.size());
+    }
+
+    @Test
+    public void run_rejectedTokenOnResume_keepsTheUploadForTheNextSession() throws IOException {
+        ScreenshotUploadBatch batch = batch(image("shared_image_1_1.jpg", 3000));
+        failChunk.set(1);
+        assertEquals(ScreenshotUploadBatch.Outcome.RETRY, run(batch, new ArrayList<>()));
+
+        // The offset lookup is refused - that's the token, not a vanished upload to start over
+        assertEquals(ScreenshotUploadBatch.Outcome.UNAUTHORIZED, run(batch, "expired", new ArrayList<>()));
+        assertTrue(batch.isAwaitingSession());
+        assertEquals(1, stored.size());
+
+        assertEquals(ScreenshotUploadBatch.Outcome.DONE, run(batch, "token", new ArrayList<>()));
+        assertEquals(1, stored.size());
+        assertEquals(3000, chunkBytesReceived.get());
+    }
+
+    @Test
+    public void run_withoutASession_sendsNothing() throws IOException {
+        ScreenshotUploadBatch batch = batch(image("shared_image_1_1.jpg", 100));
+        assertEquals(ScreenshotUploadBatch.Outcome.UNAUTHORIZED, run(batch, null, new ArrayList<>()));
+        assertTrue(batch.isAwaitingSession());
+        assertTrue(stored.isEmpty());
+        assertTrue(registrations.isEmpty());
+    }
+
+    @Test
+    public void run_contentAddressedFile_skipsBytesTheBucketAlreadyHas() throws IOException {
+        String hash = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+        File stored = image("shared_image_" + hash + "_c.webp", 2000);
+        File fresh = image("shared_image_" + hash.replace('a', 'b') + ".png", 500);
+        bucketObjects.put("screenshots/user/cat/video/" + hash + "_c.webp", 2000);
+        ScreenshotUploadBatch batch = batch(stored, fresh);
+        // Other shares may still reference the stored files
+        assertTrue(stored.exists());
+        assertTrue(fresh.exists());
+
+        List<Long> progress = new CopyOnWriteArrayList<>();
+        assertEquals(ScreenshotUploadBatch.Outcome.DONE, run(batch, progress));
+
+        assertEquals(1, this.stored.size());
+        assertEquals(500, chunkBytesReceived.get());
+        assertEquals(Long.valueOf(2500), Collections.max(progress));
+        assertEquals("{\"videoId\":\"video\",\"categoryId\":\"cat\",\"setThumbnail\":true,\"paths\":[\"user/cat/video/"
+            + hash + "_c.webp\",\"user/cat/video/" + hash.replace('a', 'b') + ".png\"]}", registrations.get(0));
+    }
+
+    @Test
+    public void base64_matchesTusMetadataEncoding() {
+        assertEquals("c2NyZWVuc2hvdHM=", ResumableUploader.base64("screenshots"));
+        assertEquals("aW1hZ2UvanBlZw==", ResumableUploader.base64("image/jpeg"));
+        assertEquals("", ResumableUploader.base64(""));
+    }
+}
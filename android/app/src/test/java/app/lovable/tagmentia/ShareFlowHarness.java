@@ -0,0 +1,250 @@
+package app.lovable.tagmentia;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.webkit.ValueCallback;
+import android.webkit.WebView;
+
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Drives a ShareFlowController the way MainActivity does, with the Capacitor bridge replaced by fakes
+ *
+ * The WebView records every evaluateJavascript call and the delegate every share event, each
+ * stamped with the virtual time it happened at. The main looper runs on Robolectric's virtual
+ * clock and only moves when advance() says so; background work (ingestion, journal I/O) runs on
+ * real threads and is waited for without moving the clock, so a scenario's timings are exact
+ */
+final class ShareFlowHarness {
+    private static final long AWAIT_TIMEOUT_MS = 5000;
+
+    /**
+     * Something the flow handed the web app, and when
+     */
+    static final class Call<T> {
+        final T value;
+        final long atMs;
+
+        Call(T value, long atMs) {
+            this.value = value;
+            this.atMs = atMs;
+        }
+    }
+
+    final List<Call<String>> scripts = new ArrayList<>();
+    final List<Call<PendingShareJournal.Entry>> published = new ArrayList<>();
+    final List<Call<String>> resolvedUrls = new ArrayList<>();
+    final PendingShareJournal journal;
+    final ShareLatencyTracker latency = new ShareLatencyTracker(null);
+    final ShareFlowController flow;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Where each short link leads - the resolver never touches the network
+    private final Map<String, String> redirects = new ConcurrentHashMap<>();
+    private final long origin = SystemClock.uptimeMillis();
+    private long acknowledgeAfterMs = -1;
+    private boolean loaded = false;
+
+    ShareFlowHarness(File directory) {
+        Context context = RuntimeEnvironment.getApplication();
+        WebView webView = new WebView(context) {
+            @Override
+            public void evaluateJavascript(String script, ValueCallback<String> resultCallback) {
+                scripts.add(new Call<>(script, now()));
+            }
+        };
+        journal = new PendingShareJournal(directory);
+        flow = new ShareFlowController(context, new ShareFlowController.Delegate() {
+                @Override
+                public void publishShare(PendingShareJournal.Entry entry) {
+                    published.add(new Call<>(entry, now()));
+                    if (acknowledgeAfterMs >= 0) {
+                        // The web app takes the share over once the add form has mounted
+                        mainHandler.postDelayed(() -> flow.onShareAcknowledged(entry.id), acknowledgeAfterMs);
+                    }
+                }
+
+                @Override
+                public void shareUrlResolved(String shareId, String shortUrl, String url) {
+                    resolvedUrls.add(new Call<>(url, now()));
+                }
+
+                @Override
+                public void shareProgress(String shareId, int completed, int total) {
+                    // Only multi-image shares report progress, and the scenarios share text
+                }
+
+                @Override
+                public String referrerHost() {
+                    return "com.example.sharer";
+                }
+            },
+            new BridgeScriptDispatcher(() -> webView),
+            journal,
+            latency,
+            new ShortLinkResolver(new File(directory, "short_links.json"), 60_000) {
+                @Override
+                String follow(String url) throws IOException {
+                    return awaitRedirect(url);
+                }
+            },
+            // Nothing listens on the discard port - prefetches of supported links fail at once, locally
+            new MetadataPrefetcher("http://127.0.0.1:9/functions/v1/fetch-metadata", "anon"));
+    }
+
+    /**
+     * Simulated milliseconds since the harness was created
+     */
+    long now() {
+        return SystemClock.uptimeMillis() - origin;
+    }
+
+    /**
+     * Let a short link resolve: until this is called, following it hangs like a slow network
+     */
+    void redirect(String shortUrl, String location) {
+        redirects.put(shortUrl, location);
+    }
+
+    /**
+     * Stand-in for the network on the short link thread: the scripted target, or a failure once
+     * ShortLinkResolver.RESOLVE_BUDGET_MS (real time) passes without one
+     */
+    private String awaitRedirect(String url) throws IOException {
+        long deadline = System.currentTimeMillis() + ShortLinkResolver.RESOLVE_BUDGET_MS;
+        while (!redirects.containsKey(url)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IOException("No redirect scripted for " + url);
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+        return redirects.get(url);
+    }
+
+    /**
+     * Start the flow (journal replay) and wait until it is loaded
+     */
+    ShareFlowHarness start() {
+        flow.start(() -> loaded = true);
+        await(() -> loaded);
+        return this;
+    }
+
+    /**
+     * Have the fake web app acknowledge every share it receives after the given delay
+     */
+    ShareFlowHarness acknowledgeAfter(long delayMs) {
+        acknowledgeAfterMs = delayMs;
+        return this;
+    }
+
+    /**
+     * Share text the way a browser or the YouTube app does, and wait until it is ingested
+     */
+    void shareText(String text, boolean coldStart) {
+        shareTexts(Collections.singletonList(text), coldStart);
+    }
+
+    /**
+     * Share several texts back to back, the way a burst of intents reaches the activity - each one
+     * arrives while the previous ones are still being ingested - then wait until all are journaled
+     * and ingested
+     */
+    void shareTexts(List<String> texts, boolean coldStart) {
+        int before = journal.pendingEntries().size();
+        for (String text : texts) {
+            flow.handleIntent(new Intent(Intent.ACTION_SEND).setType("text/plain").putExtra(Intent.EXTRA_TEXT, text), coldStart);
+        }
+        // Acknowledgements need virtual time, so nothing leaves the journal while this waits
+        await(() -> journal.pendingEntries().size() >= before + texts.size() && allIngested());
+    }
+
+    /**
+     * Wait until no journaled share is still raw
+     */
+    void awaitIngested() {
+        await(this::allIngested);
+    }
+
+    private boolean allIngested() {
+        for (PendingShareJournal.Entry entry : journal.pendingEntries()) {
+            if (entry.raw) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void openDeepLink(String uri, boolean coldStart) {
+        flow.handleIntent(new Intent(Intent.ACTION_VIEW, Uri.parse(uri)), coldStart);
+    }
+
+    void webAppReady() {
+        flow.onWebAppReady();
+    }
+
+    void pageReloaded() {
+        flow.onPageStarted();
+    }
+
+    /**
+     * Move the virtual clock, running every main looper task that becomes due
+     */
+    void advance(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+
+    /**
+     * Whether anything - a retry, a poll, a deferred flush - is still scheduled on the main looper
+     */
+    boolean hasScheduledWork() {
+        return !shadowOf(Looper.getMainLooper()).getNextScheduledTaskTime().equals(Duration.ZERO);
+    }
+
+    /**
+     * Wait (in real time, virtual clock frozen) for background work to produce a condition
+     */
+    void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MS;
+        while (true) {
+            shadowOf(Looper.getMainLooper()).idle();
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Share flow did not settle within " + AWAIT_TIMEOUT_MS + "ms");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    void destroy() {
+        flow.onDestroy();
+    }
+}
@@ -0,0 +1,228 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import android.content.Intent;
+import android.net.Uri;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Share flow scenarios end to end - intent, journal, bridge queue, WebView - on a virtual clock
+ *
+ * Each scenario pins down when the web app hears about a share and how many bridge round trips it
+ * costs, and checks that nothing is left polling on the main looper afterwards
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ShareFlowTest {
+    // Budgets: a share reaches a ready web app within one coalescing window, and a cold start
+    // delivers it the moment the router mounts
+    private static final long WARM_DELIVERY_BUDGET_MS = BridgeCommandQueue.COALESCE_MS;
+    private static final long COLD_BOOT_MS = 1200;
+    private static final long SLOW_BOOT_MS = 5000;
+    private static final long ACKNOWLEDGE_MS = 300;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private ShareFlowHarness harness;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("files");
+    }
+
+    @After
+    public void tearDown() {
+        if (harness != null) {
+            harness.destroy();
+        }
+    }
+
+    @Test
+    public void coldStart_deliversTheShareTheMomentTheWebAppIsReady() {
+        harness = new ShareFlowHarness(directory).acknowledgeAfter(ACKNOWLEDGE_MS).start();
+        harness.shareText("Look at this https://example.com/cold", true);
+
+        harness.advance(COLD_BOOT_MS);
+        assertTrue(harness.published.isEmpty());
+        harness.webAppReady();
+
+        assertEquals(1, harness.published.size());
+        assertEquals(COLD_BOOT_MS, harness.published.get(0).atMs);
+        assertTrue(harness.published.get(0).value.value.contains("example.com/cold"));
+        // The share travels as a plugin event, not as an injected script
+        assertTrue(harness.scripts.isEmpty());
+        assertEquals(1, harness.flow.getBridgeCommands().stats().flushes);
+
+        harness.advance(ACKNOWLEDGE_MS);
+        assertTrue(harness.journal.pendingEntries().isEmpty());
+        assertTrue(harness.latency.summaries().containsKey("cold.acknowledged"));
+        assertFalse(harness.hasScheduledWork());
+    }
+
+    @Test
+    public void warmStart_deliversTheShareWithinOneCoalescingWindow() {
+        harness = new ShareFlowHarness(directory).start();
+        harness.webAppReady();
+        long sharedAt = harness.now();
+        harness.shareText("https://example.com/warm", false);
+
+        harness.advance(WARM_DELIVERY_BUDGET_MS);
+
+        assertEquals(1, harness.published.size());
+        assertTrue(harness.published.get(0).atMs - sharedAt <= WARM_DELIVERY_BUDGET_MS);
+        assertFalse(harness.hasScheduledWork());
+    }
+
+    @Test
+    public void warmStart_shortLinkGoesOutBeforeItIsResolved() {
+        harness = new ShareFlowHarness(directory).start();
+        harness.webAppReady();
+        long sharedAt = harness.now();
+        harness.shareText("https://vm.tiktok.com/ZMabcdef/", false);
+        harness.advance(WARM_DELIVERY_BUDGET_MS);
+
+        // Following the redirect takes up to ShortLinkResolver.RESOLVE_BUDGET_MS - the share doesn't wait for it
+        assertEquals(1, harness.published.size());
+        assertTrue(harness.published.get(0).atMs - sharedAt <= WARM_DELIVERY_BUDGET_MS);
+        assertTrue(harness.published.get(0).value.value.startsWith("https://vm.tiktok.com/ZMabcdef"));
+
+        // Once resolved, the canonical URL replaces the short link in the journal and the add form
+        harness.redirect("https://vm.tiktok.com/ZMabcdef/",
+            "https://www.tiktok.com/@user.name/video/7234567890123456789?is_from_webapp=1&sender_device=pc");
+        String resolved = "https://www.tiktok.com/@user.name/video/7234567890123456789";
+        harness.await(() -> resolved.equals(harness.journal.pendingEntries().get(0).value));
+        harness.advance(BridgeCommandQueue.COALESCE_MS);
+        assertEquals(1, harness.resolvedUrls.size());
+        assertEquals(resolved, harness.resolvedUrls.get(0).value);
+        assertEquals(1, harness.published.size());
+    }
+
+    @Test
+    public void deepLinkBurst_endsInOneNavigationToTheLatestLink() {
+        harness = new ShareFlowHarness(directory).start();
+        harness.webAppReady();
+
+        for (int i = 1; i <= 5; i++) {
+            harness.openDeepLink("tagmentia://add?url=https%3A%2F%2Fexample.com%2F" + i, false);
+            harness.advance(10);
+        }
+        harness.advance(BridgeCommandQueue.COALESCE_MS);
+
+        assertEquals(1, harness.scripts.size());
+        String script = harness.scripts.get(0).value;
+        assertTrue(script.contains("example.com/5"));
+        assertFalse(script.contains("example.com/1"));
+        assertEquals(4, harness.flow.getBridgeCommands().stats().coalesced);
+        assertFalse(harness.hasScheduledWork());
+    }
+
+    @Test
+    public void shareBurst_deliversEachShareOnceInOrderOneAtATime() {
+        harness = new ShareFlowHarness(directory).acknowledgeAfter(ACKNOWLEDGE_MS).start();
+        harness.webAppReady();
+
+        List<String> burst = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            burst.add("https://example.com/burst/" + i);
+        }
+        harness.shareTexts(burst, false);
+        harness.advance(6 * (ACKNOWLEDGE_MS + BridgeCommandQueue.COALESCE_MS));
+
+        assertEquals(5, harness.published.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(harness.published.get(i).value.value.contains("example.com/burst/" + (i + 1)));
+            if (i > 0) {
+                // The next share only goes out once the previous one was acknowledged
+                assertTrue(harness.published.get(i).atMs - harness.published.get(i - 1).atMs >= ACKNOWLEDGE_MS);
+            }
+        }
+        assertTrue(harness.journal.pendingEntries().isEmpty());
+        assertFalse(harness.hasScheduledWork());
+    }
+
+    @Test
+    public void slowWebView_reloadBeforeAcknowledging_redeliversTheShareOnce() {
+        harness = new ShareFlowHarness(directory).start();
+        harness.shareText("https://example.com/slow", true);
+
+        harness.advance(SLOW_BOOT_MS);
+        harness.webAppReady();
+        assertEquals(1, harness.published.size());
+
+        // The page reloads before the web app took the share over
+        harness.pageReloaded();
+        harness.advance(SLOW_BOOT_MS);
+        assertEquals(1, harness.published.size());
+        harness.webAppReady();
+
+        assertEquals(2, harness.published.size());
+        assertEquals(harness.published.get(0).value.id, harness.published.get(1).value.id);
+        assertEquals(0, harness.flow.getBridgeCommands().stats().failed);
+        assertFalse(harness.hasScheduledWork());
+    }
+
+    @Test
+    public void launchRoute_textSharesAndAddLinksBootOnAdd() {
+        assertEquals("/add", ShareFlowController.launchRoute(new Intent(Intent.ACTION_SEND)
+            .setType("text/plain").putExtra(Intent.EXTRA_TEXT, "https://example.com")));
+        assertEquals("/add", ShareFlowController.launchRoute(new Intent(Intent.ACTION_VIEW,
+            Uri.parse("tagmentia://add?url=https%3A%2F%2Fexample.com"))));
+        assertNull(ShareFlowController.launchRoute(new Intent(Intent.ACTION_SEND).setType("image/png")));
+        assertNull(ShareFlowController.launchRoute(new Intent(Intent.ACTION_MAIN)));
+    }
+
+    @Test
+    public void restart_replaysTheUnacknowledgedShare() {
+        harness = new ShareFlowHarness(directory).start();
+        harness.shareText("https://example.com/replay", true);
+        harness.flow.onStop();
+        File journalFile = new File(directory, "pending-shares.journal");
+        harness.await(() -> journalFile.length() > 0);
+        harness.destroy();
+
+        // The process was killed before the web app came up
+        harness = new ShareFlowHarness(directory).start();
+        harness.webAppReady();
+
+        assertEquals(1, harness.published.size());
+        assertTrue(harness.published.get(0).value.value.contains("example.com/replay"));
+        assertFalse(harness.hasScheduledWork());
+    }
+
+    @Test
+    public void restart_ingestsAShareJournaledRawBeforeTheKill() throws Exception {
+        // The process died after the intent was journaled but before its link was extracted
+        PendingShareJournal killed = new PendingShareJournal(directory);
+        killed.appendRaw(PendingShareJournal.KIND_URL,
+            ShareFlowController.rawTextPayload("Watch this https://youtu.be/dQw4w9WgXcQ?si=tracking", null).toString(),
+            "com.example.sharer");
+        killed.flush();
+        File journalFile = new File(directory, "pending-shares.journal");
+        harness = new ShareFlowHarness(directory);
+        harness.await(() -> journalFile.length() > 0);
+
+        harness.start();
+        harness.webAppReady();
+        harness.awaitIngested();
+        harness.advance(WARM_DELIVERY_BUDGET_MS);
+
+        assertEquals(1, harness.published.size());
+        assertEquals("https://www.youtube.com/watch?v=dQw4w9WgXcQ", harness.published.get(0).value.value);
+        assertFalse(harness.published.get(0).value.raw);
+        assertFalse(harness.hasScheduledWork());
+    }
+}
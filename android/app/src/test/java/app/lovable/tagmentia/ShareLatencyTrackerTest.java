@@ -0,0 +1,92 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * Local unit tests for the share latency traces and histograms, with explicit timestamps
+ */
+public class ShareLatencyTrackerTest {
+    private static final long MS = 1_000_000L;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void stages_areRecordedAsTimeSinceTheIntentPerStartType() {
+        ShareLatencyTracker tracker = new ShareLatencyTracker(null);
+        ShareLatencyTracker.Trace cold = tracker.begin(true, 0);
+        tracker.mark(cold, ShareLatencyTracker.Stage.URL_EXTRACTED, 40 * MS);
+        tracker.attach(cold, "share-1");
+        tracker.mark("share-1", ShareLatencyTracker.Stage.DISPATCHED);
+        assertNotNull(tracker.finish("share-1", 900 * MS));
+
+        ShareLatencyTracker.Trace warm = tracker.begin(false, 1000 * MS);
+        tracker.attach(warm, "share-2");
+        tracker.finish("share-2", 1120 * MS);
+
+        Map<String, ShareLatencyTracker.Summary> summaries = tracker.summaries();
+        assertEquals(40, summaries.get("cold.url_extracted").p50);
+        assertEquals(900, summaries.get("cold.acknowledged").p50);
+        assertEquals(120, summaries.get("warm.acknowledged").p50);
+        assertFalse(summaries.containsKey("warm.url_extracted"));
+    }
+
+    @Test
+    public void mark_onlyTheFirstTimeCountsAndClosedTracesAreIgnored() {
+        ShareLatencyTracker tracker = new ShareLatencyTracker(null);
+        ShareLatencyTracker.Trace trace = tracker.begin(true, 0);
+        tracker.mark(trace, ShareLatencyTracker.Stage.WEBVIEW_READY, 300 * MS);
+        tracker.mark(trace, ShareLatencyTracker.Stage.WEBVIEW_READY, 500 * MS);
+        tracker.attach(trace, "share-1");
+        tracker.finish("share-1", 600 * MS);
+        tracker.mark(trace, ShareLatencyTracker.Stage.DISPATCHED, 700 * MS);
+
+        assertEquals(1, tracker.summaries().get("cold.webview_ready").count);
+        assertEquals(300, tracker.summaries().get("cold.webview_ready").max);
+        assertFalse(tracker.summaries().containsKey("cold.dispatched"));
+        // Replayed shares from an earlier process have no trace
+        assertNull(tracker.finish("unknown", 800 * MS));
+    }
+
+    @Test
+    public void summaries_reportNearestRankPercentiles() {
+        ShareLatencyTracker tracker = new ShareLatencyTracker(null);
+        for (int i = 1; i <= 100; i++) {
+            ShareLatencyTracker.Trace trace = tracker.begin(false, 0);
+            tracker.mark(trace, ShareLatencyTracker.Stage.DISPATCHED, i * MS);
+        }
+        ShareLatencyTracker.Summary summary = tracker.summaries().get("warm.dispatched");
+        assertEquals(100, summary.count);
+        assertEquals(50, summary.p50);
+        assertEquals(95, summary.p95);
+        assertEquals(99, summary.p99);
+        assertEquals(100, summary.max);
+    }
+
+    @Test
+    public void finish_appendsTheTraceToTheLogFile() throws Exception {
+        File log = new File(temp.getRoot(), ShareLatencyTracker.LOG_FILE);
+        ShareLatencyTracker tracker = new ShareLatencyTracker(log);
+        ShareLatencyTracker.Trace trace = tracker.begin(true, 0);
+        tracker.mark(trace, ShareLatencyTracker.Stage.IMAGE_INGESTED, 250 * MS);
+        tracker.attach(trace, "share-1");
+        tracker.finish("share-1", 1250 * MS);
+
+        String line = null;
+        for (int i = 0; i < 100 && (line == null || line.isEmpty()); i++) {
+            Thread.sleep(10); // Written on the tracker's writer thread
+            line = log.exists() ? new String(Files.readAllBytes(log.toPath()), StandardCharsets.UTF_8) : null;
+        }
+        assertNotNull(line);
+        assertTrue(line, line.matches("\\{\"at\":\\d+,\"start\":\"cold\",\"intent_received\":0,\"image_ingested\":250,\"acknowledged\":1250}\n"));
+    }
+}
@@ -0,0 +1,70 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.net.Uri;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Batch ingestion of a multi-image share, with real bitmap decoding and encoding
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class SharedImageBatchIngestorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void ingestAll_sameImageSharedRepeatedly_compressesItOnceIntoOneFile() throws Exception {
+        File shared = folder.newFolder("cache");
+        Uri uri = Uri.fromFile(png(folder.newFile("screenshot.png"), 800, 600));
+        SharedImageBatchIngestor batch = new SharedImageBatchIngestor(
+            RuntimeEnvironment.getApplication().getContentResolver(),
+            new SharedImageIngestor(RuntimeEnvironment.getApplication().getContentResolver(), shared),
+            // Smaller than the image, so every item goes through the encoder
+            new SharedImageCompressor(new SharedImageCompressor.Config(200, 80, true, 0)));
+
+        List<Uri> uris = Arrays.asList(uri, uri, uri, uri);
+        SharedImageBatchIngestor.Result result = batch.ingestAll(uris, null);
+
+        assertEquals(0, result.failed);
+        assertEquals(uris.size(), result.images.size());
+        File stored = result.images.get(0).file;
+        for (SharedImageIngestor.SharedImage image : result.images) {
+            assertEquals(stored, image.file);
+            assertTrue(image.compressed);
+            assertEquals(stored.length(), image.size);
+        }
+        assertTrue(stored.isFile());
+        assertTrue(SharedImageNames.isContentAddressed(stored.getName()));
+        // Only the compressed file is left - no original, no temporary encoder output
+        assertEquals(Arrays.asList(stored.getName()), Arrays.asList(shared.list()));
+    }
+
+    private static File png(File file, int width, int height) throws IOException {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.rgb(30, 120, 200));
+        try (OutputStream out = new FileOutputStream(file)) {
+            assertTrue(bitmap.compress(Bitmap.CompressFormat.PNG, 100, out));
+        }
+        bitmap.recycle();
+        return file;
+    }
+}
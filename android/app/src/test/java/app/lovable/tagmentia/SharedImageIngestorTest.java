@@ -0,0 +1,111 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Random;
+
+/**
+ * Local unit tests for the streaming shared image copy and its content hash
+ */
+public class SharedImageIngestorTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void copy_knownSize_copiesAllBytes() throws Exception {
+        byte[] payload = randomBytes(3 * ChannelCopy.BUFFER_SIZE + 17);
+        File source = writeFile("source.png", payload);
+        File target = temp.newFile("target.png");
+
+        long copied;
+        try (FileInputStream in = new FileInputStream(source);
+             FileOutputStream out = new FileOutputStream(target)) {
+            copied = ChannelCopy.copy(in.getChannel(), out.getChannel(), source.length());
+        }
+
+        assertEquals(payload.length, copied);
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void copy_unknownSize_fallsBackToBufferedCopy() throws Exception {
+        byte[] payload = randomBytes(2 * ChannelCopy.BUFFER_SIZE + 5);
+        File source = writeFile("pipe.jpg", payload);
+        File target = temp.newFile("target.jpg");
+
+        long copied;
+        try (FileInputStream in = new FileInputStream(source);
+             FileOutputStream out = new FileOutputStream(target)) {
+            copied = ChannelCopy.copy(in.getChannel(), out.getChannel(), -1);
+        }
+
+        assertEquals(payload.length, copied);
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void copyAndDigest_copiesAllBytesAndHashesThem() throws Exception {
+        byte[] payload = randomBytes(2 * ChannelCopy.BUFFER_SIZE + 9);
+        File source = writeFile("source.png", payload);
+        File target = temp.newFile("target.png");
+
+        MessageDigest digest = SharedImageIngestor.newDigest();
+        long copied;
+        try (FileInputStream in = new FileInputStream(source);
+             FileOutputStream out = new FileOutputStream(target)) {
+            copied = ChannelCopy.copyAndDigest(in.getChannel(), out.getChannel(), digest);
+        }
+
+        assertEquals(payload.length, copied);
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+        assertEquals(ChannelCopy.toHex(MessageDigest.getInstance("SHA-256").digest(payload)), ChannelCopy.toHex(digest.digest()));
+    }
+
+    @Test
+    public void toHex_matchesKnownSha256() {
+        MessageDigest digest = SharedImageIngestor.newDigest();
+        digest.update("abc".getBytes(StandardCharsets.US_ASCII));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", ChannelCopy.toHex(digest.digest()));
+    }
+
+    @Test
+    public void isContentAddressed_acceptsHashNamesOnly() {
+        String hash = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+        assertTrue(SharedImageNames.isContentAddressed("shared_image_" + hash + ".png"));
+        assertTrue(SharedImageNames.isContentAddressed("shared_image_" + hash + "_c.webp"));
+        assertFalse(SharedImageNames.isContentAddressed("shared_image_1700000000000_1.png"));
+        assertFalse(SharedImageNames.isContentAddressed("shared_image_" + hash + "_c.webp.tmp"));
+        assertFalse(SharedImageNames.isContentAddressed("shared_image_ingest_1700000000000_1.tmp"));
+    }
+
+    @Test
+    public void extensionFor_mapsKnownMimeTypes() {
+        assertEquals("jpg", SharedImageIngestor.extensionFor("image/jpeg"));
+        assertEquals("gif", SharedImageIngestor.extensionFor("image/gif"));
+        assertEquals("webp", SharedImageIngestor.extensionFor("image/webp"));
+        assertEquals("png", SharedImageIngestor.extensionFor("image/heic"));
+    }
+
+    private File writeFile(String name, byte[] payload) throws Exception {
+        File file = temp.newFile(name);
+        Files.write(file.toPath(), payload);
+        return file;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,89 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Local unit tests for the shared media cache trim pass
+ */
+public class SharedMediaCacheTest {
+    private static final long NOW = 1_000_000_000_000L;
+    private static final long HOUR = 60L * 60 * 1000;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File file(String name, int size, long ageMs) throws IOException {
+        File file = new File(temp.getRoot(), name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[size]);
+        }
+        assertTrue(file.setLastModified(NOW - ageMs));
+        return file;
+    }
+
+    private SharedMediaCache cache(long maxBytes) {
+        return new SharedMediaCache(temp.getRoot(), maxBytes, 7 * 24 * HOUR, HOUR);
+    }
+
+    private static Set<String> none() {
+        return Collections.emptySet();
+    }
+
+    @Test
+    public void trim_evictsLeastRecentlyUsedUntilWithinBudget() throws IOException {
+        File oldest = file("shared_image_1.jpg", 100, 5 * HOUR);
+        File older = file("shared_image_2.jpg", 100, 4 * HOUR);
+        File recent = file("shared_image_3.jpg", 100, 3 * HOUR);
+
+        SharedMediaCache.Stats stats = cache(250).trim(none(), NOW);
+        assertFalse(oldest.exists());
+        assertTrue(older.exists());
+        assertTrue(recent.exists());
+        assertEquals(2, stats.entries);
+        assertEquals(200, stats.bytes);
+        assertEquals(1, stats.evictedEntries);
+        assertEquals(100, stats.evictedBytes);
+    }
+
+    @Test
+    public void trim_keepsPinnedAndYoungFilesEvenOverBudget() throws IOException {
+        File pinned = file("shared_image_1.jpg", 100, 5 * HOUR);
+        File young = file("shared_image_2.jpg", 100, HOUR / 2);
+
+        SharedMediaCache.Stats stats = cache(50).trim(Collections.singleton(pinned.getName()), NOW);
+        assertTrue(pinned.exists());
+        assertTrue(young.exists());
+        assertEquals(0, stats.evictedEntries);
+    }
+
+    @Test
+    public void trim_evictsExpiredFilesWithinBudget() throws IOException {
+        File expired = file("shared_image_1.jpg", 10, 8 * 24 * HOUR);
+        File fresh = file("shared_image_2.jpg", 10, 2 * HOUR);
+
+        cache(1024).trim(none(), NOW);
+        assertFalse(expired.exists());
+        assertTrue(fresh.exists());
+    }
+
+    @Test
+    public void trim_ignoresOtherCacheFiles() throws IOException {
+        File other = file("short-links.cache", 1000, 30 * 24 * HOUR);
+
+        SharedMediaCache cache = cache(10);
+        cache.trim(none(), NOW);
+        assertTrue(other.exists());
+        assertEquals(0, cache.stats().entries);
+    }
+}
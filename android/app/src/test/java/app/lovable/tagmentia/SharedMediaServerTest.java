@@ -0,0 +1,106 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Local unit tests for serving shared files on the WebView's local origin
+ */
+public class SharedMediaServerTest {
+    private static final byte[] IMAGE = new byte[1000];
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private SharedMediaServer server;
+
+    @Before
+    public void writeImage() throws IOException {
+        for (int i = 0; i < IMAGE.length; i++) {
+            IMAGE[i] = (byte) i;
+        }
+        try (OutputStream out = new FileOutputStream(new File(temp.getRoot(), "shared_image_1_1.jpg"))) {
+            out.write(IMAGE);
+        }
+        try (OutputStream out = new FileOutputStream(new File(temp.getRoot(), "short-links.cache"))) {
+            out.write(1);
+        }
+        server = new SharedMediaServer(temp.getRoot());
+    }
+
+    private static byte[] read(SharedMediaServer.Response response) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = response.body) {
+            byte[] buffer = new byte[64];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void fullRequest_servesWholeFileWithMimeType() throws IOException {
+        SharedMediaServer.Response response = server.serve("/_shared/shared_image_1_1.jpg", null);
+        assertEquals(200, response.status);
+        assertEquals("image/jpeg", response.mimeType);
+        assertEquals("bytes", response.headers.get("Accept-Ranges"));
+        assertEquals("1000", response.headers.get("Content-Length"));
+        assertArrayEquals(IMAGE, read(response));
+    }
+
+    @Test
+    public void byteRange_servesPartialContent() throws IOException {
+        SharedMediaServer.Response response = server.serve("/_shared/shared_image_1_1.jpg", "bytes=100-199");
+        assertEquals(206, response.status);
+        assertEquals("bytes 100-199/1000", response.headers.get("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(IMAGE, 100, 200), read(response));
+
+        response = server.serve("/_shared/shared_image_1_1.jpg", "bytes=900-");
+        assertEquals("bytes 900-999/1000", response.headers.get("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(IMAGE, 900, 1000), read(response));
+    }
+
+    @Test
+    public void suffixRange_servesTail() throws IOException {
+        SharedMediaServer.Response response = server.serve("/_shared/shared_image_1_1.jpg", "bytes=-10");
+        assertEquals(206, response.status);
+        assertEquals("bytes 990-999/1000", response.headers.get("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(IMAGE, 990, 1000), read(response));
+    }
+
+    @Test
+    public void unsatisfiableRange_is416() {
+        SharedMediaServer.Response response = server.serve("/_shared/shared_image_1_1.jpg", "bytes=1000-");
+        assertEquals(416, response.status);
+        assertEquals("bytes */1000", response.headers.get("Content-Range"));
+    }
+
+    @Test
+    public void unsupportedRange_isIgnored() throws IOException {
+        SharedMediaServer.Response response = server.serve("/_shared/shared_image_1_1.jpg", "bytes=0-1,5-6");
+        assertEquals(200, response.status);
+        assertArrayEquals(IMAGE, read(response));
+    }
+
+    @Test
+    public void onlyShareFilesAreReachable() {
+        assertEquals(404, server.serve("/_shared/short-links.cache", null).status);
+        assertEquals(404, server.serve("/_shared/../shared_image_1_1.jpg", null).status);
+        assertEquals(404, server.serve("/_shared/shared_image_missing.jpg", null).status);
+        assertEquals(404, server.serve("/_shared/", null).status);
+    }
+}
@@ -0,0 +1,64 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for shared link canonicalization
+ */
+public class SharedUrlCanonicalizerTest {
+
+    private static String canonical(String url) {
+        return SharedUrlCanonicalizer.canonicalize(url).url;
+    }
+
+    @Test
+    public void youtube_allShareVariantsCollapse() {
+        String expected = "https://www.youtube.com/watch?v=dQw4w9WgXcQ";
+        assertEquals(expected, canonical("https://youtu.be/dQw4w9WgXcQ?si=Gx1k2Yb8c3PqR7sT"));
+        assertEquals(expected, canonical("https://m.youtube.com/watch?v=dQw4w9WgXcQ&feature=share"));
+        assertEquals(expected, canonical("https://youtube.com/shorts/dQw4w9WgXcQ?feature=share"));
+        assertEquals(expected, canonical("http://www.YouTube.com/embed/dQw4w9WgXcQ"));
+        assertEquals(expected, canonical(expected));
+    }
+
+    @Test
+    public void youtube_keepsTimestamp() {
+        SharedUrlCanonicalizer.Result result = SharedUrlCanonicalizer.canonicalize("https://youtu.be/dQw4w9WgXcQ?si=abc&t=42");
+        assertEquals("https://www.youtube.com/watch?v=dQw4w9WgXcQ&t=42", result.url);
+        assertEquals("youtube", result.platform);
+        assertEquals("dQw4w9WgXcQ", result.videoId);
+    }
+
+    @Test
+    public void tiktokInstagramSnapchatLoom() {
+        assertEquals("https://www.tiktok.com/@user.name/video/7234567890123456789",
+            canonical("https://m.tiktok.com/@user.name/video/7234567890123456789/?is_from_webapp=1&sender_device=pc"));
+        assertEquals("https://vm.tiktok.com/ZMh8AbCdE/", canonical("https://vm.tiktok.com/ZMh8AbCdE?_r=1"));
+        assertNull(SharedUrlCanonicalizer.canonicalize("https://vm.tiktok.com/ZMh8AbCdE/").videoId);
+        assertEquals("https://www.instagram.com/reel/C1a2B3c4D5e/",
+            canonical("https://instagram.com/reels/C1a2B3c4D5e?igsh=MWQ1ZGUxMzBkMA=="));
+        assertEquals("https://www.instagram.com/p/C1a2B3c4D5e/", canonical("https://www.instagram.com/someone/p/C1a2B3c4D5e/?img_index=1"));
+        assertEquals("https://www.snapchat.com/spotlight/W7_EDlXWTBiXAEEniNoMPwAAY",
+            canonical("https://snapchat.com/spotlight/W7_EDlXWTBiXAEEniNoMPwAAY?share_id=x&locale=en"));
+        assertEquals("https://www.loom.com/share/0281766fa2d04bb788eaf19e65135184",
+            canonical("https://loom.com/share/0281766fa2d04bb788eaf19e65135184?sid=1"));
+    }
+
+    @Test
+    public void unmatchedLinks_onlyLoseTrackingParams() {
+        assertEquals("https://www.youtube.com/@channel?view=0",
+            canonical("https://www.youtube.com/@channel?si=abc&view=0&utm_source=share"));
+        assertEquals("https://example.com/a?ref=home#top",
+            canonical("https://example.com/a?utm_medium=x&ref=home&fbclid=1#top"));
+        assertEquals("https://example.com/a", canonical("https://example.com/a?utm_source=x"));
+        assertNull(SharedUrlCanonicalizer.canonicalize("https://example.com/a").platform);
+    }
+
+    @Test
+    public void nonHttp_returnsNull() {
+        assertNull(SharedUrlCanonicalizer.canonicalize("content://media/1"));
+        assertNull(SharedUrlCanonicalizer.canonicalize(null));
+    }
+}
@@ -0,0 +1,56 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for shared-text URL extraction
+ */
+public class SharedUrlExtractorTest {
+
+    @Test
+    public void extract_plainUrl() {
+        assertEquals("https://youtu.be/abc123", SharedUrlExtractor.extract("  https://youtu.be/abc123\n"));
+    }
+
+    @Test
+    public void extract_urlEmbeddedInMessage_stripsTrailingPunctuation() {
+        assertEquals("https://www.tiktok.com/@user/video/42",
+            SharedUrlExtractor.extract("Check out this video: (https://www.tiktok.com/@user/video/42)."));
+    }
+
+    @Test
+    public void extract_bareSupportedHost_getsHttpsPrefix() {
+        assertEquals("https://instagram.com/reel/xyz", SharedUrlExtractor.extract("look instagram.com/reel/xyz!"));
+        assertEquals("https://www.loom.com/share/1", SharedUrlExtractor.extract("www.loom.com/share/1"));
+    }
+
+    @Test
+    public void extract_prefersExplicitUrlOverLaterOrWeakerCandidates() {
+        assertEquals("https://example.com/a", SharedUrlExtractor.extract("YouTube.com/x then https://example.com/a"));
+        assertEquals("https://YouTube.com/x", SharedUrlExtractor.extract("file.txt YouTube.com/x"));
+        assertEquals("https://m.youtube.net/watch", SharedUrlExtractor.extract("see m.youtube.net/watch"));
+    }
+
+    @Test
+    public void extract_lowerCasesSchemeOnly() {
+        assertEquals("https://Snapchat.com/Add/Me", SharedUrlExtractor.extract("HTTPS://Snapchat.com/Add/Me"));
+    }
+
+    @Test
+    public void extract_noUrl_returnsNull() {
+        assertNull(SharedUrlExtractor.extract("just some words, nothing here"));
+        assertNull(SharedUrlExtractor.extract("readme.md"));
+        assertNull(SharedUrlExtractor.extract(""));
+        assertNull(SharedUrlExtractor.extract(null));
+    }
+
+    @Test
+    public void isHttpUrl_checksSchemeOnly() {
+        assertTrue(SharedUrlExtractor.isHttpUrl("https://tagmentia.com"));
+        assertTrue(SharedUrlExtractor.isHttpUrl("http:foo"));
+        assertFalse(SharedUrlExtractor.isHttpUrl("content://media/1"));
+        assertFalse(SharedUrlExtractor.isHttpUrl(null));
+    }
+}
@@ -0,0 +1,146 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Local unit tests for short link resolution, against an in-process HTTP server
+ */
+public class ShortLinkResolverTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private HttpServer server;
+    private String base;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.add(exchange.getRequestMethod() + " " + path);
+            int status;
+            switch (path) {
+                case "/short":
+                    exchange.getResponseHeaders().add("Location", base + "/hop");
+                    status = 301;
+                    break;
+                case "/hop":
+                    exchange.getResponseHeaders().add("Location", "/@user/video/42?_r=1");
+                    status = 302;
+                    break;
+                case "/loop":
+                    exchange.getResponseHeaders().add("Location", "/loop");
+                    status = 302;
+                    break;
+                case "/no-head":
+                    if ("HEAD".equals(exchange.getRequestMethod())) {
+                        status = 405;
+                    } else {
+                        exchange.getResponseHeaders().add("Location", "/final");
+                        status = 302;
+                    }
+                    break;
+                case "/app":
+                    exchange.getResponseHeaders().add("Location", "snssdk1233://aweme/detail/42");
+                    status = 302;
+                    break;
+                case "/gone":
+                    status = 404;
+                    break;
+                default:
+                    status = 200;
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private ShortLinkResolver resolver(long ttlMs) {
+        return new ShortLinkResolver(new File(temp.getRoot(), "short-links.cache"), ttlMs);
+    }
+
+    @Test
+    public void resolve_followsRelativeAndAbsoluteRedirectsWithHead() {
+        assertEquals(base + "/@user/video/42?_r=1", resolver(60_000).resolve(base + "/short"));
+        assertEquals(3, requests.size());
+        for (String request : requests) {
+            assertTrue(request, request.startsWith("HEAD "));
+        }
+    }
+
+    @Test
+    public void resolve_isCachedInMemoryAndOnDisk() {
+        String expected = base + "/@user/video/42?_r=1";
+        ShortLinkResolver resolver = resolver(60_000);
+        assertEquals(expected, resolver.resolve(base + "/short"));
+        assertEquals(expected, resolver.resolve(base + "/short"));
+        assertEquals(3, requests.size());
+
+        server.stop(0);
+        assertEquals(expected, resolver(60_000).resolve(base + "/short"));
+    }
+
+    @Test
+    public void resolve_expiredEntryIsFetchedAgain() {
+        ShortLinkResolver resolver = resolver(-1);
+        resolver.resolve(base + "/short");
+        resolver.resolve(base + "/short");
+        assertEquals(6, requests.size());
+    }
+
+    @Test
+    public void resolve_fallsBackToGetWhenHeadIsRefused() {
+        assertEquals(base + "/final", resolver(60_000).resolve(base + "/no-head"));
+        assertEquals("GET /no-head", requests.get(1));
+    }
+
+    @Test
+    public void resolve_stopsAtAppSchemeRedirect() {
+        assertEquals(base + "/app", resolver(60_000).resolve(base + "/app"));
+    }
+
+    @Test
+    public void resolve_failuresAreNotCached() {
+        ShortLinkResolver resolver = resolver(60_000);
+        assertNull(resolver.resolve(base + "/loop"));
+        assertEquals(ShortLinkResolver.MAX_HOPS + 1, requests.size());
+        assertNull(resolver.resolve(base + "/gone"));
+        assertNull(resolver.resolve(base + "/gone"));
+        assertEquals(ShortLinkResolver.MAX_HOPS + 3, requests.size());
+    }
+
+    @Test
+    public void isShortLink_onlyRedirectOnlyLinks() {
+        assertTrue(ShortLinkResolver.isShortLink("https://vm.tiktok.com/ZMabc123/"));
+        assertTrue(ShortLinkResolver.isShortLink("https://www.tiktok.com/t/ZTabc123/"));
+        assertTrue(ShortLinkResolver.isShortLink("https://www.instagram.com/share/reel/BAabc123"));
+        assertFalse(ShortLinkResolver.isShortLink("https://vm.tiktok.com/"));
+        assertFalse(ShortLinkResolver.isShortLink("https://www.tiktok.com/@user/video/42"));
+        assertFalse(ShortLinkResolver.isShortLink("https://youtu.be/dQw4w9WgXcQ"));
+        assertFalse(ShortLinkResolver.isShortLink("not a url"));
+    }
+}
@@ -0,0 +1,145 @@
+package app.lovable.tagmentia;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Local unit tests for the thumbnail disk cache, against an in-process image server
+ */
+public class ThumbnailCacheTest {
+    private static final byte[] IMAGE = new byte[10 * 1024];
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private HttpServer server;
+    private String base;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startServer() throws IOException {
+        Arrays.fill(IMAGE, (byte) 7);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            requests.add(path + (ifNoneMatch != null ? " If-None-Match " + ifNoneMatch : ""));
+            if (path.equals("/page")) {
+                exchange.getResponseHeaders().add("Content-Type", "text/html");
+            } else {
+                exchange.getResponseHeaders().add("Content-Type", "image/jpeg");
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                exchange.getResponseHeaders().add("Cache-Control", "max-age=0");
+            }
+            if ("\"v1\"".equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                exchange.sendResponseHeaders(200, IMAGE.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(IMAGE);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private ThumbnailCache cache(long maxBytes, long minFreshMs) {
+        return new ThumbnailCache(temp.getRoot(), maxBytes, minFreshMs, "https://project.supabase.co/storage/v1/object/public/");
+    }
+
+    private static byte[] read(ThumbnailCache.Hit hit) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = hit.body) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void freshHit_isServedFromDiskWithoutNetwork() throws IOException {
+        ThumbnailCache.Hit first = cache(1024 * 1024, 60_000).open(base + "/a.jpg", null);
+        assertEquals("image/jpeg", first.mimeType);
+        assertArrayEquals(IMAGE, read(first));
+
+        server.stop(0);
+        ThumbnailCache.Hit second = cache(1024 * 1024, 60_000).open(base + "/a.jpg", null);
+        assertArrayEquals(IMAGE, read(second));
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void staleHit_isRevalidatedWithEtag() throws IOException {
+        ThumbnailCache cache = cache(1024 * 1024, 0);
+        read(cache.open(base + "/a.jpg", null));
+        assertArrayEquals(IMAGE, read(cache.open(base + "/a.jpg", null)));
+        assertEquals(Arrays.asList("/a.jpg", "/a.jpg If-None-Match \"v1\""), requests);
+    }
+
+    @Test
+    public void staleHit_isServedWhenNetworkFails() throws IOException {
+        ThumbnailCache cache = cache(1024 * 1024, 0);
+        read(cache.open(base + "/a.jpg", null));
+        server.stop(0);
+        assertArrayEquals(IMAGE, read(cache.open(base + "/a.jpg", null)));
+    }
+
+    @Test
+    public void budget_evictsLeastRecentlyUsed() throws IOException {
+        ThumbnailCache cache = cache(IMAGE.length * 2 + 1024, 60_000);
+        read(cache.open(base + "/a.jpg", null));
+        read(cache.open(base + "/b.jpg", null));
+        read(cache.open(base + "/a.jpg", null));
+        read(cache.open(base + "/c.jpg", null));
+        assertTrue(cache.size() <= IMAGE.length * 2 + 1024);
+
+        requests.clear();
+        read(cache.open(base + "/a.jpg", null));
+        read(cache.open(base + "/b.jpg", null));
+        assertEquals(Arrays.asList("/b.jpg"), requests);
+    }
+
+    @Test
+    public void nonImage_isLeftToTheWebView() {
+        assertNull(cache(1024 * 1024, 60_000).open(base + "/page", null));
+    }
+
+    @Test
+    public void isCacheable_onlyThumbnailHostsAndPublicStorage() {
+        ThumbnailCache cache = cache(1024, 0);
+        assertTrue(cache.isCacheable("https://i.ytimg.com/vi/dQw4w9WgXcQ/hqdefault.jpg"));
+        assertTrue(cache.isCacheable("https://p16-sign-va.tiktokcdn.com/obj/cover.jpeg"));
+        assertTrue(cache.isCacheable("https://scontent.cdninstagram.com/v/t51/1.jpg"));
+        assertTrue(cache.isCacheable("https://project.supabase.co/storage/v1/object/public/thumbnails/1.jpg"));
+        assertFalse(cache.isCacheable("https://project.supabase.co/rest/v1/videos"));
+        assertFalse(cache.isCacheable("https://www.youtube.com/watch?v=dQw4w9WgXcQ"));
+        assertFalse(cache.isCacheable("http://i.ytimg.com/vi/x/hq.jpg"));
+    }
+}
@@ -0,0 +1,193 @@
+package app.lovable.tagmentia;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file against the stored baseline and exits non-zero on a regression
+ * A throughput benchmark regresses when its score drops by more than the tolerance, or when it
+ * allocates more than the tolerance (plus a little slack) per operation
+ * Sample-time percentiles are printed for reference only - they are too noisy to gate on
+ *
+ * Usage: BenchmarkBaselineCheck results.json baseline.json [tolerance, default 0.15]
+ *        BenchmarkBaselineCheck --update results.json baseline.json
+ *
+ * --update merges the throughput scores and allocation of a run into the baseline, without the
+ * raw samples JMH records, so the committed file stays small; entries the run didn't cover are kept
+ */
+public final class BenchmarkBaselineCheck {
+    private static final String THROUGHPUT = "thrpt";
+    private static final String SAMPLE_TIME = "sample";
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+    private static final double ALLOCATION_SLACK_BYTES = 64; // Ignore noise on near-zero allocation
+
+    private BenchmarkBaselineCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && "--update".equals(args[0])) {
+            writeBaseline(args[1], args[2]);
+            return;
+        }
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkBaselineCheck results.json baseline.json [tolerance]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.15;
+        if (!Files.exists(Paths.get(args[1]))) {
+            System.err.println("No baseline at " + args[1] + " - run jmhBaseline to create one");
+            System.exit(2);
+        }
+
+        Map<String, JsonObject> results = load(args[0]);
+        Map<String, JsonObject> baseline = load(args[1]);
+        List<String> regressions = new ArrayList<>();
+
+        for (Map.Entry<String, JsonObject> entry : results.entrySet()) {
+            JsonObject current = entry.getValue();
+            String mode = current.get("mode").getAsString();
+            JsonObject previous = baseline.get(entry.getKey());
+
+            if (SAMPLE_TIME.equals(mode)) {
+                JsonObject percentiles = current.getAsJsonObject("primaryMetric").getAsJsonObject("scorePercentiles");
+                System.out.printf("  %-90s p50 %.3f  p99 %.3f  p99.9 %.3f %s%n", entry.getKey(),
+                    percentiles.get("50.0").getAsDouble(), percentiles.get("99.0").getAsDouble(),
+                    percentiles.get("99.9").getAsDouble(), unit(current));
+                continue;
+            }
+            if (!THROUGHPUT.equals(mode)) {
+                continue;
+            }
+            if (previous == null) {
+                System.out.printf("  %-90s NEW (not in baseline)%n", entry.getKey());
+                continue;
+            }
+
+            double score = score(current);
+            double baselineScore = score(previous);
+            double change = (score - baselineScore) / baselineScore;
+            boolean slower = score < baselineScore * (1 - tolerance);
+
+            double allocation = allocation(current);
+            double baselineAllocation = allocation(previous);
+            boolean allocatesMore = allocation >= 0 && baselineAllocation >= 0
+                && allocation > baselineAllocation * (1 + tolerance) + ALLOCATION_SLACK_BYTES;
+
+            System.out.printf("  %-90s %.3f %s (%+.1f%%), %.0f B/op (baseline %.0f)%s%n", entry.getKey(),
+                score, unit(current), change * 100, allocation, baselineAllocation,
+                slower || allocatesMore ? "  <-- REGRESSION" : "");
+            if (slower) {
+                regressions.add(entry.getKey() + ": throughput " + String.format("%+.1f%%", change * 100));
+            }
+            if (allocatesMore) {
+                regressions.add(entry.getKey() + ": allocation " + baselineAllocation + " -> " + allocation + " B/op");
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+            System.err.println(regressions.size() + " regression(s) beyond " + (int) (tolerance * 100) + "% tolerance:");
+            for (String regression : regressions) {
+                System.err.println("  " + regression);
+            }
+            System.exit(1);
+        }
+        System.out.println("No regressions beyond " + (int) (tolerance * 100) + "% tolerance");
+    }
+
+    /**
+     * Keep only what the check reads: throughput score, unit and bytes allocated per operation
+     */
+    private static void writeBaseline(String resultsPath, String baselinePath) throws IOException {
+        Map<String, JsonObject> merged = Files.exists(Paths.get(baselinePath)) ? load(baselinePath) : new TreeMap<>();
+        for (Map.Entry<String, JsonObject> result : load(resultsPath).entrySet()) {
+            JsonObject run = result.getValue();
+            if (!THROUGHPUT.equals(run.get("mode").getAsString())) {
+                continue;
+            }
+            JsonObject entry = new JsonObject();
+            entry.add("benchmark", run.get("benchmark"));
+            entry.add("mode", run.get("mode"));
+            if (run.has("params")) {
+                entry.add("params", run.get("params"));
+            }
+            JsonObject primary = new JsonObject();
+            primary.addProperty("score", score(run));
+            primary.addProperty("scoreUnit", unit(run));
+            entry.add("primaryMetric", primary);
+            double allocation = allocation(run);
+            if (allocation >= 0) {
+                JsonObject allocationMetric = new JsonObject();
+                allocationMetric.addProperty("score", allocation);
+                JsonObject secondary = new JsonObject();
+                secondary.add(ALLOCATION, allocationMetric);
+                entry.add("secondaryMetrics", secondary);
+            }
+            merged.put(result.getKey(), entry);
+        }
+        JsonArray trimmed = new JsonArray();
+        for (JsonObject entry : new TreeMap<>(merged).values()) {
+            trimmed.add(entry);
+        }
+        try (Writer writer = Files.newBufferedWriter(Paths.get(baselinePath), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(trimmed, writer);
+        }
+        System.out.println("Stored " + trimmed.size() + " baseline entries in " + baselinePath);
+    }
+
+    /**
+     * Results keyed by benchmark, parameters and mode
+     */
+    private static Map<String, JsonObject> load(String path) throws IOException {
+        Map<String, JsonObject> byKey = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            JsonArray runs = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : runs) {
+                JsonObject run = element.getAsJsonObject();
+                Map<String, String> params = new TreeMap<>();
+                if (run.has("params")) {
+                    for (Map.Entry<String, JsonElement> param : run.getAsJsonObject("params").entrySet()) {
+                        params.put(param.getKey(), param.getValue().getAsString());
+                    }
+                }
+                String benchmark = run.get("benchmark").getAsString();
+                String name = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+                byKey.put(name + params + " [" + run.get("mode").getAsString() + "]", run);
+            }
+        }
+        return byKey;
+    }
+
+    private static double score(JsonObject run) {
+        return run.getAsJsonObject("primaryMetric").get("score").getAsDouble();
+    }
+
+    private static String unit(JsonObject run) {
+        return run.getAsJsonObject("primaryMetric").get("scoreUnit").getAsString();
+    }
+
+    /**
+     * Bytes allocated per operation, or -1 if the run had no gc profiler
+     */
+    private static double allocation(JsonObject run) {
+        JsonObject secondary = run.getAsJsonObject("secondaryMetrics");
+        if (secondary == null || !secondary.has(ALLOCATION)) {
+            return -1;
+        }
+        return secondary.getAsJsonObject(ALLOCATION).get("score").getAsDouble();
+    }
+}
@@ -0,0 +1,39 @@
+package app.lovable.tagmentia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Canonicalization of extracted share URLs
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CanonicalizationBenchmark {
+
+    @Param({
+        "https://youtu.be/dQw4w9WgXcQ?si=Gx1k2Yb8c3PqR7sT&t=42",
+        "https://m.tiktok.com/@user.name/video/7234567890123456789/?is_from_webapp=1&sender_device=pc",
+        "https://www.instagram.com/reel/C1a2B3c4D5e/?igsh=MWQ1ZGUxMzBkMA==",
+        "https://example.com/article?utm_source=share&utm_medium=app&id=42"
+    })
+    public String url;
+
+    @Benchmark
+    public SharedUrlCanonicalizer.Result canonicalize() {
+        return SharedUrlCanonicalizer.canonicalize(url);
+    }
+}
@@ -0,0 +1,44 @@
+package app.lovable.tagmentia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deep link parsing and routing
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeepLinkBenchmark {
+
+    @Param({
+        "tagmentia://add?url=https%3A%2F%2Fwww.youtube.com%2Fwatch%3Fv%3DdQw4w9WgXcQ%26t%3D42",
+        "https://app.tagmentia.com/categories/8f14e45f?view=grid&sort=recent#top",
+        "https://example.com/share?ref=home&url=https%3A%2F%2Fvm.tiktok.com%2FZMh8AbCdE%2F"
+    })
+    public String link;
+
+    @Benchmark
+    public DeepLinkRouter.Route route() throws UnsupportedEncodingException {
+        return DeepLinkRouter.route(link);
+    }
+
+    @Benchmark
+    public boolean isTagementLink() {
+        return DeepLinkRouter.isTagementLink(link);
+    }
+}
@@ -0,0 +1,68 @@
+package app.lovable.tagmentia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of values spliced into the bridge scripts MainActivity evaluates
+ * legacyReplaceChain is the String.replace chain the scripts used before JsonStringEncoder, kept as the reference
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsEscapingBenchmark {
+
+    @Param({ "cleanUrl", "quotedText", "longText" })
+    public String sample;
+
+    private String value;
+
+    @Setup
+    public void setUp() {
+        switch (sample) {
+            case "cleanUrl":
+                value = "https://www.youtube.com/watch?v=dQw4w9WgXcQ&feature=shared";
+                break;
+            case "quotedText":
+                value = "He said \"watch this\"\r\nC:\\clips\\it's-here https://youtu.be/abc";
+                break;
+            case "longText":
+                StringBuilder text = new StringBuilder();
+                while (text.length() < 16 * 1024) {
+                    text.append("Line with \"quotes\", a back\\slash and 'apostrophes'\n");
+                }
+                value = text.toString();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown sample: " + sample);
+        }
+    }
+
+    @Benchmark
+    public String quote() {
+        return JsonStringEncoder.quote(value);
+    }
+
+    @Benchmark
+    public String legacyReplaceChain() {
+        return "\"" + value
+            .replace("\\", "\\\\")
+            .replace("\"", "\\\"")
+            .replace("\n", "\\n")
+            .replace("\r", "\\r") + "\"";
+    }
+}
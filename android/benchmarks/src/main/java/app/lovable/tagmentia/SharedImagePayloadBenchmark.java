@@ -0,0 +1,102 @@
+package app.lovable.tagmentia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handing a shared image to the web layer, 100 KB to 20 MB
+ * legacyDataUrl reproduces the old base64 data-URL path (read into memory, encode, escape,
+ * build the localStorage script and the data URL); streamingCopy is the plain file copy and
+ * streamingCopyWithDigest the content-addressed ingestion copy (SHA-256 computed on the way)
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class SharedImagePayloadBenchmark {
+
+    @Param({ "100", "1024", "5120", "20480" })
+    public int sizeKb;
+
+    private File source;
+    private File target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] payload = new byte[sizeKb * 1024];
+        new Random(42).nextBytes(payload);
+        source = File.createTempFile("shared_image_bench_", ".png");
+        target = File.createTempFile("shared_image_bench_", ".copy");
+        Files.write(source.toPath(), payload);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        source.delete();
+        target.delete();
+    }
+
+    @Benchmark
+    public String legacyDataUrl() throws IOException {
+        byte[] imageBytes;
+        try (InputStream inputStream = new FileInputStream(source)) {
+            byte[] buffer = new byte[8192];
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesRead);
+            }
+            imageBytes = outputStream.toByteArray();
+        }
+        String base64 = Base64.getEncoder().encodeToString(imageBytes);
+        String base64Js = String.format(
+            "try { localStorage.setItem('sharedImageBase64', %s); } catch (e) { }",
+            JsonStringEncoder.quote(base64));
+        String dataUrl = "data:image/png;base64," + base64;
+        return base64Js.length() > dataUrl.length() ? base64Js : dataUrl;
+    }
+
+    @Benchmark
+    public long streamingCopy() throws IOException {
+        try (FileInputStream in = new FileInputStream(source);
+             FileOutputStream out = new FileOutputStream(target)) {
+            return ChannelCopy.copy(in.getChannel(), out.getChannel(), source.length());
+        }
+    }
+
+    @Benchmark
+    public String streamingCopyWithDigest() throws IOException, NoSuchAlgorithmException {
+        try (FileInputStream in = new FileInputStream(source);
+             FileOutputStream out = new FileOutputStream(target)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ChannelCopy.copyAndDigest(in.getChannel(), out.getChannel(), digest);
+            return ChannelCopy.toHex(digest.digest());
+        }
+    }
+}
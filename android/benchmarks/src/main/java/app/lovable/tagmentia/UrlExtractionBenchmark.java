@@ -0,0 +1,66 @@
+package app.lovable.tagmentia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * URL extraction from share texts as the supported apps actually send them
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlExtractionBenchmark {
+
+    @Param({ "plainUrl", "youtubeShare", "tiktokCaption", "instagramBare", "mixedCaseHost", "noUrl" })
+    public String sample;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        switch (sample) {
+            case "plainUrl":
+                text = "https://youtu.be/dQw4w9WgXcQ?si=Gx1k2Yb8c3PqR7sT";
+                break;
+            case "youtubeShare":
+                text = "Check out this video: Never Gonna Give You Up (Official Music Video)\n"
+                    + "https://www.youtube.com/watch?v=dQw4w9WgXcQ&feature=shared";
+                break;
+            case "tiktokCaption":
+                text = "When the beat drops 😂🔥 #fyp #foryou #dance #viral #trending "
+                    + "(via @some.creator) ... watch more: https://vm.tiktok.com/ZMh8AbCdE/ !!";
+                break;
+            case "instagramBare":
+                text = "Saw this on insta, thoughts?? instagram.com/reel/C1a2B3c4D5e/?igsh=MWQ1ZGUxMzBkMA==.";
+                break;
+            case "mixedCaseHost":
+                text = "Notes.txt and the clip at YouTube.com/shorts/abcdEFGhijk - let me know";
+                break;
+            case "noUrl":
+                text = "Just a long message without any link in it at all, the kind people paste by accident "
+                    + "when they meant to share a video but copied the caption instead. Version 2.0 maybe.";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown sample: " + sample);
+        }
+    }
+
+    @Benchmark
+    public String extract() {
+        return SharedUrlExtractor.extract(text);
+    }
+}
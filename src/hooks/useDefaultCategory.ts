@@ -1,5 +1,6 @@
 import { useState, useEffect } from 'react';
 import { supabase } from '@/integrations/supabase/client';
+import { setQuickSaveCategory } from '@/utils/shareBridge';
 
 const DEFAULT_CATEGORY_KEY = 'tagmentia_default_category_id';
 
@@ -29,17 +30,20 @@ export function useDefaultCategory() {
           // Verify the category still exists and belongs to the user
           const { data: category } = await supabase
             .from('categories')
-            .select('id')
+            .select('id, name')
             .eq('id', stored)
             .eq('user_id', user.id)
             .single();
 
           if (category) {
             setDefaultCategoryIdState(stored);
+            // Shared links quick-saved natively go to the default category
+            void setQuickSaveCategory(category);
           } else {
             // Category doesn't exist or doesn't belong to user, clear it
             localStorage.removeItem(DEFAULT_CATEGORY_KEY);
             setDefaultCategoryIdState(null);
+            void setQuickSaveCategory(null);
           }
         }
       } catch (error) {
@@ -61,7 +65,7 @@ export function useDefaultCategory() {
 
         const { data: category } = await supabase
           .from('categories')
-          .select('id')
+          .select('id, name')
           .eq('id', categoryId)
           .eq('user_id', user.id)
           .single();
@@ -69,12 +73,14 @@ export function useDefaultCategory() {
         if (category) {
           localStorage.setItem(DEFAULT_CATEGORY_KEY, categoryId);
           setDefaultCategoryIdState(categoryId);
+          void setQuickSaveCategory(category);
         } else {
           throw new Error('Category not found or does not belong to user');
         }
       } else {
         localStorage.removeItem(DEFAULT_CATEGORY_KEY);
         setDefaultCategoryIdState(null);
+        void setQuickSaveCategory(null);
       }
     } catch (error) {
       console.error('Error setting default category:', error);
@@ -1,13 +1,32 @@
 import { useEffect } from "react";
 import { useNavigate } from "react-router-dom";
+import { Capacitor, type PluginListenerHandle } from "@capacitor/core";
+import { supabase } from "@/integrations/supabase/client";
+import { toast } from "@/hooks/use-toast";
+import {
+  getCurrentShare,
+  notifyShareBridgeReady,
+  onScreenshotUploadFinished,
+  onScreenshotUploadProgress,
+  setCurrentShare,
+  setShareCategories,
+  ShareBridge,
+  type SharePayload,
+} from "@/utils/shareBridge";
 
 /**
  * Bootstrap hook to consume a shared URL when the app starts.
  * - If the current URL has ?url=..., navigate to /add with that url.
- * - Otherwise, if localStorage has pendingShare (set by native share flows),
- *   consume it, clear it, and navigate to /add with that url.
+ * - On Android, listen for the native ShareBridge shareReceived event, make the share
+ *   current and open /add (URL shares) or /add-shared-screen (image shares).
  *
- * Works on web and native (Capacitor) because it uses window + localStorage.
+ * The listener is registered before reporting "router mounted" to the native
+ * ShareBridge plugin, which then delivers any share queued during cold start.
+ * Shares still pending after a page reload are recovered with getPendingShares().
+ * The native link sync is kept supplied with the current session, so links it has
+ * queued can be saved even while the WebView is not running, and the native category
+ * cache with the user's categories, which back the Direct Share shortcuts.
+ * Background screenshot uploads report back here, wherever the user has moved on to.
  */
 export function usePendingShareBootstrap() {
   const navigate = useNavigate();
@@ -24,23 +43,132 @@ export function usePendingShareBootstrap() {
       } else {
         navigate(`/add?url=${sharedUrl}`, { replace: true });
       }
+    }
+  }, [navigate]);
+
+  useEffect(() => {
+    if (Capacitor.getPlatform() !== 'android') {
       return;
     }
 
-    // Fallback to pendingShare in localStorage (set by native share handling)
-    const pending = localStorage.getItem("pendingShare");
-    if (pending && pending.trim()) {
-      localStorage.removeItem("pendingShare");
-      const decodedPending = decodeURIComponent(pending.trim());
-      const encoded = encodeURIComponent(pending.trim());
-      // If URL is "IMAGE_SHARED" or starts with "data:image", redirect to AddSharedScreen
-      if (decodedPending === 'IMAGE_SHARED' || decodedPending.startsWith('data:image')) {
-        navigate(`/add-shared-screen?url=${encoded}`, { replace: true });
+    // A multi-image share counts its images while native ingests them; the share replaces the toast
+    const progressToasts = new Map<string, ReturnType<typeof toast>>();
+
+    const openShare = (share: SharePayload) => {
+      progressToasts.get(share.id)?.dismiss();
+      progressToasts.delete(share.id);
+      if (getCurrentShare()?.id === share.id) {
+        return;
+      }
+      setCurrentShare(share);
+      if (share.kind === 'image') {
+        navigate('/add-shared-screen');
       } else {
-        navigate(`/add?url=${encoded}`, { replace: true });
+        // A cold start for a URL share boots straight on an empty /add (MainActivity preloads it) -
+        // fill that entry in rather than stacking a second /add on top of it
+        navigate(`/add?url=${encodeURIComponent(share.url)}`, {
+          replace: window.location.pathname === '/add' && !window.location.search,
+        });
       }
-    }
+    };
+
+    const showProgress = ({ id, completed, total }: { id: string; completed: number; total: number }) => {
+      const title = `Preparing shared images… ${completed}/${total}`;
+      const shown = progressToasts.get(id);
+      if (shown) {
+        shown.update({ id: shown.id, title });
+      } else {
+        progressToasts.set(id, toast({ title }));
+      }
+    };
+
+    let cancelled = false;
+    let handle: PluginListenerHandle | null = null;
+    let progressHandle: PluginListenerHandle | null = null;
+    (async () => {
+      try {
+        handle = await ShareBridge.addListener('shareReceived', openShare);
+        progressHandle = await ShareBridge.addListener('shareProgress', showProgress);
+        if (cancelled) {
+          handle.remove();
+          progressHandle.remove();
+          return;
+        }
+        // The router is mounted and listening - native share commands can be delivered now
+        await notifyShareBridgeReady();
+        const { shares } = await ShareBridge.getPendingShares();
+        if (!cancelled && !getCurrentShare() && shares.length > 0) {
+          openShare(shares[0]);
+        }
+      } catch (error) {
+        console.warn('ShareBridge plugin not available:', error);
+      }
+    })();
+
+    return () => {
+      cancelled = true;
+      handle?.remove();
+      progressHandle?.remove();
+    };
   }, [navigate]);
-}
 
+  useEffect(() => {
+    if (Capacitor.getPlatform() !== 'android') {
+      return;
+    }
+    // Fires with the current session on subscribe, then on every refresh and sign-out
+    const { data: { subscription } } = supabase.auth.onAuthStateChange((event, session) => {
+      ShareBridge.setSyncSession({ accessToken: session?.access_token ?? null }).catch((error) => {
+        console.warn('ShareBridge plugin not available:', error);
+      });
+      // Once per sign-in rather than on every token refresh; native only republishes on change
+      if (session?.user && (event === 'INITIAL_SESSION' || event === 'SIGNED_IN')) {
+        // Deferred - auth callbacks must not await Supabase calls
+        setTimeout(async () => {
+          const { data } = await supabase
+            .from('categories')
+            .select('id, name, color')
+            .eq('user_id', session.user.id)
+            .order('name');
+          if (data) {
+            void setShareCategories(data);
+          }
+        }, 0);
+      }
+    });
+    return () => subscription.unsubscribe();
+  }, []);
 
+  useEffect(() => {
+    // One toast per running batch, updated in place and replaced by the result
+    const progressToasts = new Map<string, ReturnType<typeof toast>>();
+    const removeProgress = onScreenshotUploadProgress(({ batchId, uploadedBytes, totalBytes }) => {
+      const percent = totalBytes > 0 ? Math.round((uploadedBytes / totalBytes) * 100) : 0;
+      const title = `Uploading screenshots… ${percent}%`;
+      const shown = progressToasts.get(batchId);
+      if (shown) {
+        shown.update({ id: shown.id, title });
+      } else {
+        progressToasts.set(batchId, toast({ title }));
+      }
+    });
+    const removeFinished = onScreenshotUploadFinished(({ batchId, uploaded, error }) => {
+      progressToasts.get(batchId)?.dismiss();
+      progressToasts.delete(batchId);
+      if (uploaded) {
+        toast({ title: "Screenshot uploaded" });
+      } else {
+        console.error('Background screenshot upload failed:', error);
+        toast({
+          title: "Upload failed",
+          description: "Your shared screenshot could not be uploaded",
+          variant: "destructive",
+        });
+      }
+    });
+    return () => {
+      removeProgress();
+      removeFinished();
+    };
+  }, []);
+}
@@ -6,6 +6,8 @@ import { Input } from "@/components/ui/input";
 import { Label } from "@/components/ui/label";
 import { Textarea } from "@/components/ui/textarea";
 import { sanitizeInput, sanitizeContent, validateTextInput } from "@/utils/inputSanitization";
+import { readSharedImageManifest, type SharedImageManifestItem } from "@/utils/sharedImageManifest";
+import { acknowledgePendingShare, clearCurrentShare, uploadScreenshotsNatively } from "@/utils/shareBridge";
 import { Select, SelectContent, SelectItem, SelectTrigger, SelectValue } from "@/components/ui/select";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
 import { Dialog, DialogContent, DialogHeader, DialogTitle, DialogTrigger } from "@/components/ui/dialog";
@@ -57,6 +59,10 @@ const AddSharedScreen = () => {
   const [isSubmitting, setIsSubmitting] = useState(false);
   const [isFetchingMetadata, setIsFetchingMetadata] = useState(false);
   const isColdStart = useRef(false);
+  // Set when the image came from the native share pipeline, which already downscaled and re-encoded it
+  const isNativeCompressed = useRef(false);
+  // Every image of a native share, in share order - the first one is the preview above
+  const sharedImages = readSharedImageManifest()?.items ?? [];
   const [categories, setCategories] = useState<Array<{ id: string; name: string; color: string }>>([]);
   const [loadingCategories, setLoadingCategories] = useState(true);
   const [showCreateCategory, setShowCreateCategory] = useState(false);
@@ -156,9 +162,41 @@ const AddSharedScreen = () => {
     }
   };
 
+  /**
+   * Resolve the file reference written by the native share handler to a URL the WebView can load
+   * The image bytes stay on disk and are served on the local origin - no base64 copy is made
+   */
+  const getSharedImageFileUrl = (): string | null => {
+    const sharedImage = readSharedImageManifest()?.items[0];
+    if (!sharedImage || !Capacitor.isNativePlatform()) {
+      return null;
+    }
+    return sharedImageUrl(sharedImage);
+  };
+
+  const sharedImageUrl = (item: SharedImageManifestItem): string =>
+    item.url ? new URL(item.url, window.location.origin).href : Capacitor.convertFileSrc(item.path);
+
+  /**
+   * Load the images of a native share after the first one (the preview) as Files for the upload
+   * An image that can no longer be read is left out rather than failing the whole share
+   */
+  const loadOtherSharedImages = async (): Promise<File[]> => {
+    const files = await Promise.all(sharedImages.slice(1).map(async (item) => {
+      try {
+        const blob = await (await fetch(sharedImageUrl(item))).blob();
+        return new File([blob], item.name, { type: item.mimeType || blob.type });
+      } catch (error) {
+        console.error('Error loading shared image:', item.name, error);
+        return null;
+      }
+    }));
+    return files.filter((file): file is File => file !== null);
+  };
+
   /**
    * Preview image function - loads and displays image from URL or data URL
-   * On mobile, prefers using file path from localStorage over base64 conversion
+   * Native shares arrive as local-origin URLs of the shared files (see getSharedImageFileUrl)
    */
   const previewImage = async (imageUrl: string) => {
     if (!imageUrl || !imageUrl.trim()) {
@@ -208,7 +246,11 @@ const AddSharedScreen = () => {
           fetch(url)
             .then(res => res.blob())
             .then(blob => {
-              const file = new File([blob], 'screenshot.png', { type: blob.type });
+              // Native shares are served from the local file - keep their original name
+              const sharedImage = (url.includes('/_shared/') || url.includes('/_capacitor_file_/')) ? readSharedImageManifest()?.items[0] : undefined;
+              const fileName = sharedImage?.name || 'screenshot.png';
+              isNativeCompressed.current = !!sharedImage?.compressed;
+              const file = new File([blob], fileName, { type: blob.type });
               setImageFile(file);
             })
             .catch(err => console.error('Error fetching image:', err));
@@ -222,181 +264,26 @@ const AddSharedScreen = () => {
         setIsFetchingMetadata(false);
       };
       img.src = url;
-      return;
-    }
-
-    // Handle content:// URIs (Android) - use base64 data efficiently
-    if (url.startsWith('content://') || Capacitor.isNativePlatform()) {
-      try {
-        const fileName = localStorage.getItem('sharedImageFileName') || 'screenshot.png';
-        const mimeType = localStorage.getItem('sharedImageMimeType') || 'image/png';
-        const base64Data = localStorage.getItem('sharedImageBase64');
-
-        if (base64Data) {
-          let dataUrl = base64Data;
-          // If it's not already a data URL, reconstruct it
-          if (!dataUrl.startsWith('data:image')) {
-            dataUrl = `data:${mimeType};base64,${base64Data}`;
-          }
-          
-          // Set thumbnail URL immediately for preview
-          setThumbnailUrl(dataUrl);
-          
-          // Convert base64 to File more efficiently using Blob
-          try {
-            // Extract base64 string (remove data URL prefix if present)
-            const base64String = dataUrl.includes(',') 
-              ? dataUrl.split(',')[1] 
-              : base64Data;
-            
-            // Safety check: prevent processing extremely large images (>50MB base64)
-            const maxBase64Length = 50 * 1024 * 1024; // 50MB in base64
-            if (base64String.length > maxBase64Length) {
-              throw new Error('Image too large. Please share a smaller image.');
-            }
-            
-            // Decode base64 to binary more efficiently
-            const binaryString = atob(base64String);
-            const len = binaryString.length;
-            const bytes = new Uint8Array(len);
-            for (let i = 0; i < len; i++) {
-              bytes[i] = binaryString.charCodeAt(i);
-            }
-            
-            // Create Blob and then File (more memory efficient)
-            const blob = new Blob([bytes], { type: mimeType });
-            const file = new File([blob], fileName, { type: mimeType });
-            
-            setImageFile(file);
-            console.log('Successfully converted base64 to File:', fileName, 'Size:', file.size, 'bytes');
-          } catch (conversionError) {
-            console.error('Error converting base64 to File:', conversionError);
-            const errorMessage = conversionError instanceof Error 
-              ? conversionError.message 
-              : 'Could not process shared image. Please try sharing again.';
-            
-            // Fallback to dataUrlToFile method (only if not a size error)
-            if (!errorMessage.includes('too large')) {
-              try {
-                const file = dataUrlToFile(dataUrl, fileName);
-                if (file) {
-                  setImageFile(file);
-                  console.log('Fallback conversion successful');
-                } else {
-                  throw new Error('Fallback conversion failed');
-                }
-              } catch (fallbackError) {
-                console.error('Fallback conversion also failed:', fallbackError);
-                toast({
-                  title: "Error",
-                  description: errorMessage,
-                  variant: "destructive",
-                });
-              }
-            } else {
-              toast({
-                title: "Image Too Large",
-                description: errorMessage,
-                variant: "destructive",
-              });
-            }
-          }
-        } else {
-          console.warn('No base64 data found for content:// URI');
-          setThumbnailUrl("");
-        }
-      } catch (error) {
-        console.error('Error handling content:// URI:', error);
-        setThumbnailUrl("");
-        toast({
-          title: "Error",
-          description: "Failed to load shared image. Please try sharing again.",
-          variant: "destructive",
-        });
-      }
-      return;
-    }
-    
-    // If no match, try to load from base64 directly as fallback
-    try {
-      const base64Data = localStorage.getItem('sharedImageBase64');
-      const mimeType = localStorage.getItem('sharedImageMimeType') || 'image/png';
-      
-      if (base64Data) {
-        let dataUrl = base64Data;
-        if (!dataUrl.startsWith('data:image')) {
-          dataUrl = `data:${mimeType};base64,${base64Data}`;
-        }
-        setThumbnailUrl(dataUrl);
-        const file = dataUrlToFile(dataUrl, 'screenshot.png');
-        if (file) {
-          setImageFile(file);
-        }
-      }
-    } catch (error) {
-      console.error('Error loading image from base64 fallback:', error);
     }
   };
 
-  // Initialize URL from query params or localStorage
+  // Initialize URL from query params or the current native share
   useEffect(() => {
     // Check if this is a cold start (app just launched from share intent)
     // Cold start: has pending share data and no referrer or minimal history
-    const hasPendingShare = !!localStorage.getItem('pendingShare') || !!localStorage.getItem('sharedImageBase64');
+    const hasPendingShare = !!readSharedImageManifest();
     const noReferrer = !document.referrer || document.referrer === '';
     isColdStart.current = hasPendingShare && (noReferrer || window.history.length <= 2);
 
-    // Get shared URL - check query params first, then localStorage (for Android share intents)
+    // Get shared URL - check query params first, then the current native share (Android share intents)
     let sharedUrl = searchParams.get("url") || searchParams.get("text") || "";
 
-    // If no URL in query params, check localStorage for pending share (Android share intent)
+    // If no URL in query params, use the shared image file (Android share intents)
     if (!sharedUrl) {
-      try {
-        const pendingShare = localStorage.getItem('pendingShare');
-        if (pendingShare) {
-          // Check if it's an image share marker (not the full data URL)
-          if (pendingShare === 'IMAGE_SHARED') {
-            // Image share marker - check for base64 data directly
-            const base64Data = localStorage.getItem('sharedImageBase64');
-            const mimeType = localStorage.getItem('sharedImageMimeType') || 'image/png';
-            
-            if (base64Data) {
-              // If it's already a data URL, use it directly
-              if (base64Data.startsWith('data:image')) {
-                sharedUrl = base64Data;
-              } else {
-                // Reconstruct data URL from base64
-                sharedUrl = `data:${mimeType};base64,${base64Data}`;
-              }
-            }
-          } else {
-            // Regular URL share
-            sharedUrl = pendingShare;
-          }
-          // Don't clear it yet - will be cleared on cancel/back
-        }
-      } catch (error) {
-        console.error('Error reading pending share from localStorage:', error);
-      }
-    }
-
-    // If still no URL, check for base64 image data directly (for Android share intents)
-    if (!sharedUrl) {
-      try {
-        const base64Data = localStorage.getItem('sharedImageBase64');
-        const mimeType = localStorage.getItem('sharedImageMimeType') || 'image/png';
-        
-        if (base64Data) {
-          // If it's already a data URL, use it directly
-          if (base64Data.startsWith('data:image')) {
-            sharedUrl = base64Data;
-          } else {
-            // Reconstruct data URL from base64
-            sharedUrl = `data:${mimeType};base64,${base64Data}`;
-          }
-        }
-      } catch (error) {
-        console.error('Error reading shared image base64 from localStorage:', error);
+      sharedUrl = getSharedImageFileUrl() || "";
+      if (sharedUrl) {
+        // The native journal can drop the image share, it now lives in this page
+        void acknowledgePendingShare();
       }
     }
 
@@ -407,22 +294,6 @@ const AddSharedScreen = () => {
       setFormData(prev => ({ ...prev, url: decodedUrl }));
       // Preview the image
       previewImage(decodedUrl);
-    } else {
-      // Even if no URL, try to load from base64 directly
-      try {
-        const base64Data = localStorage.getItem('sharedImageBase64');
-        const mimeType = localStorage.getItem('sharedImageMimeType') || 'image/png';
-        
-        if (base64Data) {
-          let dataUrl = base64Data;
-          if (!dataUrl.startsWith('data:image')) {
-            dataUrl = `data:${mimeType};base64,${base64Data}`;
-          }
-          previewImage(dataUrl);
-        }
-      } catch (error) {
-        console.error('Error loading image from base64:', error);
-      }
     }
 
     // Set categoryId if provided in URL params, route params, or use default
@@ -522,17 +393,8 @@ const AddSharedScreen = () => {
       const listener = await App.addListener('backButton', () => {
         // If warm start (app already running), delete URL first
         if (!isColdStart.current) {
-          // Clear all shared screenshot data from localStorage
-          try {
-            localStorage.removeItem('pendingShare');
-            localStorage.removeItem('sharedImageBase64');
-            localStorage.removeItem('sharedImageFilePath');
-            localStorage.removeItem('sharedImageFileName');
-            localStorage.removeItem('sharedImageFileSize');
-            localStorage.removeItem('sharedImageMimeType');
-          } catch (error) {
-            console.error('Error clearing localStorage:', error);
-          }
+          // Drop the shared screenshot from the page
+          clearCurrentShare();
 
           // Clear form data URL
           setFormData(prev => ({ ...prev, url: "" }));
@@ -745,6 +607,30 @@ const AddSharedScreen = () => {
         videoId = newVideo.id;
       }
 
+      // Upload-ready native shares go to the background upload engine - it survives leaving the app,
+      // resumes after interruptions and registers the screenshot (and video thumbnail) itself
+      const sharedImage = sharedImages[0];
+      const isSharedPreview = !!sharedImage && (!imageFile || imageFile.name === sharedImage.name);
+      if (isSharedPreview && isNativeCompressed.current && sharedImages.every((item) => item.compressed)) {
+        const { data: { session } } = await supabase.auth.getSession();
+        const batchId = session && await uploadScreenshotsNatively({
+          files: sharedImages.map((item) => item.name),
+          userId: user.id,
+          categoryId: categoryUuid,
+          videoId,
+          accessToken: session.access_token,
+        });
+        if (batchId) {
+          clearCurrentShare();
+          toast({
+            title: sharedImages.length > 1 ? `Uploading ${sharedImages.length} screenshots` : "Uploading screenshot",
+            description: `${sharedImages.length > 1 ? "They" : "It"} will appear in your category once the upload finishes`,
+          });
+          navigate(`/category/${categoryId || categoryUuid}`, { replace: true });
+          return;
+        }
+      }
+
       // Ensure we have a file to upload
       let fileToUpload = imageFile;
       if (!fileToUpload && formData.url.trim().startsWith('data:image')) {
@@ -761,14 +647,19 @@ const AddSharedScreen = () => {
         return;
       }
 
-      // Compress image before uploading
-      toast({
-        title: "Compressing image...",
-        description: "This may take a moment",
-      });
+      // The rest of a multi-image native share goes up with the preview
+      const otherSharedFiles = isSharedPreview ? await loadOtherSharedImages() : [];
 
+      // Compress images before uploading - native shares arrive already compressed
+      let compressedFiles: File[] = [fileToUpload, ...otherSharedFiles];
+      if (!isNativeCompressed.current || !sharedImages.every((item) => item.compressed)) {
+        toast({
+          title: "Compressing image...",
+          description: "This may take a moment",
+        });
 
-      const compressedFiles = await compressImages([fileToUpload]);
+        compressedFiles = await compressImages(compressedFiles);
+      }
 
 
       // Check if compressed file is still too large (5MB max)
@@ -787,7 +678,7 @@ const AddSharedScreen = () => {
       console.log("compressedFiles=>" + compressedFiles[0].name);
       // Upload screenshot using the edge function
       const formDataToSend = new FormData();
-      formDataToSend.append('files', compressedFiles[0]);
+      compressedFiles.forEach((file) => formDataToSend.append('files', file));
 
       formDataToSend.append('categoryId', categoryUuid);
       formDataToSend.append('videoId', videoId);
@@ -824,7 +715,9 @@ const AddSharedScreen = () => {
       // Success - show toast and navigate
       toast({
         title: "Success!",
-        description: `Screenshot uploaded successfully`,
+        description: compressedFiles.length > 1
+          ? `${compressedFiles.length} screenshots uploaded successfully`
+          : `Screenshot uploaded successfully`,
       });
 
       // Navigate back to category or videos page
@@ -851,17 +744,8 @@ const AddSharedScreen = () => {
   const handleCancel = () => {
     // If warm start (app already running), delete URL first
     if (!isColdStart.current) {
-      // Clear all shared screenshot data from localStorage
-      try {
-        localStorage.removeItem('pendingShare');
-        localStorage.removeItem('sharedImageBase64');
-        localStorage.removeItem('sharedImageFilePath');
-        localStorage.removeItem('sharedImageFileName');
-        localStorage.removeItem('sharedImageFileSize');
-        localStorage.removeItem('sharedImageMimeType');
-      } catch (error) {
-        console.error('Error clearing localStorage:', error);
-      }
+      // Drop the shared screenshot from the page
+      clearCurrentShare();
 
       // Clear form data URL
       setFormData(prev => ({ ...prev, url: "" }));
@@ -874,17 +758,8 @@ const AddSharedScreen = () => {
   };
 
   const handleExitApp = async () => {
-    // Clear all shared screenshot data from localStorage
-    try {
-      localStorage.removeItem('pendingShare');
-      localStorage.removeItem('sharedImageBase64');
-      localStorage.removeItem('sharedImageFilePath');
-      localStorage.removeItem('sharedImageFileName');
-      localStorage.removeItem('sharedImageFileSize');
-      localStorage.removeItem('sharedImageMimeType');
-    } catch (error) {
-      console.error('Error clearing localStorage:', error);
-    }
+    // Drop the shared screenshot from the page
+    clearCurrentShare();
 
     // Clear form data URL
     setFormData(prev => ({ ...prev, url: "" }));
@@ -940,6 +815,25 @@ const AddSharedScreen = () => {
                         }}
                       />
                     </div>
+                    {sharedImages.length > 1 && (
+                      <>
+                        <div className="grid grid-cols-4 gap-2">
+                          {sharedImages.slice(1).map((item, index) => (
+                            <div key={`${item.name}-${index}`} className="aspect-square rounded-md overflow-hidden border border-border bg-muted">
+                              <img
+                                src={sharedImageUrl(item)}
+                                alt={item.name}
+                                loading="lazy"
+                                className="w-full h-full object-cover"
+                              />
+                            </div>
+                          ))}
+                        </div>
+                        <p className="text-xs text-muted-foreground text-center">
+                          All {sharedImages.length} screenshots will be added
+                        </p>
+                      </>
+                    )}
                     {isFetchingMetadata && (
                       <p className="text-xs text-muted-foreground text-center">
                         Loading preview...
@@ -3,7 +3,6 @@ import { useNavigate, useSearchParams, useLocation } from "react-router-dom";
 import { supabase } from "@/integrations/supabase/client";
 import { useToast } from "@/hooks/use-toast";
 import { isSupportedUrl, getUnsupportedPlatformMessage, getPlatform } from "@/utils/urlNormalization";
-import { callEdgeFunction } from "@/utils/edgeFunctionCall";
 import { ShareProcessingScreen } from "@/components/share/ShareProcessingScreen";
 import { UnsupportedFormatScreen } from "@/components/share/UnsupportedFormatScreen";
 import { AddVideoFormScreen } from "@/components/share/AddVideoFormScreen";
@@ -11,6 +10,7 @@ import { CategoryPickerModal } from "@/components/share/CategoryPickerModal";
 import { SaveConfirmationScreen } from "@/components/share/SaveConfirmationScreen";
 import { useDefaultCategory } from "@/hooks/useDefaultCategory";
 import { Capacitor } from "@capacitor/core";
+import { acknowledgePendingShare, getCurrentShare, getPrefetchedMetadata, onShareUrlResolved, saveSharedLink, setQuickSaveCategory, setShareCategories } from "@/utils/shareBridge";
 import {
   AlertDialog,
   AlertDialogAction,
@@ -36,6 +36,10 @@ interface Category {
   color?: string;
 }
 
+// Title shown until the video's metadata arrives, e.g. "Tiktok Video"
+const placeholderTitle = (detectedPlatform: string) =>
+  `${detectedPlatform.charAt(0).toUpperCase() + detectedPlatform.slice(1)} Video`;
+
 export default function AddSharedVideo() {
   const [searchParams] = useSearchParams();
   const navigate = useNavigate();
@@ -61,8 +65,9 @@ export default function AddSharedVideo() {
   const [showCategoryPicker, setShowCategoryPicker] = useState(false);
   const [showExitDialog, setShowExitDialog] = useState(false);
   const [showDateTimePicker, setShowDateTimePicker] = useState(false);
+  const [resolvedShortLink, setResolvedShortLink] = useState<{ shortUrl: string; url: string } | null>(null);
 
-  // Helper function to clear URL from state, URL params, and localStorage
+  // Helper function to clear URL from state and URL params
   const clearUrl = () => {
     setUrl("");
     // Clear URL from search params
@@ -81,53 +86,23 @@ export default function AddSharedVideo() {
         window.history.replaceState({}, '', '/add');
       }
     }
-    // Clear from localStorage if it exists
-    try {
-      localStorage.removeItem('pendingShare');
-    } catch (error) {
-      console.error('Error clearing pendingShare from localStorage:', error);
-    }
   };
 
   useEffect(() => {
     const initialize = async () => {
-      // Get shared URL - check query params first, then localStorage (for Android share intents)
-      let sharedUrl = searchParams.get("url") || searchParams.get("text") || "";
+      // Get shared URL from query params (native shares open this page with ?url=)
+      const sharedUrl = searchParams.get("url") || searchParams.get("text") || "";
+      const currentShare = getCurrentShare();
+      if (sharedUrl && currentShare?.kind === 'url' && currentShare.url === sharedUrl) {
+        // Opened for a native share - this page owns it now
+        void acknowledgePendingShare();
+      }
       
 
       console.log("sharedUrl=>",sharedUrl);
       // Get categoryId from URL params (if coming from Dashboard)
       const categoryIdFromUrl = searchParams.get("categoryId");
       
-      // If no URL in query params, check localStorage for pending share (Android share intent)
-      if (!sharedUrl) {
-        try {
-          const pendingShare = localStorage.getItem('pendingShare');
-          if (pendingShare) {
-            // Check if it's "IMAGE_SHARED" marker - redirect immediately without processing
-            if (pendingShare.trim() === 'IMAGE_SHARED') {
-              localStorage.removeItem('pendingShare');
-              navigate('/add-shared-screen', { replace: true });
-              return;
-            }
-            sharedUrl = pendingShare;
-            // Clear it after reading
-            localStorage.removeItem('pendingShare');
-            // Update URL in browser if we got it from localStorage
-            if (window.history && window.history.replaceState) {
-              const params = new URLSearchParams();
-              params.set('url', sharedUrl);
-              if (categoryIdFromUrl) {
-                params.set('categoryId', categoryIdFromUrl);
-              }
-              window.history.replaceState({}, '', `/add?${params.toString()}`);
-            }
-          }
-        } catch (error) {
-          console.error('Error reading pending share from localStorage:', error);
-        }
-      }
-      
       const decodedUrl = sharedUrl ? decodeURIComponent(sharedUrl) : "";
       
       // If URL is "IMAGE_SHARED" or starts with "data:image", redirect to AddSharedScreen page
@@ -150,6 +125,9 @@ export default function AddSharedVideo() {
         return;
       }
 
+      // Metadata native prefetched while the WebView booted - read it alongside the auth and category round trips
+      const prefetchedMetadata = getPrefetchedMetadata(decodedUrl);
+
       // Verify user is authenticated before loading categories
       const { data: { user }, error: authError } = await supabase.auth.getUser();
       
@@ -169,6 +147,8 @@ export default function AddSharedVideo() {
 
       if (categoriesData) {
         setCategories(categoriesData);
+        // Freshest list there is - keep the Direct Share shortcuts in line with it
+        void setShareCategories(categoriesData);
         
         // Set categoryId if provided in URL params, otherwise don't auto-select
         if (categoryIdFromUrl && categoriesData.find(c => c.id === categoryIdFromUrl)) {
@@ -183,7 +163,15 @@ export default function AddSharedVideo() {
         const detectedPlatform = getPlatform(decodedUrl);
         if (detectedPlatform) {
           setPlatform(detectedPlatform as "youtube" | "tiktok" | "instagram" | "snapchat" | "loom");
-          setVideoTitle(`${detectedPlatform.charAt(0).toUpperCase() + detectedPlatform.slice(1)} Video`);
+          setVideoTitle(placeholderTitle(detectedPlatform));
+        }
+
+        const metadata = await prefetchedMetadata;
+        if (metadata?.title) {
+          setVideoTitle(metadata.title);
+        }
+        if (metadata?.thumbnail_url) {
+          setThumbnailUrl(metadata.thumbnail_url);
         }
       }
 
@@ -198,6 +186,29 @@ export default function AddSharedVideo() {
 
 
 
+  // A shared short link is handed over as-is and followed natively afterwards
+  useEffect(() => onShareUrlResolved((shortUrl, resolvedUrl) => setResolvedShortLink({ shortUrl, url: resolvedUrl })), []);
+
+  // Swap in where the short link leads once the form is set up, unless the user has changed the link
+  useEffect(() => {
+    if (!resolvedShortLink || processing || url !== resolvedShortLink.shortUrl) {
+      return;
+    }
+    const detectedPlatform = getPlatform(resolvedShortLink.shortUrl);
+    setUrl(resolvedShortLink.url);
+    // Native prefetched the resolved link's metadata - fill in what the user hasn't touched
+    void getPrefetchedMetadata(resolvedShortLink.url).then((metadata) => {
+      if (metadata?.title) {
+        const title = metadata.title;
+        setVideoTitle((current) => (!current || (detectedPlatform && current === placeholderTitle(detectedPlatform)) ? title : current));
+      }
+      if (metadata?.thumbnail_url) {
+        const thumbnail = metadata.thumbnail_url;
+        setThumbnailUrl((current) => current || thumbnail);
+      }
+    });
+  }, [resolvedShortLink, processing, url]);
+
   // Handle back button press - navigate to dashboard after save
   useEffect(() => {
     // Only handle on native platforms (Android/iOS)
@@ -286,17 +297,14 @@ export default function AddSharedVideo() {
         return;
       }
 
-      // Call edge function using utility function with proper error handling
-      const { data, error: saveError } = await callEdgeFunction(
-        "save-shared-link",
-        { 
-          url, 
-          categoryId, 
-          note: notes || undefined,
-          tags: tags || undefined,
-          reminderAt: reminderDate ? reminderDate : undefined
-        }
-      );
+      // Call edge function (on Android through the native link sync) with proper error handling
+      const { data, error: saveError } = await saveSharedLink({
+        url,
+        categoryId,
+        note: notes || undefined,
+        tags: tags || undefined,
+        reminderAt: reminderDate ? reminderDate : undefined
+      });
 
       // Handle errors from edge function
       if (saveError) {
@@ -357,6 +365,10 @@ export default function AddSharedVideo() {
         }
         
         const category = categories.find((c) => c.id === categoryId);
+        if (category && !defaultCategoryId) {
+          // Without a default category, the next share is quick-saved where this one went
+          void setQuickSaveCategory(category);
+        }
         toast({
           title: "Video Saved!",
           description: `Video has been added to ${category?.name || 'your category'}`,
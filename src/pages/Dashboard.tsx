@@ -30,6 +30,7 @@ import { useDeviceDetection } from "@/hooks/useDeviceDetection";
 import { useToast } from "@/hooks/use-toast";
 import { isSupportedUrl, getPlatform } from "@/utils/urlNormalization";
 import { callEdgeFunction } from "@/utils/edgeFunctionCall";
+import { readSharedImageManifest } from "@/utils/sharedImageManifest";
 import MobileWelcomePage from "./auth/MobileWelcomePage";
 
 const Dashboard = () => {
@@ -276,34 +277,11 @@ const Dashboard = () => {
     }
   };
 
-  /**
-   * Get pending share from storage
-   * When user taps "Share" in an app, Android collects the content (text/image/link/file)
-   * and stores it. This function reads what is about to be shared.
-   */
-  const getPendingShare = (): string | null => {
-    try {
-      const pendingShare = localStorage.getItem('pendingShare');
-      if (pendingShare) {
-        // Clear it after reading
-        localStorage.removeItem('pendingShare');
-        return pendingShare;
-      }
-      return null;
-    } catch (error) {
-      console.error('Error getting pending share:', error);
-      return null;
-    }
-  };
-
   /**
    * Handle category click - navigate to AddVideoToCategory page if URL found,
    * otherwise navigate to category detail page
    */
   const handleCategoryClick2 = async (categoryId: string) => {
-    // Check for pending share first (from Android share intent)
-    const pendingShare = getPendingShare();
-    
     let urlToPass = "";
     
     // Only check clipboard on native platforms (iOS/Android)
@@ -326,11 +304,10 @@ const Dashboard = () => {
           }
         }
  
-        // Use pending share if available, otherwise use clipboard text
-        const textToProcess = pendingShare || (clipboardText && clipboardText.trim() ? clipboardText : null);
+        const textToProcess = clipboardText && clipboardText.trim() ? clipboardText : null;
         
         if (textToProcess) {
-          // Try to extract URL from text (pending share or clipboard)
+          // Try to extract URL from the clipboard text
           const url = extractUrlFromText(textToProcess);
           console.log('🔗 Extracted URL:', url);
           
@@ -602,9 +579,8 @@ const Dashboard = () => {
               <Button 
                 className="w-full md:flex-1 h-10 md:h-9 bg-gradient-primary hover:shadow-card transition-all duration-300 text-sm md:text-xs"
                 onClick={() => {
-                  // Check if there's a shared image in localStorage
-                  const sharedImageBase64 = localStorage.getItem('sharedImageBase64');
-                  if (sharedImageBase64 && sharedImageBase64.startsWith('data:image/')) {
+                  // A native image share still being handled goes back to its add form
+                  if (readSharedImageManifest()) {
                     navigate('/add-shared-screen');
                   } else {
                     navigate('/add-screenshot');
@@ -0,0 +1,389 @@
+import { Capacitor, registerPlugin, type PluginListenerHandle } from '@capacitor/core';
+import { supabase } from '@/integrations/supabase/client';
+import { callEdgeFunction } from './edgeFunctionCall';
+import type { SharedImageManifest } from './sharedImageManifest';
+
+/**
+ * Native ShareBridge plugin (Android) - see ShareBridgePlugin.java
+ */
+export interface ShareBridgePlugin {
+  /** Tell the native side the router has mounted so it can flush queued share commands */
+  notifyReady(): Promise<void>;
+  /** Mark a journaled share as consumed so native stops redelivering it */
+  acknowledgeShare(options: { id: string }): Promise<void>;
+  /** fetch-metadata result prefetched natively for a shared URL, waiting for a prefetch still in flight */
+  getPrefetchedMetadata(options: { url: string }): Promise<{ metadata?: PrefetchedMetadata }>;
+  /** Journaled shares not yet acknowledged, oldest first - for recovering after a page reload */
+  getPendingShares(): Promise<{ shares: SharePayload[] }>;
+  /** Diagnostics: usage and eviction counters of the native shared media cache */
+  getSharedMediaStats(): Promise<{
+    entries: number;
+    bytes: number;
+    maxBytes: number;
+    evictedEntries: number;
+    evictedBytes: number;
+    lastTrimAt: number;
+  }>;
+  /** Diagnostics: share latency percentiles (ms since the share intent), keyed "<cold|warm>.<stage>" */
+  getShareLatencyStats(): Promise<{
+    stages: Record<string, { count: number; p50: number; p95: number; p99: number; max: number }>;
+  }>;
+  /** Diagnostics: counters of the native bridge command queue (navigations and share events) */
+  getBridgeCommandStats(): Promise<{
+    pending: number;
+    submitted: number;
+    coalesced: number;
+    executed: number;
+    failed: number;
+    cancelled: number;
+    flushes: number;
+  }>;
+  /**
+   * Hand shared files (manifest item names) to the native background upload engine; uploads run with
+   * the session handed over by setSyncSession, accessToken only brings it up to date
+   */
+  uploadScreenshots(options: {
+    files: string[];
+    userId: string;
+    categoryId: string;
+    videoId: string;
+    accessToken?: string;
+  }): Promise<{ batchId: string }>;
+  /** Hand the native link sync and screenshot uploads the current session (null on sign-out) */
+  setSyncSession(options: { accessToken: string | null }): Promise<void>;
+  /** Queue a link for the next native batch to save-shared-link; the outcome arrives as savedLinkSynced */
+  queueSavedLink(options: SavedLinkRequest): Promise<{ id: string }>;
+  /** Save a link right away (with anything queued) and resolve with its outcome */
+  saveLinkNow(options: SavedLinkRequest): Promise<SavedLinkResult>;
+  /** Name the category the native quick-save share target saves links to (id null: always open the editor) */
+  setQuickSaveCategory(options: { id: string | null; name?: string }): Promise<void>;
+  /** Hand the native category cache the user's categories, ranked natively for the Direct Share shortcuts */
+  setShareCategories(options: { categories: ShareCategory[] }): Promise<void>;
+  /** Diagnostics: counters of the native link sync */
+  getSavedLinkSyncStats(): Promise<{
+    pending: number;
+    batches: number;
+    saved: number;
+    failed: number;
+    retried: number;
+    rawBytes: number;
+    sentBytes: number;
+  }>;
+  /** Shares handed over by native, one at a time; retained natively until a listener is registered */
+  addListener(eventName: 'shareReceived', listener: (share: SharePayload) => void): Promise<PluginListenerHandle>;
+  /** A delivered share's short link, followed natively after the share went out */
+  addListener(
+    eventName: 'shareUrlResolved',
+    listener: (resolved: { id: string; shortUrl: string; url: string }) => void,
+  ): Promise<PluginListenerHandle>;
+  /** How far a running background screenshot upload has got, at most every half second */
+  addListener(
+    eventName: 'uploadProgress',
+    listener: (progress: { batchId: string; uploadedBytes: number; totalBytes: number }) => void,
+  ): Promise<PluginListenerHandle>;
+  /** How many images of a multi-image share native has ingested, before the share itself arrives */
+  addListener(
+    eventName: 'shareProgress',
+    listener: (progress: { id: string; completed: number; total: number }) => void,
+  ): Promise<PluginListenerHandle>;
+  /** How a background screenshot upload ended; retained natively until a listener is registered */
+  addListener(
+    eventName: 'uploadFinished',
+    listener: (result: { batchId: string; uploaded: boolean; error?: string | null }) => void,
+  ): Promise<PluginListenerHandle>;
+  addListener(eventName: 'savedLinkSynced', listener: (result: SavedLinkResult) => void): Promise<PluginListenerHandle>;
+}
+
+/** A link for save-shared-link, as the native link sync takes it */
+export interface SavedLinkRequest {
+  url: string;
+  categoryId: string;
+  note?: string;
+  reminderAt?: string;
+  accessToken?: string;
+}
+
+/** A category as the native category cache keeps it */
+export interface ShareCategory {
+  id: string;
+  name: string;
+  color?: string | null;
+}
+
+/** The outcome of one link saved through the native link sync */
+export interface SavedLinkResult {
+  id: string;
+  url: string;
+  saved: boolean;
+  videoId?: string | null;
+  error?: string | null;
+  /** Not sent yet and still queued natively, e.g. error SESSION_EXPIRED until the user logs in again */
+  queued?: boolean;
+}
+
+/** A share handed over by native (see ShareBridgePlugin.toPayload) */
+export type SharePayload =
+  | { id: string; kind: 'url'; timestamp: number; source: string | null; url: string }
+  | { id: string; kind: 'image'; timestamp: number; source: string | null; manifest: SharedImageManifest };
+
+/** Response of the fetch-metadata edge function */
+export interface PrefetchedMetadata {
+  platform?: string;
+  title?: string | null;
+  thumbnail_url?: string | null;
+  duration?: number | null;
+  tags?: string[];
+}
+
+export const ShareBridge = registerPlugin<ShareBridgePlugin>('ShareBridge');
+
+// The share the web app is currently handling, kept in memory rather than localStorage
+let currentShare: SharePayload | null = null;
+let currentShareAcknowledged = false;
+
+/** The share currently being handled, or null */
+export function getCurrentShare(): SharePayload | null {
+  return currentShare;
+}
+
+/** Make a share the current one (done by usePendingShareBootstrap when native hands one over) */
+export function setCurrentShare(share: SharePayload): void {
+  currentShare = share;
+  currentShareAcknowledged = false;
+}
+
+/** Drop the current share once the user saved or discarded it */
+export function clearCurrentShare(): void {
+  currentShare = null;
+}
+
+/**
+ * Signal native share handling that the web app can take navigation commands
+ * No-op on web and on platforms without the plugin
+ */
+export async function notifyShareBridgeReady(): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return;
+  }
+  try {
+    await ShareBridge.notifyReady();
+  } catch (error) {
+    console.warn('ShareBridge plugin not available:', error);
+  }
+}
+
+/**
+ * Acknowledge the current share once a page has taken it over (only the first call reaches native)
+ * Until then the native journal keeps it and redelivers it on the next launch
+ */
+export async function acknowledgePendingShare(): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android' || !currentShare || currentShareAcknowledged) {
+    return;
+  }
+  currentShareAcknowledged = true;
+  try {
+    await ShareBridge.acknowledgeShare({ id: currentShare.id });
+  } catch (error) {
+    console.warn('Failed to acknowledge share:', error);
+  }
+}
+
+/**
+ * Metadata native started fetching for a shared URL while the WebView was booting
+ * Resolves null on web, when nothing was prefetched, or if the prefetch hasn't finished within timeoutMs
+ */
+export async function getPrefetchedMetadata(url: string, timeoutMs = 3000): Promise<PrefetchedMetadata | null> {
+  if (Capacitor.getPlatform() !== 'android' || !url) {
+    return null;
+  }
+  try {
+    const timeout = new Promise<null>((resolve) => setTimeout(() => resolve(null), timeoutMs));
+    const result = await Promise.race([ShareBridge.getPrefetchedMetadata({ url }), timeout]);
+    return result?.metadata ?? null;
+  } catch (error) {
+    console.warn('Failed to read prefetched metadata:', error);
+    return null;
+  }
+}
+
+/**
+ * Follow the native resolution of shared short links (vm.tiktok.com/CODE, ...), which happens
+ * after the share has been handed over with the short link itself
+ * Returns a function that stops listening; no-op on web and on platforms without the plugin
+ */
+export function onShareUrlResolved(listener: (shortUrl: string, url: string) => void): () => void {
+  if (Capacitor.getPlatform() !== 'android') {
+    return () => {};
+  }
+  let handle: PluginListenerHandle | null = null;
+  let removed = false;
+  ShareBridge.addListener('shareUrlResolved', ({ shortUrl, url }) => listener(shortUrl, url))
+    .then((registered) => {
+      if (removed) {
+        registered.remove();
+      } else {
+        handle = registered;
+      }
+    })
+    .catch((error) => console.warn('ShareBridge plugin not available:', error));
+  return () => {
+    removed = true;
+    handle?.remove();
+  };
+}
+
+/**
+ * Listen for the progress of running background screenshot uploads (Android only); returns the
+ * unsubscribe function
+ */
+export function onScreenshotUploadProgress(
+  listener: (progress: { batchId: string; uploadedBytes: number; totalBytes: number }) => void,
+): () => void {
+  if (Capacitor.getPlatform() !== 'android') {
+    return () => {};
+  }
+  let handle: PluginListenerHandle | null = null;
+  let removed = false;
+  ShareBridge.addListener('uploadProgress', listener)
+    .then((registered) => {
+      if (removed) {
+        registered.remove();
+      } else {
+        handle = registered;
+      }
+    })
+    .catch((error) => console.warn('ShareBridge plugin not available:', error));
+  return () => {
+    removed = true;
+    handle?.remove();
+  };
+}
+
+/**
+ * Listen for background screenshot uploads to finish (Android only); returns the unsubscribe function
+ */
+export function onScreenshotUploadFinished(
+  listener: (result: { batchId: string; uploaded: boolean; error?: string | null }) => void,
+): () => void {
+  if (Capacitor.getPlatform() !== 'android') {
+    return () => {};
+  }
+  let handle: PluginListenerHandle | null = null;
+  let removed = false;
+  ShareBridge.addListener('uploadFinished', listener)
+    .then((registered) => {
+      if (removed) {
+        registered.remove();
+      } else {
+        handle = registered;
+      }
+    })
+    .catch((error) => console.warn('ShareBridge plugin not available:', error));
+  return () => {
+    removed = true;
+    handle?.remove();
+  };
+}
+
+/**
+ * Upload shared files in the background natively (resumable, retried, independent of the WebView)
+ * Resolves the batch id, or null on web or if the native side couldn't take the files
+ */
+export async function uploadScreenshotsNatively(options: {
+  files: string[];
+  userId: string;
+  categoryId: string;
+  videoId: string;
+  accessToken?: string;
+}): Promise<string | null> {
+  if (Capacitor.getPlatform() !== 'android' || options.files.length === 0) {
+    return null;
+  }
+  try {
+    const { batchId } = await ShareBridge.uploadScreenshots(options);
+    return batchId;
+  } catch (error) {
+    console.warn('Native upload not available:', error);
+    return null;
+  }
+}
+
+/**
+ * Tell the native quick-save share target which category to save shared links to - the default
+ * category, or else the one last saved to. Without one every text share opens the editor
+ * No-op on web and on platforms without the plugin
+ */
+export async function setQuickSaveCategory(category: { id: string; name: string } | null): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return;
+  }
+  try {
+    await ShareBridge.setQuickSaveCategory(category ? { id: category.id, name: category.name } : { id: null });
+  } catch (error) {
+    console.warn('ShareBridge plugin not available:', error);
+  }
+}
+
+/**
+ * Keep the native category cache current, so Direct Share targets for the top categories can be
+ * published and used without the web app asking the backend for the list
+ * No-op on web and on platforms without the plugin
+ */
+export async function setShareCategories(categories: ShareCategory[]): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return;
+  }
+  try {
+    await ShareBridge.setShareCategories({
+      categories: categories.map(({ id, name, color }) => ({ id, name, color: color ?? null })),
+    });
+  } catch (error) {
+    console.warn('ShareBridge plugin not available:', error);
+  }
+}
+
+/**
+ * Save a link through save-shared-link - on Android via the native link sync, which sends it at once
+ * together with any links queued for the next batch, over its kept-alive connection
+ * Same { data, error } shape as callEdgeFunction; error carries the function's code (e.g. DUPLICATE_VIDEO)
+ */
+export async function saveSharedLink(
+  body: { url: string; categoryId: string; note?: string; reminderAt?: string; tags?: string },
+  timeoutMs = 30000,
+): Promise<{ data: { success: true; videoId?: string | null } | null; error: string | null }> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return callEdgeFunction('save-shared-link', body);
+  }
+  const { data: { session } } = await supabase.auth.getSession();
+  if (!session?.access_token) {
+    return { data: null, error: 'Your session has expired. Please log in again.' };
+  }
+  let result: SavedLinkResult | null;
+  try {
+    const timeout = new Promise<null>((resolve) => setTimeout(() => resolve(null), timeoutMs));
+    result = await Promise.race([
+      ShareBridge.saveLinkNow({
+        url: body.url,
+        categoryId: body.categoryId,
+        note: body.note,
+        reminderAt: body.reminderAt,
+        accessToken: session.access_token,
+      }),
+      timeout,
+    ]);
+  } catch (error) {
+    console.warn('Native link sync not available:', error);
+    return callEdgeFunction('save-shared-link', body);
+  }
+  if (!result) {
+    // Still queued natively - it is sent again with the next batch
+    return { data: null, error: 'Saving is taking longer than usual. It will finish in the background.' };
+  }
+  if (!result.saved && result.error === 'SESSION_EXPIRED') {
+    // The link stays queued natively and goes out with the session handed over after logging in
+    return { data: null, error: 'Your session has expired. Please log in again.' };
+  }
+  return result.saved
+    ? { data: { success: true, videoId: result.videoId }, error: null }
+    : { data: null, error: result.error ?? 'Save failed' };
+}
@@ -0,0 +1,35 @@
+import { getCurrentShare } from './shareBridge';
+
+// Shared image batch manifest produced by the native Android share handler (part of an image share payload)
+
+export interface SharedImageManifestItem {
+  path: string;
+  // Path on the app's local origin (/_shared/<name>) serving the file with range support
+  url?: string;
+  name: string;
+  size: number;
+  mimeType: string;
+  // True when the native pipeline already downscaled/re-encoded the file for upload
+  compressed: boolean;
+  // SHA-256 (hex) of the shared bytes - repeat shares of the same image carry the same hash and file
+  sha256?: string;
+}
+
+export interface SharedImageManifest {
+  count: number;
+  failed: number;
+  items: SharedImageManifestItem[];
+}
+
+/**
+ * Read the batch manifest of shared image files (one entry per shared image, in share order)
+ * Returns null when no native image share is being handled
+ */
+export function readSharedImageManifest(): SharedImageManifest | null {
+  const share = getCurrentShare();
+  if (share?.kind !== 'image') {
+    return null;
+  }
+  const manifest = share.manifest;
+  return Array.isArray(manifest?.items) && manifest.items.length > 0 ? manifest : null;
+}
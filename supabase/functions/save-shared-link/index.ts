@@ -4,9 +4,30 @@ import { saveVideoLink } from './providers/orchestrator.ts';
 
 const corsHeaders = {
   'Access-Control-Allow-Origin': '*',
-  'Access-Control-Allow-Headers': 'authorization, x-client-info, apikey, content-type',
+  'Access-Control-Allow-Headers': 'authorization, x-client-info, apikey, content-type, content-encoding',
 };
 
+// Batches from the native link sync (SavedLinkSync.MAX_BATCH_ITEMS is 25)
+const MAX_BATCH_ITEMS = 50;
+// Failures worth sending again in a later batch; everything else is final
+const RETRYABLE_ERRORS = new Set(['Failed to save video to database.']);
+
+interface BatchItem {
+  id: string;
+  url?: string;
+  categoryId?: string;
+  note?: string;
+  reminderAt?: string;
+}
+
+/** Request bodies may arrive gzip-compressed (the native link sync always compresses) */
+async function readJson(req: Request): Promise<any> {
+  if (req.headers.get('Content-Encoding') === 'gzip' && req.body) {
+    return await new Response(req.body.pipeThrough(new DecompressionStream('gzip'))).json();
+  }
+  return await req.json();
+}
+
 serve(async (req) => {
   // Handle CORS preflight requests
   if (req.method === 'OPTIONS') {
@@ -53,7 +74,50 @@ serve(async (req) => {
     console.log('✅ User authenticated:', user.id);
 
     // Parse request body
-    const { url, categoryId, title, note, reminderAt } = await req.json();
+    const body = await readJson(req);
+
+    // Batch from the native link sync: save each item in order (plan limits are checked per save)
+    // and answer per item, so one bad link doesn't fail the others
+    if (Array.isArray(body.items)) {
+      const items: BatchItem[] = body.items;
+      if (items.length > MAX_BATCH_ITEMS) {
+        return new Response(
+          JSON.stringify({ error: `At most ${MAX_BATCH_ITEMS} items per batch` }),
+          { status: 413, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+        );
+      }
+      console.log('📦 Batch of', items.length, 'links');
+      const results = [];
+      for (const item of items) {
+        if (!item?.url || !item?.categoryId) {
+          results.push({ id: item?.id, success: false, error: 'Missing required fields: url and categoryId', retry: false });
+          continue;
+        }
+        try {
+          const result = await saveVideoLink(
+            item.url,
+            user.id,
+            item.categoryId,
+            supabaseUrl,
+            supabaseServiceKey,
+            item.note,
+            item.reminderAt
+          );
+          results.push(result.success
+            ? { id: item.id, success: true, videoId: result.videoId, platform: result.platform }
+            : { id: item.id, success: false, error: result.error, retry: RETRYABLE_ERRORS.has(result.error ?? '') });
+        } catch (error) {
+          console.error('❌ Batch item failed:', error);
+          results.push({ id: item.id, success: false, error: error instanceof Error ? error.message : 'Unknown error', retry: true });
+        }
+      }
+      return new Response(
+        JSON.stringify({ results }),
+        { status: 200, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+      );
+    }
+
+    const { url, categoryId, title, note, reminderAt } = body;
     console.log('📦 Request data:', { url, categoryId, hasTitle: !!title });
 
     if (!url || !categoryId) {
@@ -54,12 +54,27 @@ serve(async (req) => {
       });
     }
 
-    const formData = await req.formData();
-    const videoId = formData.get('videoId') as string;
-    const categoryId = formData.get('categoryId') as string;
-    const files = formData.getAll('files') as File[];
+    // Either multipart files from the WebView, or JSON naming objects the native upload engine
+    // already stored (resumable upload straight to the screenshots bucket) to be registered
+    let videoId: string;
+    let categoryId: string;
+    let files: File[] = [];
+    let storedPaths: string[] = [];
+    let setThumbnail = false;
+    if ((req.headers.get('content-type') ?? '').includes('application/json')) {
+      const body = await req.json();
+      videoId = body.videoId;
+      categoryId = body.categoryId;
+      storedPaths = Array.isArray(body.paths) ? body.paths.filter((path: unknown) => typeof path === 'string') : [];
+      setThumbnail = body.setThumbnail === true;
+    } else {
+      const formData = await req.formData();
+      videoId = formData.get('videoId') as string;
+      categoryId = formData.get('categoryId') as string;
+      files = formData.getAll('files') as File[];
+    }
 
-    if (!videoId || !categoryId || files.length === 0) {
+    if (!videoId || !categoryId || files.length + storedPaths.length === 0) {
       return new Response(JSON.stringify({ error: 'Missing required fields' }), {
         status: 400,
         headers: { ...corsHeaders, 'Content-Type': 'application/json' },
@@ -98,7 +113,7 @@ serve(async (req) => {
       ? Infinity 
       : limits.max_screenshots - limits.current_screenshots;
 
-    if (files.length > remainingQuota) {
+    if (files.length + storedPaths.length > remainingQuota) {
       return new Response(JSON.stringify({ 
         error: `You've reached your screenshot limit. Upgrade your plan to add more screenshots.`,
         maxScreenshots: limits.max_screenshots,
@@ -154,6 +169,79 @@ serve(async (req) => {
     const uploadedScreenshots: any[] = [];
     let totalBytesAdded = 0;
 
+    /**
+     * Create the screenshot row for an object already in the bucket
+     * Returns false once the storage quota is used up (the object is removed again)
+     */
+    const registerScreenshot = async (filePath: string, fallbackSize: number): Promise<boolean> => {
+      const fileName = filePath.split('/').pop()!;
+      const fileExt = fileName.split('.').pop() || 'jpg';
+
+      // Get file size from storage
+      const { data: fileInfo } = await supabaseClient.storage
+        .from('screenshots')
+        .list(filePath.split('/').slice(0, -1).join('/'), {
+          search: fileName
+        });
+
+      const actualSize = fileInfo && fileInfo.length > 0 ? fileInfo[0].metadata?.size || fallbackSize : fallbackSize;
+
+      // Natively uploaded objects skipped the size check above
+      if (actualSize > maxUploadBytes) {
+        await supabaseClient.storage.from('screenshots').remove([filePath]);
+        console.warn(`${filePath} exceeds ${policyData.max_upload_mb} MB, removed`);
+        return true;
+      }
+
+      // Check storage quota before committing
+      if (storageQuota.quota_bytes !== null) {
+        const prospectiveUsage = storageQuota.used_bytes + totalBytesAdded + actualSize;
+        if (prospectiveUsage > storageQuota.quota_bytes) {
+          // Rollback this upload
+          await supabaseClient.storage.from('screenshots').remove([filePath]);
+          console.warn('Would exceed storage quota, rolled back upload');
+          return false;
+        }
+      }
+
+      // Get public URL (bucket is public)
+      const { data: { publicUrl: originalUrl } } = supabaseClient.storage
+        .from('screenshots')
+        .getPublicUrl(filePath);
+
+      // Use the same URL for all sizes (no server-side transformations)
+      // The browser will handle resizing via CSS
+      const image1600Url = originalUrl;
+      const thumb320Url = originalUrl;
+
+      // Create database record
+      const { data: screenshot, error: dbError } = await supabaseClient
+        .from('screenshots')
+        .insert({
+          user_id: user.id,
+          category_id: categoryId,
+          video_id: videoId,
+          original_url: originalUrl!,
+          image_1600_url: image1600Url!,
+          thumb_320_url: thumb320Url!,
+          size_bytes: actualSize,
+          format: fileExt,
+        })
+        .select()
+        .single();
+
+      if (dbError) {
+        console.error('DB insert error:', dbError);
+        // Clean up uploaded file
+        await supabaseClient.storage.from('screenshots').remove([filePath]);
+        return true;
+      }
+
+      totalBytesAdded += actualSize;
+      uploadedScreenshots.push(screenshot);
+      return true;
+    };
+
     // Process each file
     for (const file of files) {
       const allowedTypes = ['image/png', 'image/jpeg', 'image/webp'];
@@ -192,68 +280,55 @@ serve(async (req) => {
           continue;
         }
 
-        // Get file size from storage
-        const { data: fileInfo } = await supabaseClient.storage
-          .from('screenshots')
-          .list(uploadData.path.split('/').slice(0, -1).join('/'), {
-            search: fileName
-          });
-
-        const actualSize = fileInfo && fileInfo.length > 0 ? fileInfo[0].metadata?.size || file.size : file.size;
-
-        // Check storage quota before committing
-        if (storageQuota.quota_bytes !== null) {
-          const prospectiveUsage = storageQuota.used_bytes + totalBytesAdded + actualSize;
-          if (prospectiveUsage > storageQuota.quota_bytes) {
-            // Rollback this upload
-            await supabaseClient.storage.from('screenshots').remove([filePath]);
-            console.warn('Would exceed storage quota, rolled back upload');
-            break;
-          }
+        if (!await registerScreenshot(filePath, file.size)) {
+          break;
         }
 
-        // Get public URL (bucket is public)
-        const { data: { publicUrl: originalUrl } } = supabaseClient.storage
-          .from('screenshots')
-          .getPublicUrl(filePath);
+      } catch (error) {
+        console.error('Error processing file:', error);
+        continue;
+      }
+    }
 
-        // Use the same URL for all sizes (no server-side transformations)
-        // The browser will handle resizing via CSS
-        const image1600Url = originalUrl;
-        const thumb320Url = originalUrl;
+    // Objects stored by the native upload engine - only the caller's own video folder is accepted
+    const ownPrefix = `${user.id}/${categoryId}/${videoId}/`;
+    for (const filePath of storedPaths) {
+      if (!filePath.startsWith(ownPrefix) || !/^[A-Za-z0-9_-]+\.(png|jpe?g|webp)$/.test(filePath.slice(ownPrefix.length))) {
+        console.warn(`Stored path ${filePath} is outside the video folder, skipping`);
+        continue;
+      }
 
-        // Create database record
-        const { data: screenshot, error: dbError } = await supabaseClient
+      try {
+        // A retried registration (response lost on the way back) must not duplicate rows
+        const { data: { publicUrl } } = supabaseClient.storage.from('screenshots').getPublicUrl(filePath);
+        const { data: existing } = await supabaseClient
           .from('screenshots')
-          .insert({
-            user_id: user.id,
-            category_id: categoryId,
-            video_id: videoId,
-            original_url: originalUrl!,
-            image_1600_url: image1600Url!,
-            thumb_320_url: thumb320Url!,
-            size_bytes: actualSize,
-            format: fileExt,
-          })
-          .select()
-          .single();
-
-        if (dbError) {
-          console.error('DB insert error:', dbError);
-          // Clean up uploaded file
-          await supabaseClient.storage.from('screenshots').remove([filePath]);
+          .select('*')
+          .eq('original_url', publicUrl)
+          .maybeSingle();
+        if (existing) {
+          uploadedScreenshots.push(existing);
           continue;
         }
 
-        totalBytesAdded += actualSize;
-        uploadedScreenshots.push(screenshot);
-
+        if (!await registerScreenshot(filePath, 0)) {
+          break;
+        }
       } catch (error) {
-        console.error('Error processing file:', error);
+        console.error('Error registering stored file:', error);
         continue;
       }
     }
 
+    // Native uploads finish in the background, after the add form is gone - set the thumbnail here
+    if (setThumbnail && uploadedScreenshots.length > 0) {
+      const firstScreenshot = uploadedScreenshots[0];
+      await supabaseClient
+        .from('videos')
+        .update({ thumbnail_url: firstScreenshot.thumb_320_url || firstScreenshot.original_url })
+        .eq('id', videoId);
+    }
+
     // Update user storage usage
     if (totalBytesAdded > 0) {
       const { error: usageError } = await supabaseClient
@@ -280,7 +355,7 @@ serve(async (req) => {
     return new Response(JSON.stringify({ 
       screenshots: uploadedScreenshots,
       uploaded: uploadedScreenshots.length,
-      total: files.length,
+      total: files.length + storedPaths.length,
       bytes_added: totalBytesAdded,
     }), {
       headers: { ...corsHeaders, 'Content-Type': 'application/json' },